@@ -0,0 +1,80 @@
+package benchmark;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import model.DisjointSets;
+
+/**
+ * Benchmark the union and find operations of DisjointSets on a square grid.
+ * Every invocation joins random pairs of cells until one set is left, then
+ * finds the root of every cell.
+ *
+ * @author Daniel Zhou
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DisjointSetsBenchmark {
+  @Param({"100", "1000"})
+  private int size;
+
+  private int[] pairs;
+
+  /**
+   * Draw the same random pairs of cells for every invocation.
+   */
+  @Setup(Level.Trial)
+  public void setUp() {
+    SplittableRandom rand = new SplittableRandom(1);
+    int numOfCells = size * size;
+    pairs = new int[4 * numOfCells];
+    for (int i = 0; i < pairs.length; i++) {
+      pairs[i] = rand.nextInt(numOfCells);
+    }
+  }
+
+  /**
+   * Union random pairs of cells.
+   */
+  @Benchmark
+  public int union() {
+    DisjointSets sets = new DisjointSets(size, size);
+    for (int i = 0; i < pairs.length; i += 2) {
+      sets.union(pairs[i], pairs[i + 1]);
+    }
+    return sets.getNumOfSets();
+  }
+
+  /**
+   * Union random pairs of cells, then find the root of every cell.
+   */
+  @Benchmark
+  public int unionThenFind() {
+    DisjointSets sets = new DisjointSets(size, size);
+    for (int i = 0; i < pairs.length; i += 2) {
+      sets.union(pairs[i], pairs[i + 1]);
+    }
+    int sum = 0;
+    for (int cell = 0; cell < size * size; cell++) {
+      sum += sets.find(cell);
+    }
+    return sum;
+  }
+}
@@ -0,0 +1,124 @@
+package benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import controller.Game;
+import model.CaveGraph;
+
+/**
+ * Benchmark the turns of a Game: a move turn and a shoot turn through
+ * streamIn and through the typed commands, and the direction lookups moveToIndex and shootToIndex used by the
+ * GUI. The game has no pits, bats nor arrows limit getting in the way, and is
+ * restarted with the same seed before every iteration.
+ *
+ * @author Daniel Zhou
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameBenchmark {
+  private static final String[] DIRECTIONS = {"NORTH", "EAST", "SOUTH", "WEST"};
+
+  @Param({"10", "100"})
+  private int size;
+
+  private Game game;
+  private int[] leadToCaves = new int[4];
+  private int turn;
+
+  /**
+   * Start a new game with the same seed.
+   */
+  @Setup(Level.Iteration)
+  public void setUp() {
+    game = new Game(size, size, size, 0, 0, 1, Integer.MAX_VALUE, false);
+    game.setSeedRandomGame(1);
+    game.start();
+  }
+
+  /**
+   * Get the index of a cave the hunter can move or shoot to.
+   */
+  private String getNextIndex() {
+    return String.valueOf(game.getCaveGraph().getCaveCell(getNextCave()) + 1);
+  }
+
+  /**
+   * Get the dense id of a cave the hunter can move or shoot to.
+   */
+  private int getNextCave() {
+    CaveGraph graph = game.getCaveGraph();
+    int cell = game.getHunter().getCurrentPos().x * size + game.getHunter().getCurrentPos().y;
+    int count = graph.getLeadToCavesOfCell(cell, leadToCaves);
+    return leadToCaves[turn++ % count];
+  }
+
+  /**
+   * Move the hunter to a neighbour cave.
+   */
+  @Benchmark
+  public String moveTurn() {
+    game.streamIn("M");
+    game.streamIn(getNextIndex());
+    return game.streamOut();
+  }
+
+  /**
+   * Shoot an arrow through three caves.
+   */
+  @Benchmark
+  public String shootTurn() {
+    game.streamIn("S");
+    game.streamIn("3");
+    game.streamIn(getNextIndex());
+    return game.streamOut();
+  }
+
+  /**
+   * Move the hunter to a neighbour cave through the typed command.
+   */
+  @Benchmark
+  public boolean typedMoveTurn() {
+    return game.moveTo(getNextCave());
+  }
+
+  /**
+   * Shoot an arrow through three caves through the typed command.
+   */
+  @Benchmark
+  public boolean typedShootTurn() {
+    return game.shoot(getNextCave(), 3);
+  }
+
+  /**
+   * Look up the cave to move to in a direction.
+   */
+  @Benchmark
+  public int moveToIndex() {
+    return game.moveToIndex(DIRECTIONS[turn++ & 3]);
+  }
+
+  /**
+   * Look up the cave to shoot to in a direction.
+   */
+  @Benchmark
+  public int shootToIndex() {
+    return game.shootToIndex(DIRECTIONS[turn++ & 3]);
+  }
+}
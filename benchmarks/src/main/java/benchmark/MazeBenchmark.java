@@ -0,0 +1,59 @@
+package benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import model.Maze;
+import model.RoomMaze;
+import model.WrappingMaze;
+
+/**
+ * Benchmark the construction of RoomMaze and WrappingMaze at several sizes.
+ * The number of remaining walls is a percentage of the largest number the
+ * maze accepts.
+ *
+ * @author Daniel Zhou
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MazeBenchmark {
+  @Param({"10", "100", "500"})
+  private int size;
+
+  @Param({"0", "50", "100"})
+  private int wallPercent;
+
+  private int getNumOfRemainingWalls() {
+    return (size - 1) * (size - 1) * wallPercent / 100;
+  }
+
+  /**
+   * Build a RoomMaze.
+   */
+  @Benchmark
+  public Maze roomMaze() {
+    return new RoomMaze(size, size, getNumOfRemainingWalls(), 1);
+  }
+
+  /**
+   * Build a WrappingMaze.
+   */
+  @Benchmark
+  public Maze wrappingMaze() {
+    return new WrappingMaze(size, size, getNumOfRemainingWalls(), 1);
+  }
+}
@@ -0,0 +1,74 @@
+package benchmark;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import controller.Game;
+import view.MazePanel;
+
+/**
+ * Benchmark MazePanel.paintComponent drawing a whole revealed maze into an
+ * offscreen BufferedImage. Must run from the project directory, where the
+ * images are loaded from res/images.
+ *
+ * @author Daniel Zhou
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class MazePanelBenchmark {
+  @Param({"10", "30"})
+  private int size;
+
+  @Param({"false", "true"})
+  private boolean isGodMode;
+
+  private MazePanel mazePanel;
+  private BufferedImage image;
+  private Graphics2D graphics;
+
+  /**
+   * Build a game with every cell visited, and an image of the panel size.
+   */
+  @Setup(Level.Trial)
+  public void setUp() {
+    Game game = new Game(size, size, size, 2, 2, 1, 3, true);
+    game.getMaze().revealGameMap();
+    game.setGodMode(isGodMode);
+    mazePanel = new MazePanel(game);
+    image = new BufferedImage(64 * size, 64 * size, BufferedImage.TYPE_INT_ARGB);
+    graphics = image.createGraphics();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    graphics.dispose();
+  }
+
+  /**
+   * Paint the whole maze.
+   */
+  @Benchmark
+  public BufferedImage paintComponent() {
+    mazePanel.paintComponent(graphics);
+    return image;
+  }
+}
@@ -0,0 +1,41 @@
+package controller;
+
+/**
+ * This enum represents the built-in difficulty presets of the Game. Each preset
+ * holds the maze settings, the number of superbats and pits, and the number of
+ * arrows the hunters start with.
+ *
+ * @author Daniel Zhou
+ */
+public enum Difficulty {
+  EASY("Easy", 10, 10, 1, 1, 1, 20, "Enjoy your hunt!"),
+  MEDIUM("Medium", 10, 10, 10, 3, 3, 10, "Enjoy your hunt!"),
+  HARD("Hard", 8, 8, 5, 3, 3, 5, "Enjoy your hunt!"),
+  HELL("Hell", 5, 5, 5, 2, 2, 2, "Trust your gut!");
+
+  private final GamePreset preset;
+
+  Difficulty(String label, int rows, int columns, int numOfRemainingWalls, int numOfBats,
+      int numOfPits, int startingNumArrow, String farewell) {
+    this.preset = new GamePreset(label, rows, columns, numOfRemainingWalls, numOfBats, numOfPits,
+        startingNumArrow, farewell);
+  }
+
+  /**
+   * Get the preset backing this difficulty.
+   *
+   * @return the preset
+   */
+  public GamePreset getPreset() {
+    return preset;
+  }
+
+  /**
+   * Get the menu label of this preset.
+   *
+   * @return the label
+   */
+  public String getLabel() {
+    return preset.getLabel();
+  }
+}
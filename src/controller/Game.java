@@ -1,15 +1,22 @@
 package controller;
 
 import java.awt.Point;
-import java.util.HashSet;
+import java.util.ArrayDeque;
 import java.util.Observable;
-import java.util.Random;
-import java.util.Set;
-import java.util.stream.Collectors;
 
+import model.BeliefState;
+import model.CaveGraph;
+import model.CaveSampler;
 import model.Cell;
+import model.CompactMaze;
 import model.Hunter;
+import model.Maze;
+import model.MazeCache;
+import model.MazePrefetcher;
+import model.MazeTopology;
 import model.RoomMaze;
+import model.SplitMix64;
+import model.ZobristKeys;
 
 /**
  * This class represents a controller for the Hunt The Wumpus Game. This
@@ -22,8 +29,21 @@ import model.RoomMaze;
  * @author Daniel Zhou
  */
 public class Game extends Observable implements IController {
+  // the features of the state hash, the first three once per hunter
+  private static final int HASH_POSITION = 0;
+  private static final int HASH_ARROW_POSITION = 2;
+  private static final int HASH_ARROWS = 4;
+  private static final int HASH_VISITED = 6;
+  private static final int HASH_PIT = 7;
+  private static final int HASH_BAT = 8;
+  private static final int HASH_WUMPUS = 9;
+  private static final int HASH_TURN = 10; // hunter two to play
+  private static final int NUM_OF_HASH_FEATURES = 11;
+  private static final long HASH_SEED = 0x5DEECE66DL; // same hashes in every run
+
   private StringBuffer input; // Holds user input command
-  private StringBuffer output; // Holds generated text output
+  private GameEventLog events = new GameEventLog(64); // events of the last command
+  private StringBuilder transcript = new StringBuilder(); // reused by streamOut
   private int rows;
   private int columns;
   private int numOfRemainingWalls;
@@ -34,13 +54,32 @@ public class Game extends Observable implements IController {
   private Hunter hunter;
   private Hunter hunterOne;
   private Hunter hunterTwo;
-  private Cell[][] gameMap;
-  private RoomMaze roomMaze;
+  private BeliefState beliefOne; // what each hunter sensed so far
+  private BeliefState beliefTwo;
+  private byte[] cellFlags; // status flags of the maze cells, see Cell
+  private Maze maze;
+  private CaveGraph caveGraph;
+  private CaveSampler caveSampler;
+  private int[] leadToCaves = new int[4]; // reused buffer of cave ids
+  private boolean isCompactMaze;
+  private boolean isLogging = true; // print the game over and start messages
+  private MazeCache mazeCache = new MazeCache(MazeCache.DEFAULT_MEMORY_BUDGET);
+  private MazePrefetcher mazePrefetcher;
   private String currentState;
   private int numCavePass;
   private boolean isTwoPlayers;
   private long seedRandomGame;
-  Random random = new Random(seedRandomGame);
+  private SplitMix64 hazardRandom; // pits, bats, wumpus and start cave
+  private SplitMix64 batRandom; // superbat snatches, restored by snapshots
+  private GameOutcome outcome = GameOutcome.IN_PROGRESS;
+  private Hunter outcomeHunter;
+  private GameSnapshot.Visit visits; // cells visited for the first time, latest first
+  private int[] revealedCells; // cells only visited by revealGameMap, hidden by restore
+  private int numOfRevealedCells;
+  private final ArrayDeque<GameSnapshot> undoHistory = new ArrayDeque<>();
+  private int undoDepth; // turns kept for undo, none by default
+  private ZobristKeys zobrist; // keys of the state hash, kept while the sizes match
+  private long stateHash;
   private boolean isGodMode;
   private boolean isSpecialEdition;
 
@@ -69,6 +108,28 @@ public class Game extends Observable implements IController {
    */
   public Game(int rows, int columns, int numOfRemainingWalls, int numOfPits, int numOfBats,
       int startingIdx, int startingNumArrow, boolean isTwoPlayers) throws IllegalArgumentException {
+    this(rows, columns, numOfRemainingWalls, numOfPits, numOfBats, startingIdx, startingNumArrow,
+        isTwoPlayers, true);
+  }
+
+  /**
+   * Construct a Game Controller which may be quiet from its first start, like
+   * the headless games of the simulator.
+   * 
+   * @param rows                total rows of this maze
+   * @param columns             total columns of this maze
+   * @param numOfRemainingWalls total numOfRemainingWalls of this maze
+   * @param numOfPits           total number of pits
+   * @param numOfBats           total number of bats
+   * @param startingIdx         starting index
+   * @param startingNumArrow    starting number of arrows
+   * @param isTwoPlayers        true if 2 player mode
+   * @param isLogging           false to keep the game messages off the console
+   * @throws IllegalArgumentException if attributes are invalid
+   */
+  public Game(int rows, int columns, int numOfRemainingWalls, int numOfPits, int numOfBats,
+      int startingIdx, int startingNumArrow, boolean isTwoPlayers, boolean isLogging)
+      throws IllegalArgumentException {
     if (numOfPits < 0 || numOfPits > rows * columns - 1 - numOfBats) {
       throw new IllegalArgumentException("invalid number of Pits");
     }
@@ -89,7 +150,7 @@ public class Game extends Observable implements IController {
     this.startingIdx = startingIdx;
     this.startingNumArrow = startingNumArrow;
     this.isTwoPlayers = isTwoPlayers;
-    output = new StringBuffer();
+    this.isLogging = isLogging;
     input = new StringBuffer();
     start();
   }
@@ -97,24 +158,79 @@ public class Game extends Observable implements IController {
   /**
    * initialized the game controller. Modified: Adding notifyObservers() to this
    * method, callback from View when restarting the game.
+   * 
+   * @throws IllegalArgumentException if the maze has too few caves for the
+   *                                  hazards, the wumpus and the hunter
    */
   @Override
   public void start() {
-    random.setSeed(seedRandomGame);
-    roomMaze = new RoomMaze(rows, columns, numOfRemainingWalls, seedRandomGame);
-    gameMap = roomMaze.getGameMap();
+    // split the game seed into one stream per subsystem
+    SplitMix64 seeds = new SplitMix64(seedRandomGame);
+    long seedTopology = seeds.nextLong();
+    // restarts with the same setup reuse the cached walls
+    MazeTopology topology = mazeCache.get(rows, columns, numOfRemainingWalls, seedTopology,
+        MazeTopology.Type.ROOM);
+    Maze newMaze = isCompactMaze ? new CompactMaze(topology) : new RoomMaze(topology);
+    CaveGraph newCaveGraph = new CaveGraph(newMaze);
+    // checked before any field changes, so a failed start keeps the last game
+    if (numOfPits + numOfBats + 2 > newCaveGraph.getNumOfCaves()) {
+      throw new IllegalArgumentException("invalid number of Pits and bats! only "
+          + newCaveGraph.getNumOfCaves() + " caves for the hazards, the wumpus and the hunter");
+    }
+    maze = newMaze;
+    caveGraph = newCaveGraph;
+    cellFlags = maze.getCellFlags();
+    hazardRandom = seeds.split();
+    batRandom = seeds.split();
     this.isGodMode = false;
     this.isSpecialEdition = false;
+    caveSampler = new CaveSampler(caveGraph);
+    // the start cave is chosen first and kept free of hazards
+    buildHunter();
     buildPits(numOfPits);
     buildBats(numOfBats);
     buildWumpus();
-    buildHunter();
+    caveSampler.reset();
+    beliefOne = new BeliefState(caveGraph, numOfPits, numOfBats);
+    beliefTwo = isTwoPlayers ? new BeliefState(caveGraph, numOfPits, numOfBats) : null;
+    // the events of the last game refer to the last maze
+    events.clear();
+    visits = null;
+    numOfRevealedCells = 0;
+    undoHistory.clear();
     currentState = GET_INPUT_ACTION;
+    outcome = GameOutcome.IN_PROGRESS;
+    outcomeHunter = null;
+    int numOfValues = Math.max(rows * columns, startingNumArrow + 1);
+    if (zobrist == null || zobrist.getNumOfValues() != numOfValues) {
+      zobrist = new ZobristKeys(NUM_OF_HASH_FEATURES, numOfValues, HASH_SEED);
+    }
+    stateHash = computeStateHash();
     showCurrentCave();
     checkBats();
+    updateOutcome(hunter);
     askShootOrMove();
-    setChanged();
-    notifyObservers();
+    notifyChange(GameChange.STARTED);
+  }
+
+  /**
+   * Generate the maze of a game in the background, so that starting a game
+   * with these settings and seed only reuses the cached walls.
+   * 
+   * @param rows                total rows of the maze
+   * @param columns             total columns of the maze
+   * @param numOfRemainingWalls total numOfRemainingWalls of the maze
+   * @param seedRandomGame      the seed the game will start with
+   */
+  public void prefetchMaze(int rows, int columns, int numOfRemainingWalls,
+      long seedRandomGame) {
+    if (mazePrefetcher == null) {
+      mazePrefetcher = new MazePrefetcher(mazeCache);
+    }
+    // the same first draw as start()
+    long seedTopology = new SplitMix64(seedRandomGame).nextLong();
+    mazePrefetcher.prefetch(rows, columns, numOfRemainingWalls, seedTopology,
+        MazeTopology.Type.ROOM);
   }
 
   /**
@@ -123,78 +239,153 @@ public class Game extends Observable implements IController {
    */
   @Override
   public void streamIn(final String inputString) {
-    output.setLength(0);
+    events.clear();
     input.setLength(0);
     input.append(inputString);
     update(input.toString());
   }
 
   /**
-   * Generates output and print to Text View as String.
+   * Generates output and print to Text View as String, rendered from the events
+   * of the last command.
    */
   @Override
   public String streamOut() {
-    return output.toString();
+    transcript.setLength(0);
+    for (int i = 0; i < events.size(); i++) {
+      renderEvent(events.getEvent(i), events.getFirstArgument(i), events.getSecondArgument(i));
+    }
+    return transcript.toString();
+  }
+
+  /**
+   * Get the events of the last command, read them instead of parsing
+   * streamOut(). The log is reused by the next command.
+   * 
+   * @return the event log
+   */
+  public GameEventLog getEvents() {
+    return events;
+  }
+
+  /**
+   * Append the text of an event to the transcript.
+   */
+  private void renderEvent(GameEvent event, int firstArgument, int secondArgument) {
+    switch (event) {
+      case SENSED:
+        switch (firstArgument) {
+          case Cell.SENSED:
+            transcript.append("\nTough choice! You smell a Wumpus and")
+                .append(" you feel a cold wind blowing");
+            break;
+          case Cell.BLOOD:
+            transcript.append("\nYou smell a Wumpus!");
+            break;
+          default:
+            transcript.append("\nYou feel a cold wind blowing!");
+            break;
+        }
+        break;
+      case ENTERED:
+        transcript.append("\nYou are in ");
+        appendCell(hasFlag(firstArgument, Cell.CAVE), firstArgument + 1);
+        transcript.append("\nTunnel Leads to: ");
+        appendLeadToCaves(firstArgument);
+        break;
+      case MISSED:
+        transcript.append("\nMissed.\nYour has ").append(firstArgument)
+            .append(" more arrows to Shoot\n");
+        break;
+      default:
+        if (event.isPrompt() && transcript.length() > 0) {
+          transcript.append('\n');
+        }
+        transcript.append(event.getText());
+    }
   }
 
   /**
    * Termination condition. Move to Wumpus/ Move to Pit/ Use up the arrows/ Shoot
-   * at Wumpus. Modified: Sub-termination status are implements to pass the view
-   * exact result as checking by boolean methods.
+   * at Wumpus. Modified: the outcome is decided once at the end of every turn,
+   * this only reads it.
    */
   public boolean isEnd() {
-    return (isEaten() || isFallen() || isOutOfArrows() || isGameWon());
+    return outcome.isEnd();
   }
 
   /**
    * Scenario when either Hunter is eaten by the Wumpus.
    */
   public boolean isEaten() {
-    Cell current = gameMap[hunter.getCurrentPos().x][hunter.getCurrentPos().y];
-    if (current.isWumpus()) {
-      System.out.println(
-          "\nChomp, chomp, chomp, thanks for feeding the Wumpus!\n" + "Better luck next time\n");
-      return true;
-    }
-    return false;
+    return outcome == GameOutcome.EATEN;
   }
 
   /**
    * Scenario when either Hunter move to pit.
    */
   public boolean isFallen() {
-    Cell current = gameMap[hunter.getCurrentPos().x][hunter.getCurrentPos().y];
-    if (current.isPit()) {
-      System.out
-          .println("\nThe cave contains a bottomless pit!\n" 
-              + "You fall screaming into the void.\n");
-      return true;
-    }
-    return false;
+    return outcome == GameOutcome.FALLEN;
   }
 
   /**
    * Scenario when either Hunter used up the arrows.
    */
   public boolean isOutOfArrows() {
-    if (hunter.getNumberOfArrows() <= 0) {
-      System.out.println("\nYou used up all your arrows!\n" + "Game Over\n");
-      return true;
-    }
-    return false;
+    return outcome == GameOutcome.OUT_OF_ARROWS;
   }
 
   /**
    * Scenario when either Hunter Shoot at Wumpus and win the game.
    */
   public boolean isGameWon() {
-    Cell arrowPosition = gameMap[hunter.getArrowPos().x][hunter.getArrowPos().y];
-    if (arrowPosition.isWumpus()) {
-      System.out.println("\nHee hee hee, you got the wumpus!\n" 
-          + "Next time you won't be so lucky\n");
-      return true;
+    return outcome == GameOutcome.WON;
+  }
+
+  /**
+   * Get the outcome of this Game, decided at the end of the last turn.
+   * 
+   * @return the outcome
+   */
+  public GameOutcome getOutcome() {
+    return outcome;
+  }
+
+  /**
+   * Get the hunter whose turn decided the outcome, null while the game is in
+   * progress.
+   * 
+   * @return the hunter who won or lost the game
+   */
+  public Hunter getOutcomeHunter() {
+    return outcomeHunter;
+  }
+
+  /**
+   * Decide the outcome for the hunter who just acted, unless the game is
+   * already over, and log it once when the game ends.
+   */
+  private void updateOutcome(Hunter actingHunter) {
+    if (outcome.isEnd()) {
+      return;
+    }
+    int current = getCell(actingHunter.getCurrentPos());
+    if (hasFlag(current, Cell.WUMPUS)) {
+      outcome = GameOutcome.EATEN;
+    } else if (hasFlag(current, Cell.PIT)) {
+      outcome = GameOutcome.FALLEN;
+    } else if (hasFlag(getCell(actingHunter.getArrowPos()), Cell.WUMPUS)) {
+      outcome = GameOutcome.WON;
+    } else if (actingHunter.getNumberOfArrows() <= 0) {
+      outcome = GameOutcome.OUT_OF_ARROWS;
+    } else {
+      return;
+    }
+    outcomeHunter = actingHunter;
+    events.add(GameEvent.GAME_OVER, outcome.ordinal(), 0);
+    if (isLogging) {
+      System.out.println(outcome.getMessage());
     }
-    return false;
   }
 
   /**
@@ -202,107 +393,555 @@ public class Game extends Observable implements IController {
    */
   @Override
   public void update(String currentCommand) {
+    GameChange change = GameChange.PROMPTED;
     switch (currentState) {
       case GET_INPUT_ACTION:
         if (currentCommand.equals(MOVE_COMMAND)) {
-          output.append("Where to?");
+          events.add(GameEvent.PROMPT_MOVE_TO, 0, 0);
           currentState = GET_INPUT_MOVE_TO;
         } else if (currentCommand.equals(SHOOT_COMMAND)) {
-          output.append("No. of caves (1-5)?");
+          events.add(GameEvent.PROMPT_NUM_CAVES, 0, 0);
           currentState = GET_INPUT_NUM_CAVES;
         } else {
-          output.append("invalid command for Shoot or Move, input S or M");
+          events.add(GameEvent.INVALID_ACTION, 0, 0);
+          change = GameChange.REJECTED;
           showCurrentCave();
           askShootOrMove();
         }
         break;
       case GET_INPUT_MOVE_TO:
-        if (!isValidNextIndex(currentCommand)) {
-          output.append("Not valid cave index move to");
-          output.append("\nWhere to?");
+        int moveToCave = parseCaveId(currentCommand);
+        if (moveToCave == CaveGraph.NONE || !isReachable(moveToCave)) {
+          events.add(GameEvent.INVALID_MOVE_TO, 0, 0);
+          events.add(GameEvent.PROMPT_MOVE_TO, 0, 0);
+          change = GameChange.REJECTED;
           break;
         }
-        int moveToHunterX = (Integer.valueOf(currentCommand) - 1) / columns;
-        int moveToHunterY = (Integer.valueOf(currentCommand) - 1) % columns;
-        hunter.setCurrentPos(new Point(moveToHunterX, moveToHunterY));
-        Cell currentCave = gameMap[hunter.getCurrentPos().x][hunter.getCurrentPos().y];
-        currentCave.setVisited(true);
-        if (hunter.equals(hunterOne) && isTwoPlayers) {
-          hunter = hunterTwo;
-          output.append("\n\n** Switch to Player 2 **\n");
-          showCurrentCave();
-          checkBats();
-        } else {
-          hunter = hunterOne;
-          showCurrentCave();
-          checkBats();
-        }
-        askShootOrMove();
-        currentState = GET_INPUT_ACTION;
+        moveHunter(moveToCave);
+        change = GameChange.MOVED;
         break;
   
       case GET_INPUT_NUM_CAVES:
         if (!isValidNumCavesPass(currentCommand)) {
-          output.append("Not valid num of caves pass");
-          output.append("\nNo. of caves (1-5)?");
+          events.add(GameEvent.INVALID_NUM_CAVES, 0, 0);
+          events.add(GameEvent.PROMPT_NUM_CAVES, 0, 0);
+          change = GameChange.REJECTED;
           break;
         }
-        numCavePass = Integer.valueOf(currentCommand);
-        output.append("Toward cave?");
+        events.add(GameEvent.PROMPT_SHOOT_TO, 0, 0);
         currentState = GET_INPUT_SHOOT_TO;
         break;
   
       case GET_INPUT_SHOOT_TO:
-        if (!isValidNextIndex(currentCommand)) {
-          output.append("Not valid cave index shoot towards");
-          output.append("\nToward cave?");
+        int shootToCave = parseCaveId(currentCommand);
+        if (shootToCave == CaveGraph.NONE || !isReachable(shootToCave)) {
+          events.add(GameEvent.INVALID_SHOOT_TO, 0, 0);
+          events.add(GameEvent.PROMPT_SHOOT_TO, 0, 0);
+          change = GameChange.REJECTED;
           break;
         }
-        hunter.setNumberOfArrows(hunter.getNumberOfArrows() - 1);
-        int shootToArrowX = (Integer.valueOf(currentCommand) - 1) / columns;
-        int shootToArrowY = (Integer.valueOf(currentCommand) - 1) % columns;
-        if (numCavePass == 1) {
-          hunter.setArrowPos(new Point(shootToArrowX, shootToArrowY));
-        } else {
-          // shootWumpus(numCavePass);
-          // output.append("\nHunter are at: " + hunter.toString());
-          // output.append("\nNothing Happened ");
-        }
-        // when game is not end, arrow not hit target
-        output.append(
-            "\nMissed." + "\nYour has " + hunter.getNumberOfArrows() + " more arrows to Shoot\n");
-        currentState = GET_INPUT_ACTION;
-        if (hunter.equals(hunterOne) && isTwoPlayers) {
-          hunter = hunterTwo;
-          output.append("\n\n** Switch to Player 2 **\n");
-        } else {
-          hunter = hunterOne;
-        }
-        showCurrentCave();
-        checkBats();
-        askShootOrMove();
+        shootArrow(shootToCave, numCavePass);
+        change = GameChange.SHOT;
         break;
       default:
-        output.append("Looking for the input");
+        events.add(GameEvent.INVALID_STATE, 0, 0);
+    }
+    notifyChange(change);
+  }
+
+  /**
+   * Move the hunter out of the current cell in a direction, to the cave at the
+   * end of the tunnel if there is one. A whole turn without parsing or
+   * allocation: the events are replaced with the events of this turn.
+   * 
+   * @param direction CaveGraph.NORTH, EAST, SOUTH or WEST
+   * @return true if the hunter moved, false if a wall stands in that direction
+   */
+  public boolean move(int direction) {
+    int targetCave = getTargetCave(direction);
+    if (targetCave == CaveGraph.NONE) {
+      return false;
+    }
+    markTunnelVisited(direction);
+    events.clear();
+    moveHunter(targetCave);
+    notifyChange(GameChange.MOVED);
+    return true;
+  }
+
+  /**
+   * Move the hunter to a cave the current cell leads to. A whole turn without
+   * parsing or allocation: the events are replaced with the events of this turn.
+   * 
+   * @param caveId the dense cave id of CaveGraph
+   * @return true if the hunter moved, false if the cave cannot be reached
+   */
+  public boolean moveTo(int caveId) {
+    if (caveId < 0 || caveId >= caveGraph.getNumOfCaves() || !isReachable(caveId)) {
+      return false;
+    }
+    events.clear();
+    moveHunter(caveId);
+    notifyChange(GameChange.MOVED);
+    return true;
+  }
+
+  /**
+   * Shoot an arrow towards a cave the current cell leads to. A whole turn
+   * without parsing or allocation: the events are replaced with the events of
+   * this turn.
+   * 
+   * @param caveId   the dense cave id the arrow flies to first
+   * @param distance the number of caves the arrow passes (1-5)
+   * @return true if the arrow was shot, false if the cave cannot be reached or
+   *         the distance is invalid
+   */
+  public boolean shoot(int caveId, int distance) {
+    if (distance < 1 || distance > 5 || caveId < 0 || caveId >= caveGraph.getNumOfCaves()
+        || !isReachable(caveId)) {
+      return false;
+    }
+    events.clear();
+    numCavePass = distance;
+    shootArrow(caveId, distance);
+    notifyChange(GameChange.SHOT);
+    return true;
+  }
+
+  /**
+   * Move the hunter to a reachable cave, and pass the turn. Superbats and the
+   * outcome are checked for the hunter who moved.
+   */
+  private void moveHunter(int caveId) {
+    int cell = caveGraph.getCaveCell(caveId);
+    recordUndo();
+    Hunter actingHunter = hunter;
+    setHunterPos(hunter, cell);
+    visit(cell);
+    events.add(GameEvent.MOVED, cell, 0);
+    showCurrentCave();
+    checkBats();
+    updateOutcome(actingHunter);
+    if (isTwoPlayers) {
+      switchHunter();
+      showCurrentCave();
+    }
+    askShootOrMove();
+    currentState = GET_INPUT_ACTION;
+  }
+
+  /**
+   * Shoot an arrow through the given number of caves towards a reachable cave,
+   * and pass the turn. The outcome is checked for the hunter who shot.
+   */
+  private void shootArrow(int caveId, int distance) {
+    recordUndo();
+    Hunter actingHunter = hunter;
+    setArrows(hunter, hunter.getNumberOfArrows() - 1);
+    int stopCell = shootWumpus(caveId, distance);
+    setArrowPos(hunter, stopCell);
+    // when game is not end, arrow not hit target
+    events.add(GameEvent.MISSED, hunter.getNumberOfArrows(), stopCell);
+    currentState = GET_INPUT_ACTION;
+    updateOutcome(actingHunter);
+    if (outcome != GameOutcome.WON) {
+      getBeliefState().observeMiss(caveGraph.getCaveId(stopCell));
+    }
+    if (isTwoPlayers) {
+      switchHunter();
+    }
+    showCurrentCave();
+    checkBats();
+    askShootOrMove();
+  }
+
+  /**
+   * Pass the turn to the other hunter in 2 player mode.
+   */
+  private void switchHunter() {
+    stateHash ^= zobrist.get(HASH_TURN, 0);
+    if (hunter == hunterOne) {
+      hunter = hunterTwo;
+      events.add(GameEvent.SWITCHED_PLAYER, 0, 0);
+    } else {
+      hunter = hunterOne;
+    }
+  }
+
+  /**
+   * Move the hunter out of the current cell in a direction as one action of
+   * the GUI: the Move prompt, the direction lookup and the move are played at
+   * once, and the observers are notified once. A pending prompt is dropped, and
+   * a wall rejects the action without ending the turn.
+   * 
+   * @param direction CaveGraph.NORTH, EAST, SOUTH or WEST
+   * @return MOVED, or REJECTED if a wall stands in that direction
+   */
+  public GameChange moveAction(int direction) {
+    events.clear();
+    currentState = GET_INPUT_ACTION;
+    int targetCave = getTargetCave(direction);
+    if (targetCave == CaveGraph.NONE) {
+      events.add(GameEvent.INVALID_MOVE_TO, 0, 0);
+      askShootOrMove();
+      notifyChange(GameChange.REJECTED);
+      return GameChange.REJECTED;
+    }
+    markTunnelVisited(direction);
+    moveHunter(targetCave);
+    notifyChange(GameChange.MOVED);
+    return GameChange.MOVED;
+  }
+
+  /**
+   * Shoot an arrow out of the current cell in a direction as one action of the
+   * GUI: the Shoot prompt, the number of caves, the direction lookup and the
+   * shot are played at once, and the observers are notified once. A pending
+   * prompt is dropped, and a wall rejects the action without using an arrow.
+   * 
+   * @param direction CaveGraph.NORTH, EAST, SOUTH or WEST
+   * @param distance  the number of caves the arrow passes (1-5)
+   * @return SHOT, or REJECTED if a wall stands in that direction or the
+   *         distance is invalid
+   */
+  public GameChange shootAction(int direction, int distance) {
+    events.clear();
+    currentState = GET_INPUT_ACTION;
+    int targetCave = getTargetCave(direction);
+    if (targetCave == CaveGraph.NONE || distance < 1 || distance > 5) {
+      events.add(GameEvent.INVALID_SHOOT_TO, 0, 0);
+      askShootOrMove();
+      notifyChange(GameChange.REJECTED);
+      return GameChange.REJECTED;
+    }
+    numCavePass = distance;
+    shootArrow(targetCave, distance);
+    notifyChange(GameChange.SHOT);
+    return GameChange.SHOT;
+  }
+
+  /**
+   * Get the cave reached by leaving the current cell in a direction, NONE for a
+   * wall or an unknown direction.
+   */
+  private int getTargetCave(int direction) {
+    if (direction < CaveGraph.NORTH || direction > CaveGraph.WEST) {
+      return CaveGraph.NONE;
+    }
+    int currentCell = hunter.getCurrentPos().x * columns + hunter.getCurrentPos().y;
+    return caveGraph.getTargetOfCell(currentCell, direction);
+  }
+
+  /**
+   * Mark the first tunnel cell in a direction out of the current cave as
+   * visited.
+   */
+  private void markTunnelVisited(int direction) {
+    int currentCell = hunter.getCurrentPos().x * columns + hunter.getCurrentPos().y;
+    int currentCave = caveGraph.getCaveId(currentCell);
+    if (currentCave != CaveGraph.NONE && caveGraph.getTunnelLength(currentCave, direction) > 0) {
+      int tunnelCell = caveGraph.getTunnelCell(currentCave, direction, 0);
+      visit(tunnelCell);
+    }
+  }
+
+  /**
+   * Mark a cell as visited, and remember it if it was not, so that snapshots
+   * can tell which cells were visited since.
+   */
+  private void visit(int cell) {
+    if (!hasFlag(cell, Cell.VISITED)) {
+      cellFlags[cell] |= Cell.VISITED;
+      visits = new GameSnapshot.Visit(cell, visits);
+      stateHash ^= zobrist.get(HASH_VISITED, cell);
+    }
+  }
+
+  /**
+   * Mark every cell as visited to show the whole map, and remember the cells
+   * which were not, so that restoring a snapshot hides only those.
+   */
+  public void revealGameMap() {
+    if (revealedCells == null || revealedCells.length < cellFlags.length) {
+      revealedCells = new int[cellFlags.length];
+    }
+    for (int cell = 0; cell < cellFlags.length; cell++) {
+      if (!hasFlag(cell, Cell.VISITED)) {
+        cellFlags[cell] |= Cell.VISITED;
+        revealedCells[numOfRevealedCells++] = cell;
+      }
+    }
+  }
+
+  /**
+   * Take a snapshot of the mutable state of this game, O(1). The maze and
+   * its hazards are shared, so a snapshot can only be restored into this game
+   * until it starts again.
+   * 
+   * @return the snapshot
+   */
+  public GameSnapshot snapshot() {
+    return snapshot(currentState);
+  }
+
+  private GameSnapshot snapshot(String state) {
+    return new GameSnapshot(maze, hunterOne, isTwoPlayers ? hunterTwo : null,
+        hunter == hunterTwo, state, numCavePass, outcome,
+        outcomeHunter == null ? 0 : outcomeHunter == hunterOne ? 1 : 2, batRandom.getState(),
+        visits, stateHash);
+  }
+
+  /**
+   * Restore a snapshot of this game, in O(cells visited since the common
+   * history of the snapshot and the current state, and cells revealed by
+   * revealGameMap since). The current cave and the
+   * pending prompt are recorded again. What the hunters sensed stays in their
+   * beliefs.
+   * 
+   * @param snapshot a snapshot taken since this game started
+   * @throws IllegalArgumentException if the snapshot is of another maze
+   */
+  public void restore(GameSnapshot snapshot) throws IllegalArgumentException {
+    if (snapshot.maze != maze) {
+      throw new IllegalArgumentException("invalid snapshot! Taken from another game");
+    }
+    // hide the cells revealed at the end of the game, the visits are kept
+    for (int i = 0; i < numOfRevealedCells; i++) {
+      cellFlags[revealedCells[i]] &= ~Cell.VISITED;
     }
-    setChanged();
-    notifyObservers();
+    numOfRevealedCells = 0;
+    hunterOne.setCurrentPos(snapshot.oneRow, snapshot.oneColumn);
+    hunterOne.setArrowPos(snapshot.oneArrowRow, snapshot.oneArrowColumn);
+    hunterOne.setNumberOfArrows(snapshot.oneArrows);
+    if (isTwoPlayers) {
+      hunterTwo.setCurrentPos(snapshot.twoRow, snapshot.twoColumn);
+      hunterTwo.setArrowPos(snapshot.twoArrowRow, snapshot.twoArrowColumn);
+      hunterTwo.setNumberOfArrows(snapshot.twoArrows);
+    }
+    hunter = snapshot.isHunterTwo ? hunterTwo : hunterOne;
+    currentState = snapshot.currentState;
+    numCavePass = snapshot.numCavePass;
+    outcome = snapshot.outcome;
+    outcomeHunter = snapshot.outcomeHunter == 0 ? null
+        : snapshot.outcomeHunter == 1 ? hunterOne : hunterTwo;
+    batRandom.setState(snapshot.batState);
+    restoreVisits(snapshot.visits);
+    stateHash = snapshot.stateHash;
+    events.clear();
+    showCurrentCave();
+    if (currentState.equals(GET_INPUT_MOVE_TO)) {
+      events.add(GameEvent.PROMPT_MOVE_TO, 0, 0);
+    } else if (currentState.equals(GET_INPUT_NUM_CAVES)) {
+      events.add(GameEvent.PROMPT_NUM_CAVES, 0, 0);
+    } else if (currentState.equals(GET_INPUT_SHOOT_TO)) {
+      events.add(GameEvent.PROMPT_SHOOT_TO, 0, 0);
+    } else {
+      askShootOrMove();
+    }
+    notifyChange(GameChange.RESTORED);
   }
 
   /**
-   * Error Handler of Controller for MoveTo or ShootTo index. Check the if input
-   * of Next Cave is valid.
+   * Unmark the cells visited after the common history of the current visits
+   * and the target, then mark the cells visited on the side of the target. A
+   * cell may be visited on both sides, so all unmarks come first.
    */
-  private boolean isValidNextIndex(final String input) {
+  private void restoreVisits(GameSnapshot.Visit target) {
+    GameSnapshot.Visit common = visits;
+    GameSnapshot.Visit other = target;
+    while (common != other) {
+      if (other == null || (common != null && common.depth >= other.depth)) {
+        common = common.previous;
+      } else {
+        other = other.previous;
+      }
+    }
+    for (GameSnapshot.Visit visit = visits; visit != common; visit = visit.previous) {
+      cellFlags[visit.cell] &= ~Cell.VISITED;
+    }
+    for (GameSnapshot.Visit visit = target; visit != common; visit = visit.previous) {
+      cellFlags[visit.cell] |= Cell.VISITED;
+    }
+    visits = target;
+  }
+
+  /**
+   * Move a hunter to a cell, and update the state hash.
+   */
+  private void setHunterPos(Hunter movingHunter, int cell) {
+    int feature = HASH_POSITION + getHunterIndex(movingHunter);
+    stateHash ^= zobrist.get(feature, getCell(movingHunter.getCurrentPos()))
+        ^ zobrist.get(feature, cell);
+    movingHunter.setCurrentPos(cell / columns, cell % columns);
+  }
+
+  /**
+   * Set the cell where the last arrow of a hunter stopped, and update the
+   * state hash.
+   */
+  private void setArrowPos(Hunter shootingHunter, int cell) {
+    int feature = HASH_ARROW_POSITION + getHunterIndex(shootingHunter);
+    stateHash ^= zobrist.get(feature, getCell(shootingHunter.getArrowPos()))
+        ^ zobrist.get(feature, cell);
+    shootingHunter.setArrowPos(cell / columns, cell % columns);
+  }
+
+  /**
+   * Set the number of arrows of a hunter, and update the state hash.
+   */
+  private void setArrows(Hunter shootingHunter, int numOfArrows) {
+    int feature = HASH_ARROWS + getHunterIndex(shootingHunter);
+    stateHash ^= zobrist.get(feature, shootingHunter.getNumberOfArrows())
+        ^ zobrist.get(feature, numOfArrows);
+    shootingHunter.setNumberOfArrows(numOfArrows);
+  }
+
+  private int getHunterIndex(Hunter someHunter) {
+    return someHunter == hunterOne ? 0 : 1;
+  }
+
+  private int getCell(Point position) {
+    return position.x * columns + position.y;
+  }
+
+  private boolean hasFlag(int cell, int mask) {
+    return (cellFlags[cell] & mask) != 0;
+  }
+
+  /**
+   * Compute the Zobrist hash of the state from scratch, in O(cells). It covers
+   * the positions, arrows and arrow positions of the hunters, the hunter to
+   * play, the cells visited and the hazards of every cave. The visited cells
+   * are taken from the visits of the game, not from the cells, as the view
+   * reveals the whole map when a game ends.
+   *
+   * @return the 64-bit hash, equal to getStateHash
+   */
+  public long computeStateHash() {
+    long hash = 0;
+    int numOfHunters = isTwoPlayers ? 2 : 1;
+    for (int i = 0; i < numOfHunters; i++) {
+      Hunter someHunter = i == 0 ? hunterOne : hunterTwo;
+      hash ^= zobrist.get(HASH_POSITION + i, getCell(someHunter.getCurrentPos()));
+      hash ^= zobrist.get(HASH_ARROW_POSITION + i, getCell(someHunter.getArrowPos()));
+      hash ^= zobrist.get(HASH_ARROWS + i, someHunter.getNumberOfArrows());
+    }
+    if (isTwoPlayers && hunter == hunterTwo) {
+      hash ^= zobrist.get(HASH_TURN, 0);
+    }
+    for (GameSnapshot.Visit visit = visits; visit != null; visit = visit.previous) {
+      hash ^= zobrist.get(HASH_VISITED, visit.cell);
+    }
+    for (int cave = 0; cave < caveGraph.getNumOfCaves(); cave++) {
+      int cell = caveGraph.getCaveCell(cave);
+      if (hasFlag(cell, Cell.PIT)) {
+        hash ^= zobrist.get(HASH_PIT, cell);
+      }
+      if (hasFlag(cell, Cell.BAT)) {
+        hash ^= zobrist.get(HASH_BAT, cell);
+      }
+      if (hasFlag(cell, Cell.WUMPUS)) {
+        hash ^= zobrist.get(HASH_WUMPUS, cell);
+      }
+    }
+    return hash;
+  }
+
+  /**
+   * Keep a snapshot of the start of the turn for undo, dropping the oldest
+   * beyond the undo depth.
+   */
+  private void recordUndo() {
+    if (undoDepth > 0) {
+      if (undoHistory.size() == undoDepth) {
+        undoHistory.removeFirst();
+      }
+      undoHistory.addLast(snapshot(GET_INPUT_ACTION));
+    }
+  }
+
+  /**
+   * Take back the last turn, the moves and shots kept for undo are taken
+   * back one by one.
+   * 
+   * @return true if a turn was taken back, false if none is kept
+   */
+  public boolean undo() {
+    if (undoHistory.isEmpty()) {
+      return false;
+    }
+    restore(undoHistory.removeLast());
+    return true;
+  }
+
+  /**
+   * Get the number of turns kept for undo.
+   * 
+   * @return the undoDepth
+   */
+  public int getUndoDepth() {
+    return undoDepth;
+  }
+
+  /**
+   * Set the number of turns kept for undo, 0 to keep none like headless games
+   * do.
+   * 
+   * @param undoDepth the undoDepth to set
+   * @throws IllegalArgumentException if the depth is negative
+   */
+  public void setUndoDepth(int undoDepth) throws IllegalArgumentException {
+    if (undoDepth < 0) {
+      throw new IllegalArgumentException("invalid undo depth! Cannot be negative");
+    }
+    this.undoDepth = undoDepth;
+    while (undoHistory.size() > undoDepth) {
+      undoHistory.removeFirst();
+    }
+  }
+
+  /**
+   * Tell the observers what changed, skipped when nobody observes so that
+   * headless games do not allocate.
+   */
+  private void notifyChange(GameChange change) {
+    if (countObservers() > 0) {
+      setChanged();
+      notifyObservers(change);
+    }
+  }
+
+  /**
+   * Get the dense cave id of a 1-based cell index command, NONE if the command
+   * is not a number, out of the map or a tunnel.
+   */
+  private int parseCaveId(final String input) {
     int nextCaveIndex;
     try {
-      nextCaveIndex = Integer.valueOf(input);
+      nextCaveIndex = Integer.parseInt(input);
     } catch (NumberFormatException e) {
-      return false;
+      return CaveGraph.NONE;
+    }
+    if (nextCaveIndex < 1 || nextCaveIndex > rows * columns) {
+      return CaveGraph.NONE;
     }
-    Cell currentCell = gameMap[hunter.getCurrentPos().x][hunter.getCurrentPos().y];
-    for (Cell leadToCave : currentCell.getLeadToCavesSet()) {
-      if (nextCaveIndex == leadToCave.getIndex()) {
+    return caveGraph.getCaveId(nextCaveIndex - 1);
+  }
+
+  /**
+   * Error Handler of Controller for MoveTo or ShootTo cave. Check if the
+   * current cell of the hunter leads to the cave.
+   */
+  private boolean isReachable(int nextCave) {
+    int currentCell = hunter.getCurrentPos().x * columns + hunter.getCurrentPos().y;
+    int currentCave = caveGraph.getCaveId(currentCell);
+    if (currentCave != CaveGraph.NONE) {
+      return caveGraph.isAdjacent(currentCave, nextCave);
+    }
+    // bats may drop the hunter in a tunnel
+    int count = caveGraph.getLeadToCavesOfCell(currentCell, leadToCaves);
+    for (int i = 0; i < count; i++) {
+      if (leadToCaves[i] == nextCave) {
         return true;
       }
     }
@@ -315,7 +954,7 @@ public class Game extends Observable implements IController {
    */
   private boolean isValidNumCavesPass(final String input) {
     try {
-      numCavePass = Integer.valueOf(input);
+      numCavePass = Integer.parseInt(input);
       return (numCavePass > 0 && numCavePass < 6);
     } catch (NumberFormatException e) {
       return false;
@@ -323,21 +962,54 @@ public class Game extends Observable implements IController {
   }
 
   /**
-   * Append output string as showing current position.
+   * Record the cave the current hunter is in, and what can be sensed there.
    */
   public void showCurrentCave() {
-    Cell currentCave = gameMap[hunter.getCurrentPos().x][hunter.getCurrentPos().y];
-    currentCave.setVisited(true);
+    int currentCell = getCell(hunter.getCurrentPos());
+    visit(currentCell);
     checkSmell();
-    output.append("\nYou are in " + currentCave);
-    output.append("\nTunnel Leads to: " + currentCave.getLeadToCavesSet());
+    int caveId = caveGraph.getCaveId(currentCell);
+    // a hunter who fell or was eaten senses nothing more
+    if (caveId != CaveGraph.NONE && !hasFlag(currentCell, Cell.PIT | Cell.WUMPUS)) {
+      getBeliefState().observe(caveId, cellFlags[currentCell] & Cell.SENSED);
+    }
+    events.add(GameEvent.ENTERED, currentCell, 0);
+  }
+
+  /**
+   * Append the caves a cell leads to in index order, so a seed always replays
+   * the same text.
+   */
+  private void appendLeadToCaves(int cell) {
+    int count = caveGraph.getLeadToCavesOfCell(cell, leadToCaves);
+    // dense cave ids follow the cell index order
+    for (int i = 1; i < count; i++) {
+      for (int j = i; j > 0 && leadToCaves[j - 1] > leadToCaves[j]; j--) {
+        int temp = leadToCaves[j];
+        leadToCaves[j] = leadToCaves[j - 1];
+        leadToCaves[j - 1] = temp;
+      }
+    }
+    transcript.append('[');
+    for (int i = 0; i < count; i++) {
+      transcript.append(i == 0 ? "" : ", ");
+      appendCell(true, caveGraph.getCaveCell(leadToCaves[i]) + 1);
+    }
+    transcript.append(']');
   }
 
   /**
-   * Append output string as ask for GET_INPUT_ACTION status.
+   * Append a cell the way Cell.toString() prints it, without building a String.
+   */
+  private void appendCell(boolean isCave, int index) {
+    transcript.append(isCave ? "Cave " : "Tunnel ").append(index);
+  }
+
+  /**
+   * Record the prompt of the GET_INPUT_ACTION status.
    */
   public void askShootOrMove() {
-    output.append("\nShoot or Move (S-M)?");
+    events.add(GameEvent.PROMPT_ACTION, 0, 0);
   }
 
   /**
@@ -345,13 +1017,15 @@ public class Game extends Observable implements IController {
    * object. Initialize two hunters if in 2P mode.
    */
   private void buildHunter() {
-    int startingPosX = (startingIdx - 1) / columns;
-    int startingPosY = (startingIdx - 1) % columns;
-    Point currentPos = new Point(startingPosX, startingPosY);
-    while (!gameMap[currentPos.x][currentPos.y].isCave()) {
-      System.out.println("Not a valid Cave, start at a random Cave position");
-      currentPos = new Point(random.nextInt(rows), random.nextInt(columns));
+    int startingCave = caveGraph.getCaveId(startingIdx - 1);
+    if (startingCave == CaveGraph.NONE) {
+      if (isLogging) {
+        System.out.println("Not a valid Cave, start at a random Cave position");
+      }
+      startingCave = caveSampler.sample(hazardRandom);
     }
+    caveSampler.exclude(startingCave);
+    Point currentPos = getCavePosition(startingCave);
     hunterOne = new Hunter(currentPos);
     hunterOne.setNumberOfArrows(startingNumArrow);
     if (isTwoPlayers) {
@@ -362,62 +1036,62 @@ public class Game extends Observable implements IController {
   }
 
   /**
-   * Take input of number of pits and set the pit locations randomly, also update
-   * neighbour caves as draft.
+   * Take input of number of pits and set the pit locations randomly in distinct
+   * caves, also update neighbour caves as draft.
    */
   private void buildPits(int numOfPits) {
-    for (int i = 0; i < numOfPits; i++) {
-      Point pitPosition = new Point(random.nextInt(rows), random.nextInt(columns));
-      while (!gameMap[pitPosition.x][pitPosition.y].isCave()) {
-        pitPosition = new Point(random.nextInt(rows), random.nextInt(columns));
-      }
-      gameMap[pitPosition.x][pitPosition.y].setPit(true);
-      placeDraft(pitPosition);
+    for (int pitCave : caveSampler.take(numOfPits, hazardRandom)) {
+      int pitCell = caveGraph.getCaveCell(pitCave);
+      cellFlags[pitCell] |= Cell.PIT;
+      placeDraft(pitCell);
     }
   }
 
   /**
-   * Take input of number of bats and set the bat locations randomly.
+   * Take input of number of bats and set the bat locations randomly in distinct
+   * caves without pits.
    */
   private void buildBats(int numOfBats) {
-    for (int i = 0; i < numOfBats; i++) {
-      Point batPosition = new Point(random.nextInt(rows), random.nextInt(columns));
-      while (!gameMap[batPosition.x][batPosition.y].isCave()) {
-        batPosition = new Point(random.nextInt(rows), random.nextInt(columns));
-      }
-      gameMap[batPosition.x][batPosition.y].setBat(true);
+    for (int batCave : caveSampler.take(numOfBats, hazardRandom)) {
+      cellFlags[caveGraph.getCaveCell(batCave)] |= Cell.BAT;
     }
   }
 
   /**
-   * Set the wumpus locations randomly and update neighbour caves as blood.
+   * Set the wumpus location randomly in a cave without other hazards and update
+   * neighbour caves as blood.
    */
   private void buildWumpus() {
-    Point wumpusLocation = new Point(random.nextInt(rows), random.nextInt(columns));
-    while (!gameMap[wumpusLocation.x][wumpusLocation.y].isCave()) {
-      wumpusLocation = new Point(random.nextInt(rows), random.nextInt(columns));
-    }
-    gameMap[wumpusLocation.x][wumpusLocation.y].setWumpus(true);
-    placeBoold(wumpusLocation);
+    int wumpusCell = caveGraph.getCaveCell(caveSampler.take(hazardRandom));
+    cellFlags[wumpusCell] |= Cell.WUMPUS;
+    placeBoold(wumpusCell);
+  }
+
+  /**
+   * Get the position of a dense cave id.
+   */
+  private Point getCavePosition(int caveId) {
+    int cell = caveGraph.getCaveCell(caveId);
+    return new Point(cell / columns, cell % columns);
   }
 
   /**
-   * Set model.Cell object as blood.
+   * Set the caves next to the Wumpus as blood.
    */
-  private void placeBoold(Point wumpusLocation) {
-    Set<Cell> wupusLeadToCavesSet = gameMap[wumpusLocation.x][wumpusLocation.y].getLeadToCavesSet();
-    for (Cell bloodCaves : wupusLeadToCavesSet) {
-      bloodCaves.setBlood(true);
+  private void placeBoold(int wumpusCell) {
+    int count = caveGraph.getLeadToCavesOfCell(wumpusCell, leadToCaves);
+    for (int i = 0; i < count; i++) {
+      cellFlags[caveGraph.getCaveCell(leadToCaves[i])] |= Cell.BLOOD;
     }
   }
 
   /**
-   * Set model.Cell object as draft.
+   * Set the caves next to a pit as draft.
    */
-  private void placeDraft(Point pitLocation) {
-    Set<Cell> pitLeadToCavesSet = gameMap[pitLocation.x][pitLocation.y].getLeadToCavesSet();
-    for (Cell draftCaves : pitLeadToCavesSet) {
-      draftCaves.setDraft(true);
+  private void placeDraft(int pitCell) {
+    int count = caveGraph.getLeadToCavesOfCell(pitCell, leadToCaves);
+    for (int i = 0; i < count; i++) {
+      cellFlags[caveGraph.getCaveCell(leadToCaves[i])] |= Cell.DRAFT;
     }
   }
 
@@ -426,74 +1100,91 @@ public class Game extends Observable implements IController {
    * put another cave.
    */
   public void checkBats() {
-    Cell current = gameMap[hunter.getCurrentPos().x][hunter.getCurrentPos().y];
-    if (current.isBat()) {
+    int currentCell = getCell(hunter.getCurrentPos());
+    int currentCave = caveGraph.getCaveId(currentCell);
+    boolean isBat = hasFlag(currentCell, Cell.BAT);
+    if (currentCave != CaveGraph.NONE) {
+      getBeliefState().observeBat(currentCave, isBat);
+    }
+    if (isBat) {
       // randomly choose 0 or 1
-      int ifGrab = random.nextInt(2);
+      int ifGrab = batRandom.nextInt(2);
       if (ifGrab == 0) {
-        output.append("\nWhoa -- you successfully duck superbats that try to grab you");
+        events.add(GameEvent.DUCKED_BATS, 0, 0);
       } else {
-        int randomPosX = random.nextInt(rows);
-        int randomPosY = random.nextInt(columns);
-        // reroll if in same bat cave or in tunnel
-        while ((randomPosX == current.getX()) && randomPosY == current.getY()
-            && !gameMap[randomPosX][randomPosY].isCave()) {
-          randomPosX = random.nextInt(rows);
-          randomPosY = random.nextInt(columns);
+        // any other cave, drawn uniformly from batRandom alone so that
+        // snapshots replay the drop
+        int numOfCaves = caveGraph.getNumOfCaves();
+        if (numOfCaves > 1) {
+          int drop = batRandom.nextInt(numOfCaves - 1);
+          if (drop >= currentCave) {
+            drop++;
+          }
+          setHunterPos(hunter, caveGraph.getCaveCell(drop));
         }
-        output.append("\nSnatch -- you are grabbed by superbats and ...");
-        Point randomPos = new Point(randomPosX, randomPosY);
-        hunter.setCurrentPos(randomPos);
+        events.add(GameEvent.SNATCHED,
+            hunter.getCurrentPos().x * columns + hunter.getCurrentPos().y, 0);
+        updateOutcome(hunter);
       }
       showCurrentCave();
     }
   }
 
   /**
-   * Check if blood or draft locates at current cave, append output if smells
-   * anything.
+   * Check if blood or draft locates at current cave, record what the hunter
+   * smells or feels.
    */
   private void checkSmell() {
-    Cell current = gameMap[hunter.getCurrentPos().x][hunter.getCurrentPos().y];
-    if (current.isBlood() && current.isDraft()) {
-      output.append("\nTough choice! You smell a Wumpus and" + " you feel a cold wind blowing");
-    } else if (current.isBlood()) {
-      output.append("\nYou smell a Wumpus!");
-    } else if (current.isDraft()) {
-      output.append("\nYou feel a cold wind blowing!");
+    int sensedFlags = cellFlags[getCell(hunter.getCurrentPos())] & Cell.SENSED;
+    if (sensedFlags != 0) {
+      events.add(GameEvent.SENSED, sensedFlags, 0);
     }
   }
 
   /**
-   * Shoot Wumpus in given distance, return true if arrowPos reaches Wumpus cave.
+   * Shoot the arrow through the given number of caves, starting towards the
+   * target cave, and return the cell where the arrow stops.
    */
-  private boolean shootWumpus(int numCavePass) {
-    hunter.setNumberOfArrows(hunter.getNumberOfArrows() - 1);
-    Set<Cell> arrowSet = new HashSet<>();
-    for (int numPass = 1; numPass < numCavePass; numPass++) {
-      arrowSet = new HashSet<>();
-      Cell currentArrow = gameMap[hunter.getArrowPos().x][hunter.getArrowPos().y];
-      for (Cell leadsToCaves : currentArrow.getLeadToCavesSet()) {
-        hunter.getArrowPos().x = leadsToCaves.getX();
-        hunter.getArrowPos().y = leadsToCaves.getY();
-        arrowSet.add(gameMap[hunter.getArrowPos().x][hunter.getArrowPos().y]);
-      }
+  private int shootWumpus(int targetCave, int numCavePass) {
+    if (numCavePass == 1) {
+      return caveGraph.getCaveCell(targetCave);
     }
-    for (Cell arrowDesinations : arrowSet) {
-      if (arrowDesinations.isWumpus()) {
-        return true;
-      }
+    int currentCell = hunter.getCurrentPos().x * columns + hunter.getCurrentPos().y;
+    int currentCave = caveGraph.getCaveId(currentCell);
+    if (currentCave == CaveGraph.NONE) {
+      return caveGraph.getCaveCell(targetCave);
     }
-    return false;
+    int direction = caveGraph.getDirectionTo(currentCave, targetCave);
+    return caveGraph.getCaveCell(caveGraph.getArrowTarget(currentCave, direction, numCavePass));
   }
 
   /**
-   * Getter the gameMap of this Game.
+   * Getter the gameMap of this Game. A CompactMaze builds its Cells on the
+   * first call, the game itself only reads getCellFlags.
    * 
    * @return the gameMap 2-D array
    */
   public Cell[][] getGameMap() {
-    return gameMap;
+    return maze.getGameMap();
+  }
+
+  /**
+   * Get the packed status flags of all cells in row-major order, see Cell.
+   * 
+   * @return the flag array of the maze
+   */
+  public byte[] getCellFlags() {
+    return cellFlags;
+  }
+
+  /**
+   * Get what the current hunter can infer about the hazards from what it
+   * sensed so far.
+   * 
+   * @return the beliefs of the current hunter
+   */
+  public BeliefState getBeliefState() {
+    return hunter == hunterTwo ? beliefTwo : beliefOne;
   }
 
   /**
@@ -507,158 +1198,49 @@ public class Game extends Observable implements IController {
 
   /**
    * Takes MoveTo Direction Command and generate inStream StringBuilder to the
-   * controller. For example if the command is EAST, this method will first check
-   * if the eastCell in a cave, if it is a tunnel, then find the next cave index
-   * through the tunnel from linkedCaveNotLinkedCellIndex, and return this index
-   * as the available moveToEastIdx to EAST.
-   */
-  public Integer moveToIndex(String moveToDirection) {
-    Cell currentCell = this.getGameMap()[this.getHunter().getCurrentPos().x][this.getHunter()
-        .getCurrentPos().y];
-    Set<Integer> linkedCaveIndexs = currentCell.getLeadToCavesSet().stream().map(c -> c.getIndex())
-        .collect(Collectors.toSet());
-
-    linkedCaveIndexs.add(currentCell.getIndex());
-
-    Integer moveToEastIdx = currentCell.getY() < columns - 1 ? currentCell.getIndex() + 1
-        : currentCell.getIndex();
-    Integer moveToWestIdx = currentCell.getY() > 0 ? currentCell.getIndex() - 1
-        : currentCell.getIndex();
-    Integer moveToNorthIdx = currentCell.getX() > 0 ? currentCell.getIndex() - columns
-        : currentCell.getIndex();
-    Integer moveToSouthIdx = currentCell.getX() < rows - 1 ? currentCell.getIndex() + columns
-        : currentCell.getIndex();
-
-    Set<Integer> linkedCellIndexs = new HashSet<>();
-    linkedCellIndexs.add(moveToEastIdx);
-    linkedCellIndexs.add(moveToWestIdx);
-    linkedCellIndexs.add(moveToNorthIdx);
-    linkedCellIndexs.add(moveToSouthIdx);
-
-    Integer linkedCaveNotLinkedCellIndex = currentCell.getIndex();
-
-    for (Integer integer : linkedCaveIndexs) {
-      if (!linkedCellIndexs.contains(integer)) {
-        linkedCaveNotLinkedCellIndex = integer;
-        break;
-      }
-    }
-
-    if (moveToDirection.equals("EAST")) {
-      if (linkedCaveIndexs.contains(moveToEastIdx)) {
-        return moveToEastIdx;
-      } else {
-        Cell eastCell = this.getGameMap()[currentCell.getX()][currentCell.getY() + 1];
-        if (!eastCell.isCave()) {
-          eastCell.setVisited(true);
-        }
-        return linkedCaveNotLinkedCellIndex;
-      }
-
-    }
-
-    else if (moveToDirection.equals("WEST")) {
-      if (linkedCaveIndexs.contains(moveToWestIdx)) {
-        return moveToWestIdx;
-      } else {
-        Cell westCell = this.getGameMap()[currentCell.getX()][currentCell.getY() - 1];
-        if (!westCell.isCave()) {
-          westCell.setVisited(true);
-        }
-        return linkedCaveNotLinkedCellIndex;
-      }
-    }
-
-    else if (moveToDirection.equals("NORTH")) {
-      if (linkedCaveIndexs.contains(moveToNorthIdx)) {
-        return moveToNorthIdx;
-      } else {
-        Cell northCell = this.getGameMap()[currentCell.getX() - 1][currentCell.getY()];
-        if (!northCell.isCave()) {
-          northCell.setVisited(true);
-        }
-        return linkedCaveNotLinkedCellIndex;
-      }
-    }
-
-    else if (moveToDirection.equals("SOUTH")) {
-      if (linkedCaveIndexs.contains(moveToSouthIdx)) {
-        return moveToSouthIdx;
-      } else {
-        Cell southCell = this.getGameMap()[currentCell.getX() + 1][currentCell.getY()];
-        if (!southCell.isCave()) {
-          southCell.setVisited(true);
-        }
-        return linkedCaveNotLinkedCellIndex;
-      }
-    } else {
-      return currentCell.getIndex();
+   * controller. For example if the command is EAST, this method looks up the
+   * cave reached by leaving the current cell to the east, through the tunnel if
+   * there is one, marks the first tunnel cell as visited and returns the index of
+   * that cave. The current index is returned if a wall stands to the east.
+   */
+  public int moveToIndex(String moveToDirection) {
+    int currentCell = hunter.getCurrentPos().x * columns + hunter.getCurrentPos().y;
+    int direction = getDirection(moveToDirection);
+    int targetCave = getTargetCave(direction);
+    if (targetCave == CaveGraph.NONE) {
+      return currentCell + 1;
     }
+    markTunnelVisited(direction);
+    return caveGraph.getCaveCell(targetCave) + 1;
   }
 
   /**
    * Takes ShootTo Direction Command and generate inStream StringBuilder to the
-   * controller. For example if the command is SOUTH, this method will first reset
-   * the location of Arrow with same location of Hunter, then update the direction
-   * to the next cave of shootToEastIdx index in the maze.
-   */
-  public Integer shootToIndex(String shooToDirection) {
-    Cell currentArrow = this.getGameMap()[this.getHunter().getCurrentPos().x][this.getHunter()
-        .getCurrentPos().y];
-    Set<Integer> linkedCaveIndexs = currentArrow.getLeadToCavesSet().stream().map(c -> c.getIndex())
-        .collect(Collectors.toSet());
-
-    linkedCaveIndexs.add(currentArrow.getIndex());
-
-    Integer shootToEastIdx = currentArrow.getY() < columns - 1 ? currentArrow.getIndex() + 1
-        : currentArrow.getIndex();
-    Integer shootToWestIdx = currentArrow.getY() > 0 ? currentArrow.getIndex() - 1
-        : currentArrow.getIndex();
-    Integer shootToNorthIdx = currentArrow.getX() > 0 ? currentArrow.getIndex() - columns
-        : currentArrow.getIndex();
-    Integer shootToSouthIdx = currentArrow.getX() < rows - 1 ? currentArrow.getIndex() + columns
-        : currentArrow.getIndex();
-
-    Set<Integer> linkedCellIndexs = new HashSet<>();
-    linkedCellIndexs.add(shootToEastIdx);
-    linkedCellIndexs.add(shootToWestIdx);
-    linkedCellIndexs.add(shootToNorthIdx);
-    linkedCellIndexs.add(shootToSouthIdx);
-    Integer linkedCaveNotLinkedCellIndex = currentArrow.getIndex();
-
-    for (Integer integer : linkedCaveIndexs) {
-      if (!linkedCellIndexs.contains(integer)) {
-        linkedCaveNotLinkedCellIndex = integer;
-        break;
-      }
-    }
-    if (shooToDirection.equals("EAST")) {
-      if (linkedCaveIndexs.contains(shootToEastIdx)) {
-        return shootToEastIdx;
-      } else {
-        return linkedCaveNotLinkedCellIndex;
-      }
-    }
-    else if (shooToDirection.equals("WEST")) {
-      if (linkedCaveIndexs.contains(shootToWestIdx)) {
-        return shootToWestIdx;
-      } else {
-        return linkedCaveNotLinkedCellIndex;
-      }
-    } else if (shooToDirection.equals("NORTH")) {
-      if (linkedCaveIndexs.contains(shootToNorthIdx)) {
-        return shootToNorthIdx;
-      } else {
-        return linkedCaveNotLinkedCellIndex;
-      }
-    } else if (shooToDirection.equals("SOUTH")) {
-      if (linkedCaveIndexs.contains(shootToSouthIdx)) {
-        return shootToSouthIdx;
-      } else {
-        return linkedCaveNotLinkedCellIndex;
-      }
-    } else {
-      return currentArrow.getIndex();
+   * controller. For example if the command is SOUTH, this method looks up the
+   * cave reached by leaving the current cell to the south and returns its index,
+   * or the current index if a wall stands to the south.
+   */
+  public int shootToIndex(String shooToDirection) {
+    int currentCell = hunter.getCurrentPos().x * columns + hunter.getCurrentPos().y;
+    int targetCave = getTargetCave(getDirection(shooToDirection));
+    return targetCave == CaveGraph.NONE ? currentCell + 1 : caveGraph.getCaveCell(targetCave) + 1;
+  }
+
+  /**
+   * Get the CaveGraph direction of a direction command, NONE if unknown.
+   */
+  private static int getDirection(String direction) {
+    switch (direction) {
+      case "NORTH":
+        return CaveGraph.NORTH;
+      case "EAST":
+        return CaveGraph.EAST;
+      case "SOUTH":
+        return CaveGraph.SOUTH;
+      case "WEST":
+        return CaveGraph.WEST;
+      default:
+        return CaveGraph.NONE;
     }
   }
 
@@ -752,6 +1334,37 @@ public class Game extends Observable implements IController {
     this.numOfBats = numOfBats;
   }
 
+  /**
+   * Getter for startingNumArrow.
+   * 
+   * @return the startingNumArrow number of arrows each hunter starts with
+   */
+  public int getStartingNumArrow() {
+    return startingNumArrow;
+  }
+
+  /**
+   * Setter for startingNumArrow, takes effect when the game starts.
+   * 
+   * @param startingNumArrow the startingNumArrow to set
+   * @throws IllegalArgumentException if the number of arrows is negative
+   */
+  public void setStartingNumArrow(int startingNumArrow) throws IllegalArgumentException {
+    if (startingNumArrow < 0) {
+      throw new IllegalArgumentException("invalid number of arrows to start");
+    }
+    this.startingNumArrow = startingNumArrow;
+  }
+
+  /**
+   * Getter for startingIdx.
+   * 
+   * @return the startingIdx cell index the hunters start at
+   */
+  public int getStartingIdx() {
+    return startingIdx;
+  }
+
   public boolean isTwoPlayers() {
     return isTwoPlayers;
   }
@@ -780,6 +1393,17 @@ public class Game extends Observable implements IController {
     return hunterTwo;
   }
 
+  /**
+   * Get the Zobrist hash of the state, kept up to date in O(1) per move and
+   * shot. Games in the same state have the same hash, whatever the turns that
+   * led there, see computeStateHash.
+   * 
+   * @return the 64-bit hash
+   */
+  public long getStateHash() {
+    return stateHash;
+  }
+
   /**
    * Getter the randomSeed.
    * 
@@ -790,7 +1414,9 @@ public class Game extends Observable implements IController {
   }
 
   /**
-   * Setter the randomSeed.
+   * Setter the randomSeed, takes effect when the game starts. The maze,
+   * the hazards and the superbats each draw from their own stream split from
+   * this seed, so a seed always replays the same game.
    * 
    * @param seedRandomGame the seedRandomGame to set
    */
@@ -801,10 +1427,91 @@ public class Game extends Observable implements IController {
   /**
    * Getter for RoomMaze.
    * 
-   * @return the roomMaze Room Maze
+   * @return the maze of this Game
+   * @deprecated the maze may be a CompactMaze, use getMaze
+   */
+  @Deprecated
+  public Maze getRoomMaze() {
+    return getMaze();
+  }
+
+  /**
+   * Getter for the Maze of this Game.
+   * 
+   * @return the maze either a RoomMaze or a CompactMaze
+   */
+  public Maze getMaze() {
+    return maze;
+  }
+
+  /**
+   * Getter for the CaveGraph of this Game, caves and the caves they lead to.
+   * 
+   * @return the caveGraph of the current maze
+   */
+  public CaveGraph getCaveGraph() {
+    return caveGraph;
+  }
+
+  /**
+   * Getter for the cache of maze topologies used when the game starts.
+   * 
+   * @return the mazeCache
+   */
+  public MazeCache getMazeCache() {
+    return mazeCache;
+  }
+
+  /**
+   * Setter for the cache of maze topologies, games sharing a cache share the
+   * generated walls.
+   * 
+   * @param mazeCache the mazeCache to set
+   */
+  public void setMazeCache(MazeCache mazeCache) {
+    this.mazeCache = mazeCache;
+    if (mazePrefetcher != null) {
+      mazePrefetcher.shutdown();
+      mazePrefetcher = null;
+    }
+  }
+
+  /**
+   * Getter for isCompactMaze flag.
+   * 
+   * @return the isCompactMaze flag
+   */
+  public boolean isCompactMaze() {
+    return isCompactMaze;
+  }
+
+  /**
+   * Setter for isCompactMaze flag, takes effect when the game starts. A compact
+   * maze keeps the map in flat arrays for large maps.
+   * 
+   * @param isCompactMaze the isCompactMaze to set
+   */
+  public void setCompactMaze(boolean isCompactMaze) {
+    this.isCompactMaze = isCompactMaze;
+  }
+
+  /**
+   * Getter for isLogging flag.
+   * 
+   * @return the isLogging flag
+   */
+  public boolean isLogging() {
+    return isLogging;
+  }
+
+  /**
+   * Setter for isLogging flag. Headless games turn it off so that ending a game
+   * does not print to the console.
+   * 
+   * @param isLogging the isLogging to set
    */
-  public RoomMaze getRoomMaze() {
-    return roomMaze;
+  public void setLogging(boolean isLogging) {
+    this.isLogging = isLogging;
   }
 
   /**
@@ -0,0 +1,27 @@
+package controller;
+
+/**
+ * This enum represents what changed in a Game, passed to the observers as the
+ * argument of every notification. A notification is sent once per call into
+ * the Game, so observers can skip the work a change does not need: a prompt or
+ * a rejected command leaves the maze and the hunters as they were.
+ *
+ * @author Daniel Zhou
+ */
+public enum GameChange {
+  STARTED, // a new maze and new hunters
+  PROMPTED, // the game asks for the next part of a command
+  REJECTED, // the command was invalid, nothing changed
+  MOVED, // a hunter moved, possibly snatched by superbats
+  SHOT, // a hunter shot an arrow
+  RESTORED; // a snapshot was restored, like an undo
+
+  /**
+   * Check if the maze or the hunters may have changed.
+   *
+   * @return true if the map has to be drawn again
+   */
+  public boolean isMapChanged() {
+    return this == STARTED || this == MOVED || this == SHOT || this == RESTORED;
+  }
+}
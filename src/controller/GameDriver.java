@@ -1,8 +1,10 @@
 package controller;
 
 import java.io.BufferedReader;
+import java.io.FileReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.util.List;
 import java.util.Scanner;
 
 import view.GameView;
@@ -19,13 +21,14 @@ public class GameDriver {
    * Main driver method to execute the program with command line arguments and can
    * be further implemented in jar file. First command line argument to tell if
    * GUI is needed to be generated. command line argument --gui or --text to
-   * proceed the game. otherwise the program should display a suitable error
-   * message and quit.
+   * proceed the game, --gui may be followed by a file of difficulty presets,
+   * like the one written by the difficulty tuner. otherwise the program should
+   * display a suitable error message and quit.
    */
   public static void main(String[] args) {
     System.out.println("Welcome to Hunt The Wumpus Game!\n*** Final Version ***");
     if (args[0].equals("--gui")) {
-      GameView gameGUI = new GameView();
+      GameView gameGUI = new GameView(loadPresets(args));
       gameGUI.setVisible(true);
     } else if (args[0].equals("--text")) {
       boolean continueToPlay = true;
@@ -87,4 +90,25 @@ public class GameDriver {
       System.exit(0);
     }
   }
+
+  /**
+   * Load the difficulty presets of the GUI from the file named by the second
+   * command line argument, fall back to the built-in presets without one.
+   */
+  private static List<GamePreset> loadPresets(String[] args) {
+    if (args.length < 2) {
+      return GamePreset.getDefaults();
+    }
+    try (FileReader reader = new FileReader(args[1])) {
+      List<GamePreset> presets = GamePreset.load(reader);
+      if (!presets.isEmpty()) {
+        return presets;
+      }
+      System.out.println("no preset in " + args[1] + ", using the built-in presets.");
+    } catch (IOException | IllegalArgumentException e) {
+      System.out.println("cannot load " + args[1] + ": " + e.getMessage()
+          + ", using the built-in presets.");
+    }
+    return GamePreset.getDefaults();
+  }
 }
@@ -0,0 +1,55 @@
+package controller;
+
+/**
+ * This enum represents the kinds of event a Game reports for a turn. An event
+ * carries up to two int arguments, documented on each kind; the text
+ * transcript of streamOut() is rendered from the events, so clients which do
+ * not need the text read the events and never build or parse a String.
+ *
+ * @author Daniel Zhou
+ */
+public enum GameEvent {
+  PROMPT_ACTION("Shoot or Move (S-M)?"),
+  PROMPT_MOVE_TO("Where to?"),
+  PROMPT_NUM_CAVES("No. of caves (1-5)?"),
+  PROMPT_SHOOT_TO("Toward cave?"),
+  INVALID_ACTION("invalid command for Shoot or Move, input S or M"),
+  INVALID_MOVE_TO("Not valid cave index move to"),
+  INVALID_NUM_CAVES("Not valid num of caves pass"),
+  INVALID_SHOOT_TO("Not valid cave index shoot towards"),
+  INVALID_STATE("Looking for the input"),
+  SENSED(""), // the blood and draft flags of the cell entered
+  ENTERED(""), // the 0-based cell the current hunter is in
+  MOVED(""), // the 0-based cell the hunter moved to
+  DUCKED_BATS("\nWhoa -- you successfully duck superbats that try to grab you"),
+  SNATCHED("\nSnatch -- you are grabbed by superbats and ..."), // the 0-based cell dropped in
+  MISSED(""), // the arrows left, the 0-based cell the arrow stopped in
+  SWITCHED_PLAYER("\n\n** Switch to Player 2 **\n"),
+  GAME_OVER(""); // the GameOutcome ordinal
+
+  private final String text;
+
+  GameEvent(String text) {
+    this.text = text;
+  }
+
+  /**
+   * Get the fixed text of this kind of event, empty if the text depends on the
+   * arguments or the event is not shown.
+   *
+   * @return the text
+   */
+  public String getText() {
+    return text;
+  }
+
+  /**
+   * Check if this event asks for the next command.
+   *
+   * @return true for the prompts
+   */
+  public boolean isPrompt() {
+    return this == PROMPT_ACTION || this == PROMPT_MOVE_TO || this == PROMPT_NUM_CAVES
+        || this == PROMPT_SHOOT_TO;
+  }
+}
@@ -0,0 +1,120 @@
+package controller;
+
+/**
+ * This class represents the events of the last command of a Game, kept in a
+ * ring buffer preallocated once, so recording an event never allocates. When
+ * more events than the capacity are recorded, the oldest ones are dropped.
+ *
+ * @author Daniel Zhou
+ */
+public class GameEventLog {
+  private final GameEvent[] events;
+  private final int[] firstArguments;
+  private final int[] secondArguments;
+  private int start;
+  private int size;
+
+  /**
+   * Construct an empty log.
+   *
+   * @param capacity the number of events kept
+   * @throws IllegalArgumentException if the capacity is not positive
+   */
+  public GameEventLog(int capacity) throws IllegalArgumentException {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("invalid capacity! Should be positive");
+    }
+    this.events = new GameEvent[capacity];
+    this.firstArguments = new int[capacity];
+    this.secondArguments = new int[capacity];
+  }
+
+  /**
+   * Record an event, dropping the oldest one if the log is full.
+   *
+   * @param event          the kind of event
+   * @param firstArgument  the first argument, 0 if unused
+   * @param secondArgument the second argument, 0 if unused
+   */
+  public void add(GameEvent event, int firstArgument, int secondArgument) {
+    int slot;
+    if (size == events.length) {
+      slot = start;
+      start = (start + 1) % events.length;
+    } else {
+      slot = (start + size++) % events.length;
+    }
+    events[slot] = event;
+    firstArguments[slot] = firstArgument;
+    secondArguments[slot] = secondArgument;
+  }
+
+  /**
+   * Remove all events.
+   */
+  public void clear() {
+    start = 0;
+    size = 0;
+  }
+
+  /**
+   * Get the number of events kept.
+   *
+   * @return the number of events
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Get the kind of an event.
+   *
+   * @param i the position of the event, 0 for the oldest
+   * @return the kind of event
+   */
+  public GameEvent getEvent(int i) {
+    return events[getSlot(i)];
+  }
+
+  /**
+   * Get the first argument of an event.
+   *
+   * @param i the position of the event, 0 for the oldest
+   * @return the first argument
+   */
+  public int getFirstArgument(int i) {
+    return firstArguments[getSlot(i)];
+  }
+
+  /**
+   * Get the second argument of an event.
+   *
+   * @param i the position of the event, 0 for the oldest
+   * @return the second argument
+   */
+  public int getSecondArgument(int i) {
+    return secondArguments[getSlot(i)];
+  }
+
+  /**
+   * Check if an event of a kind was recorded.
+   *
+   * @param event the kind of event
+   * @return true if the log holds such an event
+   */
+  public boolean contains(GameEvent event) {
+    for (int i = 0; i < size; i++) {
+      if (getEvent(i) == event) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private int getSlot(int i) {
+    if (i < 0 || i >= size) {
+      throw new IndexOutOfBoundsException("no event at " + i);
+    }
+    return (start + i) % events.length;
+  }
+}
@@ -0,0 +1,39 @@
+package controller;
+
+/**
+ * This enum represents the outcome of a Game, decided once at the end of every
+ * turn. The message is the one logged when the game ends this way.
+ *
+ * @author Daniel Zhou
+ */
+public enum GameOutcome {
+  IN_PROGRESS(""),
+  EATEN("\nChomp, chomp, chomp, thanks for feeding the Wumpus!\nBetter luck next time\n"),
+  FALLEN("\nThe cave contains a bottomless pit!\nYou fall screaming into the void.\n"),
+  OUT_OF_ARROWS("\nYou used up all your arrows!\nGame Over\n"),
+  WON("\nHee hee hee, you got the wumpus!\nNext time you won't be so lucky\n");
+
+  private final String message;
+
+  GameOutcome(String message) {
+    this.message = message;
+  }
+
+  /**
+   * Get the message logged when the game ends this way.
+   *
+   * @return the message, empty while the game is in progress
+   */
+  public String getMessage() {
+    return message;
+  }
+
+  /**
+   * Check if the game is over.
+   *
+   * @return true for every outcome but IN_PROGRESS
+   */
+  public boolean isEnd() {
+    return this != IN_PROGRESS;
+  }
+}
@@ -0,0 +1,237 @@
+package controller;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class represents a difficulty preset of the Game which is not built in,
+ * like one found by the difficulty tuner. Each preset holds the maze settings,
+ * the number of superbats and pits, and the number of arrows the hunters start
+ * with. The built-in Difficulty presets are backed by instances of this class.
+ *
+ * <p>Presets are stored one per line as comma separated fields in the order of
+ * the constructor, the farewell last so it can hold commas. Blank lines and
+ * lines starting with # are skipped.
+ *
+ * @author Daniel Zhou
+ */
+public final class GamePreset {
+  private static final int NUM_OF_FIELDS = 8;
+
+  private final String label;
+  private final int rows;
+  private final int columns;
+  private final int numOfRemainingWalls;
+  private final int numOfBats;
+  private final int numOfPits;
+  private final int startingNumArrow;
+  private final String farewell;
+
+  /**
+   * Construct a preset.
+   *
+   * @param label               the menu label, without commas
+   * @param rows                total rows of the maze
+   * @param columns             total columns of the maze
+   * @param numOfRemainingWalls total numOfRemainingWalls of the maze
+   * @param numOfBats           total number of bats
+   * @param numOfPits           total number of pits
+   * @param startingNumArrow    starting number of arrows
+   * @param farewell            the last line of the description
+   * @throws IllegalArgumentException if the label is empty or holds a comma, a
+   *                                  number is negative, or the cells cannot
+   *                                  hold the hazards, the wumpus and the hunter
+   */
+  public GamePreset(String label, int rows, int columns, int numOfRemainingWalls, int numOfBats,
+      int numOfPits, int startingNumArrow, String farewell) throws IllegalArgumentException {
+    if (label.trim().isEmpty() || label.contains(",")) {
+      throw new IllegalArgumentException("invalid preset label! Cannot be empty or hold commas");
+    }
+    if (rows < 0 || columns < 0 || numOfRemainingWalls < 0 || numOfBats < 0 || numOfPits < 0
+        || startingNumArrow < 0) {
+      throw new IllegalArgumentException("invalid preset " + label + "! Cannot be negative");
+    }
+    if ((long) numOfPits + numOfBats + 2 > (long) rows * columns) {
+      throw new IllegalArgumentException("invalid preset " + label + "! only " + rows * columns
+          + " cells for the pits, bats, wumpus and hunter");
+    }
+    this.label = label;
+    this.rows = rows;
+    this.columns = columns;
+    this.numOfRemainingWalls = numOfRemainingWalls;
+    this.numOfBats = numOfBats;
+    this.numOfPits = numOfPits;
+    this.startingNumArrow = startingNumArrow;
+    this.farewell = farewell;
+  }
+
+  /**
+   * Get the built-in presets in menu order.
+   *
+   * @return the presets of the Difficulty enum
+   */
+  public static List<GamePreset> getDefaults() {
+    List<GamePreset> presets = new ArrayList<>();
+    for (Difficulty difficulty : Difficulty.values()) {
+      presets.add(difficulty.getPreset());
+    }
+    return presets;
+  }
+
+  /**
+   * Read presets, one per line.
+   *
+   * @param reader the source of the presets
+   * @return the presets in file order
+   * @throws IOException              if the source cannot be read
+   * @throws IllegalArgumentException if a line is not a valid preset
+   */
+  public static List<GamePreset> load(Reader reader)
+      throws IOException, IllegalArgumentException {
+    List<GamePreset> presets = new ArrayList<>();
+    BufferedReader lines = new BufferedReader(reader);
+    int lineNumber = 0;
+    for (String line = lines.readLine(); line != null; line = lines.readLine()) {
+      lineNumber++;
+      if (line.trim().isEmpty() || line.startsWith("#")) {
+        continue;
+      }
+      String[] fields = line.split(",", NUM_OF_FIELDS);
+      if (fields.length != NUM_OF_FIELDS) {
+        throw new IllegalArgumentException("invalid preset at line " + lineNumber
+            + "! should have " + NUM_OF_FIELDS + " fields");
+      }
+      try {
+        presets.add(new GamePreset(fields[0].trim(), Integer.parseInt(fields[1].trim()),
+            Integer.parseInt(fields[2].trim()), Integer.parseInt(fields[3].trim()),
+            Integer.parseInt(fields[4].trim()), Integer.parseInt(fields[5].trim()),
+            Integer.parseInt(fields[6].trim()), fields[7].trim()));
+      } catch (NumberFormatException e) {
+        throw new IllegalArgumentException("invalid preset at line " + lineNumber
+            + "! " + e.getMessage());
+      }
+    }
+    return presets;
+  }
+
+  /**
+   * Write presets, one per line, in the format read by load.
+   *
+   * @param presets the presets to write
+   * @param writer  the destination of the presets
+   * @throws IOException if the destination cannot be written
+   */
+  public static void store(List<GamePreset> presets, Writer writer) throws IOException {
+    writer.write("# label,rows,columns,numOfRemainingWalls,numOfBats,numOfPits,"
+        + "startingNumArrow,farewell\n");
+    for (GamePreset preset : presets) {
+      writer.write(preset.label + "," + preset.rows + "," + preset.columns + ","
+          + preset.numOfRemainingWalls + "," + preset.numOfBats + "," + preset.numOfPits + ","
+          + preset.startingNumArrow + "," + preset.farewell + "\n");
+    }
+    writer.flush();
+  }
+
+  /**
+   * Apply this preset to a game, takes effect when the game starts.
+   *
+   * @param game the game to configure
+   */
+  public void applyTo(Game game) {
+    game.setRows(rows);
+    game.setColumns(columns);
+    game.setNumOfRemainingWalls(numOfRemainingWalls);
+    game.setNumOfBats(numOfBats);
+    game.setNumOfPits(numOfPits);
+    game.setStartingNumArrow(startingNumArrow);
+  }
+
+  /**
+   * Get the description shown when a game of this preset is generated.
+   *
+   * @param startingIdx the cell the hunters start at
+   * @return the description of this preset
+   */
+  public String getDescription(int startingIdx) {
+    return label + " Game:\nthis Maze has " + rows + " rows, " + columns + " columns, "
+        + numOfRemainingWalls + " remaining wall, " + numOfBats + " supper bat, and "
+        + numOfPits + " pit\nHunter is placed at Cell #" + startingIdx + " with "
+        + startingNumArrow + " arrows" + "\n\n" + farewell;
+  }
+
+  /**
+   * Get the menu label of this preset.
+   *
+   * @return the label
+   */
+  public String getLabel() {
+    return label;
+  }
+
+  /**
+   * Get the total rows of this preset.
+   *
+   * @return the rows
+   */
+  public int getRows() {
+    return rows;
+  }
+
+  /**
+   * Get the total columns of this preset.
+   *
+   * @return the columns
+   */
+  public int getColumns() {
+    return columns;
+  }
+
+  /**
+   * Get the number of remaining walls of this preset.
+   *
+   * @return the numOfRemainingWalls
+   */
+  public int getNumOfRemainingWalls() {
+    return numOfRemainingWalls;
+  }
+
+  /**
+   * Get the number of superbats of this preset.
+   *
+   * @return the numOfBats
+   */
+  public int getNumOfBats() {
+    return numOfBats;
+  }
+
+  /**
+   * Get the number of pits of this preset.
+   *
+   * @return the numOfPits
+   */
+  public int getNumOfPits() {
+    return numOfPits;
+  }
+
+  /**
+   * Get the number of arrows the hunters start with.
+   *
+   * @return the startingNumArrow
+   */
+  public int getStartingNumArrow() {
+    return startingNumArrow;
+  }
+
+  /**
+   * Get the last line of the description.
+   *
+   * @return the farewell
+   */
+  public String getFarewell() {
+    return farewell;
+  }
+}
@@ -0,0 +1,107 @@
+package controller;
+
+import model.Hunter;
+import model.Maze;
+
+/**
+ * This class represents an immutable snapshot of the mutable state of a Game:
+ * the positions and arrows of the hunters, whose turn it is, the pending
+ * prompt, the outcome, the superbat random state and the visited cells. The
+ * maze, its hazards and the graph are shared with the game, a snapshot only
+ * holds a few fields and a pointer into the persistent list of visited cells.
+ *
+ * <p>Every cell visited for the first time is pushed on a persistent list, so
+ * the snapshots of one game share their common history. Restoring a snapshot
+ * walks both lists back to their common node and only flips the cells visited
+ * on one side, O(changed state) whatever the size of the maze.
+ *
+ * @author Daniel Zhou
+ */
+public final class GameSnapshot {
+  final Maze maze;
+  final int oneRow; // hunter one
+  final int oneColumn;
+  final int oneArrowRow;
+  final int oneArrowColumn;
+  final int oneArrows;
+  final int twoRow; // hunter two, unused in 1 player mode
+  final int twoColumn;
+  final int twoArrowRow;
+  final int twoArrowColumn;
+  final int twoArrows;
+  final boolean isHunterTwo;
+  final String currentState;
+  final int numCavePass;
+  final GameOutcome outcome;
+  final int outcomeHunter; // 0 none, 1 or 2
+  final long batState;
+  final Visit visits;
+  final long stateHash;
+
+  GameSnapshot(Maze maze, Hunter hunterOne, Hunter hunterTwo, boolean isHunterTwo,
+      String currentState, int numCavePass, GameOutcome outcome, int outcomeHunter,
+      long batState, Visit visits, long stateHash) {
+    this.maze = maze;
+    this.oneRow = hunterOne.getCurrentPos().x;
+    this.oneColumn = hunterOne.getCurrentPos().y;
+    this.oneArrowRow = hunterOne.getArrowPos().x;
+    this.oneArrowColumn = hunterOne.getArrowPos().y;
+    this.oneArrows = hunterOne.getNumberOfArrows();
+    Hunter two = hunterTwo == null ? hunterOne : hunterTwo;
+    this.twoRow = two.getCurrentPos().x;
+    this.twoColumn = two.getCurrentPos().y;
+    this.twoArrowRow = two.getArrowPos().x;
+    this.twoArrowColumn = two.getArrowPos().y;
+    this.twoArrows = two.getNumberOfArrows();
+    this.isHunterTwo = isHunterTwo;
+    this.currentState = currentState;
+    this.numCavePass = numCavePass;
+    this.outcome = outcome;
+    this.outcomeHunter = outcomeHunter;
+    this.batState = batState;
+    this.visits = visits;
+    this.stateHash = stateHash;
+  }
+
+  /**
+   * Get the outcome of the game at this snapshot.
+   *
+   * @return the outcome
+   */
+  public GameOutcome getOutcome() {
+    return outcome;
+  }
+
+  /**
+   * Get the Zobrist hash of the game at this snapshot, see Game.getStateHash.
+   *
+   * @return the 64-bit hash
+   */
+  public long getStateHash() {
+    return stateHash;
+  }
+
+  /**
+   * Get the number of cells visited at this snapshot.
+   *
+   * @return the number of visited cells
+   */
+  public int getNumOfVisitedCells() {
+    return visits == null ? 0 : visits.depth;
+  }
+
+  /**
+   * A cell visited for the first time, on top of the cells visited before.
+   */
+  static final class Visit {
+    final int cell;
+    final Visit previous;
+    final int depth; // number of visits up to this one
+
+    Visit(int cell, Visit previous) {
+      this.cell = cell;
+      this.previous = previous;
+      this.depth = previous == null ? 1 : previous.depth + 1;
+    }
+  }
+}
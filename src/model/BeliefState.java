@@ -0,0 +1,322 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * This class represents what one player can infer about the hazards of a maze
+ * from what the hunter sensed so far. It keeps bitsets over the dense cave ids
+ * of a CaveGraph: the caves known to hold no pit, no bat or no Wumpus, the caves
+ * known to hold a bat, and the caves where a draft was felt. A cave leads to
+ * the Wumpus cave if and only if blood is smelled there, and to a pit cave if
+ * and only if a draft is felt there, as tunnels can be walked both ways.
+ *
+ * <p>Every observation only touches the caves the observed cave leads to, and
+ * every probability only looks two tunnels away, so both stay O(degree)
+ * whatever the size of the maze. The Wumpus probabilities are exact. The pit
+ * probabilities are a local estimate: a cave next to a draft whose other
+ * possible pit caves are ruled out holds a pit, other caves next to a draft get
+ * one over the number of possible pit caves of that draft, and the remaining
+ * caves share the pits evenly.
+ *
+ * @author Daniel Zhou
+ */
+public class BeliefState {
+  private static final int UNCONSTRAINED = -1;
+
+  private final CaveGraph caveGraph;
+  private final int numOfPits;
+  private final int numOfBats;
+  private final int numOfCaves;
+  private final long[] noPit;
+  private final long[] noBat;
+  private final long[] bat;
+  private final long[] noWumpus;
+  private final long[] draft;
+  private int numOfNoPit;
+  private int numOfNoBat;
+  private int numOfBat;
+  private int numOfNoWumpus;
+  // once blood is smelled, the Wumpus caves left, at most one per direction
+  private final int[] wumpusCaves = new int[4];
+  private int numOfWumpusCaves;
+  private final int[] leadToCaves = new int[4]; // reused buffers of cave ids
+  private final int[] draftCaves = new int[4];
+
+  /**
+   * Construct the beliefs of a player who sensed nothing yet.
+   *
+   * @param caveGraph the graph of the maze
+   * @param numOfPits the number of pits in the maze
+   * @param numOfBats the number of bats in the maze
+   * @throws IllegalArgumentException if the number of pits or bats is negative
+   */
+  public BeliefState(CaveGraph caveGraph, int numOfPits, int numOfBats)
+      throws IllegalArgumentException {
+    if (numOfPits < 0 || numOfBats < 0) {
+      throw new IllegalArgumentException("invalid number of hazards! Cannot be negative");
+    }
+    this.caveGraph = caveGraph;
+    this.numOfPits = numOfPits;
+    this.numOfBats = numOfBats;
+    this.numOfCaves = caveGraph.getNumOfCaves();
+    int words = (numOfCaves + 63) >>> 6;
+    this.noPit = new long[words];
+    this.noBat = new long[words];
+    this.bat = new long[words];
+    this.noWumpus = new long[words];
+    this.draft = new long[words];
+    reset();
+  }
+
+  /**
+   * Forget everything sensed.
+   */
+  public void reset() {
+    Arrays.fill(noPit, 0);
+    Arrays.fill(noBat, 0);
+    Arrays.fill(bat, 0);
+    Arrays.fill(noWumpus, 0);
+    Arrays.fill(draft, 0);
+    numOfNoPit = 0;
+    numOfNoBat = 0;
+    numOfBat = 0;
+    numOfNoWumpus = 0;
+    numOfWumpusCaves = UNCONSTRAINED;
+  }
+
+  /**
+   * Record that the hunter is alive in a cave and sensed the given flags
+   * there: the cave holds neither a pit nor the Wumpus, blood narrows the
+   * Wumpus down to the caves it leads to, and no draft rules out a pit in them.
+   *
+   * @param cave        the dense cave id
+   * @param sensedFlags Cell.BLOOD and Cell.DRAFT as sensed, see Cell.getSensedFlags
+   */
+  public void observe(int cave, int sensedFlags) {
+    if (!get(noPit, cave)) {
+      set(noPit, cave);
+      numOfNoPit++;
+    }
+    excludeWumpus(cave);
+    int count = caveGraph.getLeadToCavesOfCell(caveGraph.getCaveCell(cave), leadToCaves);
+    if ((sensedFlags & Cell.BLOOD) != 0) {
+      keepWumpusCaves(count);
+    } else {
+      for (int i = 0; i < count; i++) {
+        excludeWumpus(leadToCaves[i]);
+      }
+    }
+    if ((sensedFlags & Cell.DRAFT) != 0) {
+      set(draft, cave);
+    } else {
+      for (int i = 0; i < count; i++) {
+        if (!get(noPit, leadToCaves[i])) {
+          set(noPit, leadToCaves[i]);
+          numOfNoPit++;
+        }
+      }
+    }
+  }
+
+  /**
+   * Record whether bats were met in a cave.
+   *
+   * @param cave  the dense cave id
+   * @param isBat true if bats live in the cave
+   */
+  public void observeBat(int cave, boolean isBat) {
+    if (isBat && !get(bat, cave)) {
+      set(bat, cave);
+      numOfBat++;
+    } else if (!isBat && !get(noBat, cave)) {
+      set(noBat, cave);
+      numOfNoBat++;
+    }
+  }
+
+  /**
+   * Record that an arrow stopped in a cave without hitting the Wumpus.
+   *
+   * @param cave the dense cave id
+   */
+  public void observeMiss(int cave) {
+    excludeWumpus(cave);
+  }
+
+  /**
+   * Get the probability that the Wumpus is in a cave.
+   *
+   * @param cave the dense cave id
+   * @return the probability in 0 to 1
+   */
+  public double getWumpusProbability(int cave) {
+    if (get(noWumpus, cave)) {
+      return 0;
+    }
+    if (numOfWumpusCaves == UNCONSTRAINED) {
+      return 1.0 / (numOfCaves - numOfNoWumpus);
+    }
+    for (int i = 0; i < numOfWumpusCaves; i++) {
+      if (wumpusCaves[i] == cave) {
+        return 1.0 / numOfWumpusCaves;
+      }
+    }
+    return 0;
+  }
+
+  /**
+   * Get the estimated probability that a cave holds a pit.
+   *
+   * @param cave the dense cave id
+   * @return the probability in 0 to 1
+   */
+  public double getPitProbability(int cave) {
+    if (get(noPit, cave) || numOfPits == 0) {
+      return 0;
+    }
+    double probability = Math.min(1, (double) numOfPits / (numOfCaves - numOfNoPit));
+    int count = caveGraph.getLeadToCavesOfCell(caveGraph.getCaveCell(cave), leadToCaves);
+    for (int i = 0; i < count; i++) {
+      if (get(draft, leadToCaves[i])) {
+        int numOfPossible = countPossiblePits(leadToCaves[i]);
+        probability = Math.max(probability, 1.0 / numOfPossible);
+      }
+    }
+    return probability;
+  }
+
+  /**
+   * Get the probability that bats live in a cave.
+   *
+   * @param cave the dense cave id
+   * @return the probability in 0 to 1
+   */
+  public double getBatProbability(int cave) {
+    if (get(bat, cave)) {
+      return 1;
+    }
+    if (get(noBat, cave) || numOfBat >= numOfBats) {
+      return 0;
+    }
+    return (double) (numOfBats - numOfBat) / (numOfCaves - numOfNoBat - numOfBat);
+  }
+
+  /**
+   * Check if a draft was felt in a cave, so one of the caves it leads to holds
+   * a pit.
+   *
+   * @param cave the dense cave id
+   * @return true if a draft was felt there
+   */
+  public boolean hasDraft(int cave) {
+    return get(draft, cave);
+  }
+
+  /**
+   * Check if a cave surely holds neither a pit nor the Wumpus.
+   *
+   * @param cave the dense cave id
+   * @return true if entering the cave cannot end the game
+   */
+  public boolean isSafe(int cave) {
+    return get(noPit, cave) && getWumpusProbability(cave) == 0;
+  }
+
+  /**
+   * Get the cave of the Wumpus if it is known.
+   *
+   * @return the dense cave id, CaveGraph.NONE if several caves are possible
+   */
+  public int getWumpusCave() {
+    if (numOfWumpusCaves == 1) {
+      return wumpusCaves[0];
+    }
+    if (numOfWumpusCaves == UNCONSTRAINED && numOfNoWumpus == numOfCaves - 1) {
+      for (int cave = 0; cave < numOfCaves; cave++) {
+        if (!get(noWumpus, cave)) {
+          return cave;
+        }
+      }
+    }
+    return CaveGraph.NONE;
+  }
+
+  /**
+   * Get the number of caves which may still hold the Wumpus.
+   *
+   * @return the number of caves
+   */
+  public int getNumOfWumpusCaves() {
+    return numOfWumpusCaves == UNCONSTRAINED ? numOfCaves - numOfNoWumpus : numOfWumpusCaves;
+  }
+
+  /**
+   * Count the distinct caves a draft cave leads to which may hold a pit, at
+   * least 1 as the draft comes from one of them.
+   */
+  private int countPossiblePits(int draftCave) {
+    int count = caveGraph.getLeadToCavesOfCell(caveGraph.getCaveCell(draftCave), draftCaves);
+    int numOfPossible = 0;
+    for (int i = 0; i < count; i++) {
+      if (!get(noPit, draftCaves[i]) && indexOf(draftCaves, i, draftCaves[i]) < 0) {
+        numOfPossible++;
+      }
+    }
+    return Math.max(1, numOfPossible);
+  }
+
+  /**
+   * Rule out the Wumpus in a cave.
+   */
+  private void excludeWumpus(int cave) {
+    if (get(noWumpus, cave)) {
+      return;
+    }
+    set(noWumpus, cave);
+    numOfNoWumpus++;
+    if (numOfWumpusCaves != UNCONSTRAINED) {
+      int i = indexOf(wumpusCaves, numOfWumpusCaves, cave);
+      if (i >= 0) {
+        wumpusCaves[i] = wumpusCaves[--numOfWumpusCaves];
+      }
+    }
+  }
+
+  /**
+   * Keep only the Wumpus caves among the first count caves of leadToCaves.
+   */
+  private void keepWumpusCaves(int count) {
+    if (numOfWumpusCaves == UNCONSTRAINED) {
+      numOfWumpusCaves = 0;
+      for (int i = 0; i < count; i++) {
+        int cave = leadToCaves[i];
+        if (!get(noWumpus, cave) && indexOf(wumpusCaves, numOfWumpusCaves, cave) < 0) {
+          wumpusCaves[numOfWumpusCaves++] = cave;
+        }
+      }
+      return;
+    }
+    for (int i = numOfWumpusCaves - 1; i >= 0; i--) {
+      if (indexOf(leadToCaves, count, wumpusCaves[i]) < 0) {
+        wumpusCaves[i] = wumpusCaves[--numOfWumpusCaves];
+      }
+    }
+  }
+
+  private static int indexOf(int[] caves, int count, int cave) {
+    for (int i = 0; i < count; i++) {
+      if (caves[i] == cave) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private static boolean get(long[] bits, int cave) {
+    return (bits[cave >>> 6] & (1L << cave)) != 0;
+  }
+
+  private static void set(long[] bits, int cave) {
+    bits[cave >>> 6] |= 1L << cave;
+  }
+}
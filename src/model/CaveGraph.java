@@ -0,0 +1,455 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * This class represents the contracted graph of a maze: only caves are kept,
+ * and every tunnel chain is replaced by one edge between the caves at its two
+ * ends. Caves get dense ids in row-major order. Every cave has four direction
+ * slots (NORTH, EAST, SOUTH, WEST) holding the cave reached by leaving in that
+ * direction, the number of tunnel cells passed on the way, those tunnel cells
+ * in walking order, and the direction the cave is entered from the last step.
+ * Cells are given by their 0-based row-major index.
+ *
+ * <p>Every cell also keeps a 4-bit mask of its open sides (bit 1 << direction)
+ * and the cave reached by leaving it in each direction, so resolving a
+ * direction from any cell, cave or tunnel, is a table lookup.
+ *
+ * <p>A cave has at most four exits, so isAdjacent scans four ints and needs no
+ * hashing.
+ *
+ * @author Daniel Zhou
+ */
+public class CaveGraph {
+  public static final int NORTH = 0;
+  public static final int EAST = 1;
+  public static final int SOUTH = 2;
+  public static final int WEST = 3;
+  public static final int NONE = -1; // no cave in this slot
+
+  private static final int NUM_OF_DIRECTIONS = 4;
+  private static final int NO_EDGE = Integer.MIN_VALUE; // tunnel on a loop with no cave
+
+  private final int rows;
+  private final int columns;
+  private final int numOfCaves;
+  private final int[] caveCells; // cave id -> cell index
+  private final int[] cellSlots; // cell index -> cave id, or ~slot for a tunnel cell
+  private final byte[] openSides; // cell index -> open sides, bit 1 << direction
+  private final int[] cellTargets; // cell index * 4 + direction -> target cave id or NONE
+  private final int[] targets; // slot -> target cave id or NONE
+  private final int[] arrivals; // slot -> direction of the last step into the target
+  private final int[] tunnelOffsets; // slot -> first tunnel cell in tunnelCells
+  private final int[] tunnelCells;
+
+  /**
+   * Construct the cave graph of a maze whose caves and neighbours are set. The
+   * walls of a CompactMaze are read from its wall bits, so no Cell is built.
+   *
+   * @param maze the maze to contract
+   */
+  public CaveGraph(Maze maze) {
+    this(getOpenSides(maze), maze.getCellFlags(), getColumns(maze));
+  }
+
+  /**
+   * Construct the cave graph from the open sides and the Cave flags of every
+   * cell.
+   */
+  private CaveGraph(byte[] openSides, byte[] flags, int columns) {
+    int numOfCells = openSides.length;
+    this.columns = columns;
+    this.rows = columns == 0 ? 0 : numOfCells / columns;
+    this.openSides = openSides;
+    this.cellSlots = new int[numOfCells];
+    int count = 0;
+    for (int cell = 0; cell < numOfCells; cell++) {
+      if ((flags[cell] & Cell.CAVE) != 0) {
+        cellSlots[cell] = count++;
+      } else {
+        cellSlots[cell] = NO_EDGE;
+      }
+    }
+    this.numOfCaves = count;
+    this.caveCells = new int[numOfCaves];
+    for (int cell = 0; cell < numOfCells; cell++) {
+      if (cellSlots[cell] >= 0) {
+        caveCells[cellSlots[cell]] = cell;
+      }
+    }
+    int numOfSlots = numOfCaves * NUM_OF_DIRECTIONS;
+    this.targets = new int[numOfSlots];
+    this.arrivals = new int[numOfSlots];
+    this.tunnelOffsets = new int[numOfSlots + 1];
+    this.cellTargets = new int[numOfCells * NUM_OF_DIRECTIONS];
+    Arrays.fill(targets, NONE);
+    Arrays.fill(arrivals, NONE);
+    Arrays.fill(cellTargets, NONE);
+    // every tunnel cell is stored once from each end of its chain
+    int[] cells = new int[Math.max(0, 2 * (numOfCells - numOfCaves))];
+    int numOfTunnelCells = 0;
+    for (int slot = 0; slot < numOfSlots; slot++) {
+      int cave = caveCells[slot / NUM_OF_DIRECTIONS];
+      int direction = slot % NUM_OF_DIRECTIONS;
+      int current = isOpen(cave, direction) ? getNeighbourIndex(cave, direction) : NONE;
+      int length = 0;
+      // walk the tunnel chain, at most once around the map on a malformed loop
+      while (current != NONE && cellSlots[current] < 0 && length < numOfCells) {
+        if (numOfTunnelCells + length == cells.length) {
+          cells = Arrays.copyOf(cells, 2 * cells.length + NUM_OF_DIRECTIONS);
+        }
+        cells[numOfTunnelCells + length++] = current;
+        if (cellSlots[current] == NO_EDGE) {
+          cellSlots[current] = ~slot;
+        }
+        direction = getOtherSide(current, getOpposite(direction));
+        current = getNeighbourIndex(current, direction);
+      }
+      if (current != NONE && cellSlots[current] >= 0) {
+        targets[slot] = cellSlots[current];
+        arrivals[slot] = direction;
+        cellTargets[cave * NUM_OF_DIRECTIONS + slot % NUM_OF_DIRECTIONS] = targets[slot];
+        // a tunnel cell leads on to the target, and back to the cave left
+        for (int step = 0; step < length; step++) {
+          int cell = cells[numOfTunnelCells + step];
+          int back = step == 0 ? getOpposite(slot % NUM_OF_DIRECTIONS)
+              : getDirectionBetween(cell, cells[numOfTunnelCells + step - 1]);
+          cellTargets[cell * NUM_OF_DIRECTIONS + back] = slot / NUM_OF_DIRECTIONS;
+          cellTargets[cell * NUM_OF_DIRECTIONS + getOtherSide(cell, back)] = targets[slot];
+        }
+        numOfTunnelCells += length;
+      }
+      tunnelOffsets[slot + 1] = numOfTunnelCells;
+    }
+    this.tunnelCells = Arrays.copyOf(cells, numOfTunnelCells);
+  }
+
+  /**
+   * Get the open sides of every cell of a maze.
+   */
+  private static byte[] getOpenSides(Maze maze) {
+    if (maze instanceof CompactMaze) {
+      CompactMaze compactMaze = (CompactMaze) maze;
+      byte[] openSides = new byte[compactMaze.getRows() * compactMaze.getColumns()];
+      for (int cell = 0; cell < openSides.length; cell++) {
+        openSides[cell] = (byte) compactMaze.getOpenSides(cell);
+      }
+      return openSides;
+    }
+    Cell[][] gameMap = maze.getGameMap();
+    int columns = getColumns(maze);
+    byte[] openSides = new byte[gameMap.length * columns];
+    for (int cell = 0; cell < openSides.length; cell++) {
+      Cell current = gameMap[cell / columns][cell % columns];
+      for (Cell neighbour : current.getNeighouberCellsSet()) {
+        openSides[cell] |= 1 << getDirection(current, neighbour);
+      }
+    }
+    return openSides;
+  }
+
+  private static int getColumns(Maze maze) {
+    if (maze instanceof CompactMaze) {
+      return ((CompactMaze) maze).getColumns();
+    }
+    Cell[][] gameMap = maze.getGameMap();
+    return gameMap.length == 0 ? 0 : gameMap[0].length;
+  }
+
+  /**
+   * Get the number of caves.
+   *
+   * @return the number of caves
+   */
+  public int getNumOfCaves() {
+    return numOfCaves;
+  }
+
+  /**
+   * Get the dense cave id of a cell.
+   *
+   * @param cell the 0-based cell index
+   * @return the cave id, or NONE if the cell is a tunnel
+   */
+  public int getCaveId(int cell) {
+    return cellSlots[cell] >= 0 ? cellSlots[cell] : NONE;
+  }
+
+  /**
+   * Get the cell of a cave.
+   *
+   * @param caveId the dense cave id
+   * @return the 0-based cell index
+   */
+  public int getCaveCell(int caveId) {
+    return caveCells[caveId];
+  }
+
+  /**
+   * Get the cave reached by leaving a cave in a direction.
+   *
+   * @param caveId    the dense cave id
+   * @param direction NORTH, EAST, SOUTH or WEST
+   * @return the target cave id, or NONE if there is a wall
+   */
+  public int getTarget(int caveId, int direction) {
+    return targets[caveId * NUM_OF_DIRECTIONS + direction];
+  }
+
+  /**
+   * Get the direction of the last step into the cave reached by leaving a cave
+   * in a direction.
+   *
+   * @param caveId    the dense cave id
+   * @param direction NORTH, EAST, SOUTH or WEST
+   * @return the direction of arrival, or NONE if there is a wall
+   */
+  public int getArrival(int caveId, int direction) {
+    return arrivals[caveId * NUM_OF_DIRECTIONS + direction];
+  }
+
+  /**
+   * Get the open sides of a cell.
+   *
+   * @param cell the 0-based cell index
+   * @return the mask of open sides, bit 1 << direction set for an open side
+   */
+  public int getOpenSides(int cell) {
+    return openSides[cell];
+  }
+
+  /**
+   * Check if a cell is open to a direction.
+   *
+   * @param cell      the 0-based cell index
+   * @param direction NORTH, EAST, SOUTH or WEST
+   * @return true if no wall stands on that side
+   */
+  public boolean isOpen(int cell, int direction) {
+    return (openSides[cell] & (1 << direction)) != 0;
+  }
+
+  /**
+   * Get the cave reached by leaving a cell in a direction, through the tunnel
+   * when the cell is a tunnel or the next cell is one.
+   *
+   * @param cell      the 0-based cell index
+   * @param direction NORTH, EAST, SOUTH or WEST
+   * @return the target cave id, or NONE if there is a wall
+   */
+  public int getTargetOfCell(int cell, int direction) {
+    return cellTargets[cell * NUM_OF_DIRECTIONS + direction];
+  }
+
+  /**
+   * Get the number of tunnel cells between a cave and the cave reached in a
+   * direction.
+   *
+   * @param caveId    the dense cave id
+   * @param direction NORTH, EAST, SOUTH or WEST
+   * @return the tunnel length, 0 for two caves next to each other
+   */
+  public int getTunnelLength(int caveId, int direction) {
+    int slot = caveId * NUM_OF_DIRECTIONS + direction;
+    return tunnelOffsets[slot + 1] - tunnelOffsets[slot];
+  }
+
+  /**
+   * Get a tunnel cell between a cave and the cave reached in a direction.
+   *
+   * @param caveId    the dense cave id
+   * @param direction NORTH, EAST, SOUTH or WEST
+   * @param step      the position in the tunnel, 0 next to the cave
+   * @return the 0-based cell index
+   */
+  public int getTunnelCell(int caveId, int direction, int step) {
+    return tunnelCells[tunnelOffsets[caveId * NUM_OF_DIRECTIONS + direction] + step];
+  }
+
+  /**
+   * Check if a cave leads to another cave through one tunnel or wall opening.
+   *
+   * @param caveA the dense cave id to leave
+   * @param caveB the dense cave id to reach
+   * @return true if caveB is one of the targets of caveA
+   */
+  public boolean isAdjacent(int caveA, int caveB) {
+    int slot = caveA * NUM_OF_DIRECTIONS;
+    return targets[slot] == caveB || targets[slot + 1] == caveB
+        || targets[slot + 2] == caveB || targets[slot + 3] == caveB;
+  }
+
+  /**
+   * Get the caves a cave leads to, each cave written once.
+   *
+   * @param caveId  the dense cave id
+   * @param leadTos array of at least 4 slots receiving the cave ids
+   * @return the number of caves written
+   */
+  public int getLeadToCaves(int caveId, int[] leadTos) {
+    int count = 0;
+    for (int slot = caveId * NUM_OF_DIRECTIONS; slot < (caveId + 1) * NUM_OF_DIRECTIONS;
+        slot++) {
+      count = addLeadTo(leadTos, count, targets[slot]);
+    }
+    return count;
+  }
+
+  /**
+   * Get the caves a cell leads to, each cave written once. A tunnel leads to
+   * the caves at both ends of its chain.
+   *
+   * @param cell    the 0-based cell index
+   * @param leadTos array of at least 4 slots receiving the cave ids
+   * @return the number of caves written
+   */
+  public int getLeadToCavesOfCell(int cell, int[] leadTos) {
+    int slot = cellSlots[cell];
+    if (slot >= 0) {
+      return getLeadToCaves(slot, leadTos);
+    } else if (slot == NO_EDGE || targets[~slot] == NONE) {
+      return 0;
+    }
+    int count = addLeadTo(leadTos, 0, ~slot / NUM_OF_DIRECTIONS);
+    return addLeadTo(leadTos, count, targets[~slot]);
+  }
+
+  private static int addLeadTo(int[] leadTos, int count, int caveId) {
+    if (caveId == NONE) {
+      return count;
+    }
+    for (int i = 0; i < count; i++) {
+      if (leadTos[i] == caveId) {
+        return count;
+      }
+    }
+    leadTos[count] = caveId;
+    return count + 1;
+  }
+
+  /**
+   * Get the cave an arrow stops in. The arrow leaves a cave in a direction
+   * and, in every cave it enters, goes on in the direction it entered with,
+   * until it has passed the given number of caves or hits a wall.
+   *
+   * @param caveId     the dense cave id the arrow is shot from
+   * @param direction  NORTH, EAST, SOUTH or WEST
+   * @param numOfCaves the number of caves the arrow passes
+   * @return the cave id the arrow stops in
+   */
+  public int getArrowTarget(int caveId, int direction, int numOfCaves) {
+    int current = caveId;
+    for (int i = 0; i < numOfCaves && direction != NONE; i++) {
+      int slot = current * NUM_OF_DIRECTIONS + direction;
+      if (targets[slot] == NONE) {
+        break;
+      }
+      current = targets[slot];
+      direction = arrivals[slot];
+    }
+    return current;
+  }
+
+  /**
+   * Get the direction from a cave towards one of its target caves.
+   *
+   * @param caveA the dense cave id to leave
+   * @param caveB the dense cave id to reach
+   * @return the first direction leading to caveB, or NONE
+   */
+  public int getDirectionTo(int caveA, int caveB) {
+    for (int direction = 0; direction < NUM_OF_DIRECTIONS; direction++) {
+      if (targets[caveA * NUM_OF_DIRECTIONS + direction] == caveB) {
+        return direction;
+      }
+    }
+    return NONE;
+  }
+
+  /**
+   * Get the total rows of the contracted maze.
+   *
+   * @return the rows
+   */
+  public int getRows() {
+    return rows;
+  }
+
+  /**
+   * Get the total columns of the contracted maze.
+   *
+   * @return the columns
+   */
+  public int getColumns() {
+    return columns;
+  }
+
+  /**
+   * Get the opposite of a direction.
+   *
+   * @param direction NORTH, EAST, SOUTH or WEST
+   * @return the opposite direction
+   */
+  public static int getOpposite(int direction) {
+    return (direction + 2) % NUM_OF_DIRECTIONS;
+  }
+
+  /**
+   * Get the open side of a tunnel cell other than the given one.
+   */
+  private int getOtherSide(int cell, int side) {
+    int others = openSides[cell] & ~(1 << side);
+    return others == 0 ? side : Integer.numberOfTrailingZeros(others);
+  }
+
+  /**
+   * Get the direction from a cell to one of its open neighbours.
+   */
+  private int getDirectionBetween(int from, int to) {
+    for (int direction = 0; direction < NUM_OF_DIRECTIONS; direction++) {
+      if (isOpen(from, direction) && getNeighbourIndex(from, direction) == to) {
+        return direction;
+      }
+    }
+    return NONE;
+  }
+
+  /**
+   * Get the index of the cell next to a cell in a direction, wrapping around
+   * the border of the map.
+   */
+  private int getNeighbourIndex(int cell, int direction) {
+    int row = cell / columns;
+    int col = cell % columns;
+    switch (direction) {
+      case NORTH:
+        return ((row + rows - 1) % rows) * columns + col;
+      case SOUTH:
+        return ((row + 1) % rows) * columns + col;
+      case EAST:
+        return row * columns + (col + 1) % columns;
+      default:
+        return row * columns + (col + columns - 1) % columns;
+    }
+  }
+
+  /**
+   * Get the direction of a step between two neighbour cells, wrapping around
+   * the border of the map for a wrapping maze.
+   */
+  private static int getDirection(Cell from, Cell to) {
+    if (to.getX() == from.getX() - 1) {
+      return NORTH;
+    } else if (to.getX() == from.getX() + 1) {
+      return SOUTH;
+    } else if (to.getY() == from.getY() + 1) {
+      return EAST;
+    } else if (to.getY() == from.getY() - 1) {
+      return WEST;
+    } else if (to.getX() != from.getX()) {
+      return from.getX() == 0 ? NORTH : SOUTH;
+    } else {
+      return from.getY() == 0 ? WEST : EAST;
+    }
+  }
+}
@@ -0,0 +1,149 @@
+package model;
+
+/**
+ * This class represents a uniform random sampler over the dense cave ids of a
+ * CaveGraph. The caves still available are kept at the front of a permutation
+ * with the position of every cave, so drawing a cave, taking it out (sampling
+ * without replacement) and excluding or including a given cave are all O(1),
+ * whatever the share of caves in the maze.
+ *
+ * @author Daniel Zhou
+ */
+public class CaveSampler {
+  private final int[] caves; // available caves first
+  private final int[] positions; // cave id -> position in caves
+  private int numOfAvailable;
+
+  /**
+   * Construct a sampler with every cave available.
+   *
+   * @param numOfCaves the number of dense cave ids
+   * @throws IllegalArgumentException if the number of caves is negative
+   */
+  public CaveSampler(int numOfCaves) throws IllegalArgumentException {
+    if (numOfCaves < 0) {
+      throw new IllegalArgumentException("invalid number of caves! Cannot be negative");
+    }
+    this.caves = new int[numOfCaves];
+    this.positions = new int[numOfCaves];
+    reset();
+  }
+
+  /**
+   * Construct a sampler with every cave of a graph available.
+   *
+   * @param caveGraph the graph whose caves are sampled
+   */
+  public CaveSampler(CaveGraph caveGraph) {
+    this(caveGraph.getNumOfCaves());
+  }
+
+  /**
+   * Make every cave available again.
+   */
+  public void reset() {
+    for (int cave = 0; cave < caves.length; cave++) {
+      caves[cave] = cave;
+      positions[cave] = cave;
+    }
+    numOfAvailable = caves.length;
+  }
+
+  /**
+   * Draw an available cave uniformly, the cave stays available.
+   *
+   * @param rand the random source
+   * @return the dense cave id
+   * @throws IllegalArgumentException if no cave is available
+   */
+  public int sample(SplitMix64 rand) throws IllegalArgumentException {
+    if (numOfAvailable == 0) {
+      throw new IllegalArgumentException("no cave left to sample");
+    }
+    return caves[rand.nextInt(numOfAvailable)];
+  }
+
+  /**
+   * Draw an available cave uniformly and take it out.
+   *
+   * @param rand the random source
+   * @return the dense cave id
+   * @throws IllegalArgumentException if no cave is available
+   */
+  public int take(SplitMix64 rand) throws IllegalArgumentException {
+    int cave = sample(rand);
+    exclude(cave);
+    return cave;
+  }
+
+  /**
+   * Draw k distinct available caves uniformly and take them out, a partial
+   * Fisher-Yates shuffle of the available caves.
+   *
+   * @param numOfSamples the number of caves to take
+   * @param rand         the random source
+   * @return the dense cave ids
+   * @throws IllegalArgumentException if fewer caves are available
+   */
+  public int[] take(int numOfSamples, SplitMix64 rand) throws IllegalArgumentException {
+    if (numOfSamples < 0 || numOfSamples > numOfAvailable) {
+      throw new IllegalArgumentException("invalid number of caves to sample! "
+          + "should be in range 0 to " + numOfAvailable);
+    }
+    int[] samples = new int[numOfSamples];
+    for (int i = 0; i < numOfSamples; i++) {
+      samples[i] = take(rand);
+    }
+    return samples;
+  }
+
+  /**
+   * Take a cave out of the available caves, nothing happens if it is out.
+   *
+   * @param cave the dense cave id
+   */
+  public void exclude(int cave) {
+    if (isAvailable(cave)) {
+      swap(positions[cave], --numOfAvailable);
+    }
+  }
+
+  /**
+   * Make a cave available again, nothing happens if it is available.
+   *
+   * @param cave the dense cave id
+   */
+  public void include(int cave) {
+    if (!isAvailable(cave)) {
+      swap(positions[cave], numOfAvailable++);
+    }
+  }
+
+  /**
+   * Check if a cave can be drawn.
+   *
+   * @param cave the dense cave id
+   * @return true if the cave is available
+   */
+  public boolean isAvailable(int cave) {
+    return positions[cave] < numOfAvailable;
+  }
+
+  /**
+   * Get the number of caves which can be drawn.
+   *
+   * @return the number of available caves
+   */
+  public int getNumOfAvailable() {
+    return numOfAvailable;
+  }
+
+  private void swap(int i, int j) {
+    int caveI = caves[i];
+    int caveJ = caves[j];
+    caves[i] = caveJ;
+    caves[j] = caveI;
+    positions[caveJ] = i;
+    positions[caveI] = j;
+  }
+}
@@ -12,23 +12,33 @@ import java.util.Set;
  * blood, and draft. 
  * Updated: 1.adding isVisited flag to update Image Panel
  * 2.GetImage method for view to access the right component icons.
+ * 3.the status flags are packed into one flag byte, stored in a flag array
+ * which the cells of a maze share, so a status check is one load and a maze can
+ * scan all of its flags on a primitive array.
  * 
  * @author Daniel Zhou
  */
 public class Cell {
+  public static final int CAVE = 1; // True if the cell is a Cave. False if a Tunnel
+  public static final int PIT = 1 << 1; // True if the cave contains a pit
+  public static final int BAT = 1 << 2; // True if the cave contains a "super bat"
+  public static final int WUMPUS = 1 << 3; // True if the cave contains the Wumpus
+  public static final int BLOOD = 1 << 4; // True if the cave next to Wumpus
+  public static final int DRAFT = 1 << 5; // True if the cave next to pit
+  public static final int VISITED = 1 << 6; // True if the cell is visited
+
+  public static final int HAZARD = PIT | BAT | WUMPUS; // what ends or changes a move
+  public static final int SENSED = BLOOD | DRAFT; // what the hunter can smell or feel
+  public static final int ELEMENT = HAZARD | SENSED; // what the view draws on a cell
+
   private int x;
   private int y;
   private int index;
   private Set<Cell> neighouberCellsSet;
   private Set<Cell> leadToCavesSet;
 
-  private boolean isCave; // True if the cell is a Cave. False if a Tunnel
-  private boolean pit; // True if the cave contains a pit
-  private boolean bat; // True if the cave contains a "super bat"
-  private boolean wumpus; // True if the cave contains the Wumpus
-  private boolean blood; // True if the cave next to Wumpus
-  private boolean draft; // True if the cave next to pit
-  private boolean isVisited; // True if the cell is visited
+  private final byte[] flags; // status flags, shared with the other cells of a maze
+  private final int flagIndex; // the slot of this cell in flags
 
   /**
    * Construct the Cell object given the x coordinate and y coordinate.
@@ -38,6 +48,20 @@ public class Cell {
    * @throws IllegalArgumentException if either coordinate is invalid
    */
   public Cell(int x, int y) throws IllegalArgumentException {
+    this(x, y, new byte[1], 0);
+  }
+
+  /**
+   * Construct the Cell object whose status flags are stored in a flag array of
+   * the maze, shared with the other cells.
+   * 
+   * @param x         x coordinate of this cell
+   * @param y         y coordinate of this cell
+   * @param flags     the flag array of the maze
+   * @param flagIndex the slot of this cell in the flag array
+   * @throws IllegalArgumentException if either coordinate is invalid
+   */
+  Cell(int x, int y, byte[] flags, int flagIndex) throws IllegalArgumentException {
     if (x < 0 || y < 0) {
       throw new IllegalArgumentException("invalid position for a Cell");
     }
@@ -45,6 +69,8 @@ public class Cell {
     this.y = y;
     this.neighouberCellsSet = new HashSet<>();
     this.leadToCavesSet = new HashSet<>();
+    this.flags = flags;
+    this.flagIndex = flagIndex;
   }
 
   /**
@@ -84,7 +110,7 @@ public class Cell {
    * @return the isCave Cave flag
    */
   public boolean isCave() {
-    return isCave;
+    return (flags[flagIndex] & CAVE) != 0;
   }
 
   /**
@@ -92,7 +118,7 @@ public class Cell {
    * @param isCave the isCave to set
    */
   public void setCave(boolean isCave) {
-    this.isCave = isCave;
+    setFlags(CAVE, isCave);
   }
 
   /**
@@ -132,7 +158,7 @@ public class Cell {
    * @return the pit pit status
    */
   public boolean isPit() {
-    return pit;
+    return (flags[flagIndex] & PIT) != 0;
   }
 
   /**
@@ -140,7 +166,7 @@ public class Cell {
    * @param pit the pit to set
    */
   public void setPit(boolean pit) {
-    this.pit = pit;
+    setFlags(PIT, pit);
   }
 
   /**
@@ -148,7 +174,7 @@ public class Cell {
    * @return the bat bat status
    */
   public boolean isBat() {
-    return bat;
+    return (flags[flagIndex] & BAT) != 0;
   }
 
   /**
@@ -156,7 +182,7 @@ public class Cell {
    * @param bat the bat to set
    */
   public void setBat(boolean bat) {
-    this.bat = bat;
+    setFlags(BAT, bat);
   }
 
   /**
@@ -164,7 +190,7 @@ public class Cell {
    * @return the wumpus wumpus status
    */
   public boolean isWumpus() {
-    return wumpus;
+    return (flags[flagIndex] & WUMPUS) != 0;
   }
 
   /**
@@ -172,7 +198,7 @@ public class Cell {
    * @param wumpus the wumpus to set
    */
   public void setWumpus(boolean wumpus) {
-    this.wumpus = wumpus;
+    setFlags(WUMPUS, wumpus);
   }
 
   /**
@@ -180,7 +206,7 @@ public class Cell {
    * @return the blood blood status
    */
   public boolean isBlood() {
-    return blood;
+    return (flags[flagIndex] & BLOOD) != 0;
   }
 
   /**
@@ -188,7 +214,7 @@ public class Cell {
    * @param blood the blood to set
    */
   public void setBlood(boolean blood) {
-    this.blood = blood;
+    setFlags(BLOOD, blood);
   }
 
   /**
@@ -196,7 +222,7 @@ public class Cell {
    * @return the draft draft status
    */
   public boolean isDraft() {
-    return draft;
+    return (flags[flagIndex] & DRAFT) != 0;
   }
 
   /**
@@ -204,7 +230,7 @@ public class Cell {
    * @param draft the draft to set
    */
   public void setDraft(boolean draft) {
-    this.draft = draft;
+    setFlags(DRAFT, draft);
   }
 
 
@@ -213,7 +239,7 @@ public class Cell {
    * @return the isVisited
    */
   public boolean isVisited() {
-    return isVisited;
+    return (flags[flagIndex] & VISITED) != 0;
   }
 
   /**
@@ -221,12 +247,89 @@ public class Cell {
    * @param isVisited the isVisited to set
    */
   public void setVisited(boolean isVisited) {
-    this.isVisited = isVisited;
+    setFlags(VISITED, isVisited);
   }
   
+  /**
+   * Get the packed status flags of this cell.
+   * @return the flags of this cell
+   */
+  public int getFlags() {
+    return flags[flagIndex];
+  }
+
+  /**
+   * Check if this cell has any of the given flags.
+   * @param mask the flags to check
+   * @return true if any flag in mask is set
+   */
+  public boolean hasAnyFlag(int mask) {
+    return (flags[flagIndex] & mask) != 0;
+  }
+
+  /**
+   * Set or clear the given flags of this cell.
+   * @param mask  the flags to change
+   * @param value true to set, false to clear
+   */
+  public void setFlags(int mask, boolean value) {
+    if (value) {
+      flags[flagIndex] |= mask;
+    } else {
+      flags[flagIndex] &= ~mask;
+    }
+  }
+
+  /**
+   * Check if this cell contains a pit, a super bat or the Wumpus.
+   * @return true if the cell has any hazard
+   */
+  public boolean hasAnyHazard() {
+    return (flags[flagIndex] & HAZARD) != 0;
+  }
+
+  /**
+   * Get the blood and draft flags of this cell.
+   * @return the sensed flags, 0 if nothing can be sensed
+   */
+  public int getSensedFlags() {
+    return flags[flagIndex] & SENSED;
+  }
+
+  /**
+   * Get the element the view draws on this cell, the Wumpus first, then pit,
+   * blood, draft and super bat.
+   * @return the flag of the element, 0 if there is none
+   */
+  public int getElementFlag() {
+    return getElementFlag(flags[flagIndex]);
+  }
+
+  /**
+   * Get the element the view draws on a cell with the given flags.
+   * @param flags the flags of a cell
+   * @return the flag of the element, 0 if there is none
+   */
+  public static int getElementFlag(int flags) {
+    int elements = flags & ELEMENT;
+    if (elements == 0) {
+      return 0;
+    }
+    if ((elements & WUMPUS) != 0) {
+      return WUMPUS;
+    }
+    if ((elements & PIT) != 0) {
+      return PIT;
+    }
+    if ((elements & BLOOD) != 0) {
+      return BLOOD;
+    }
+    return (elements & DRAFT) != 0 ? DRAFT : BAT;
+  }
+
   @Override
   public String toString() {
-    if (this.isCave) {
+    if (this.isCave()) {
       return String.format("Cave %d", this.getIndex());
     } else {
       return String.format("Tunnel %d", this.getIndex());
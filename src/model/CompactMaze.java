@@ -0,0 +1,493 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * This class represents a compact Room Maze which keeps all of its state in flat
+ * primitive arrays instead of Cell objects. Walls are stored as 2 bits per cell
+ * (wall to the south, wall to the east) packed into longs, hazard and visited
+ * status are packed into one flag byte per cell, and the caves each cave leads
+ * to are stored in CSR form: caveCells holds the sorted cell indices of all
+ * caves, and the caves reached through the tunnels leaving the i-th cave are
+ * caveTargets[caveOffsets[i]] to caveTargets[caveOffsets[i + 1] - 1] in N, E,
+ * S, W order. A neighbour which is a cave itself is read from the wall bits and
+ * not stored. All cell indices used in this class
+ * are 0-based row-major (row * columns + col), while Cell.getIndex() stays
+ * 1-based.
+ *
+ * <p>getGameMap() is an adapter for callers which still need Cell objects: it
+ * builds them on first use, sharing the flag array of this maze. The Game, the
+ * CaveGraph and the view only read the flag array and the wall bits, so a game
+ * on this maze never builds them.
+ *
+ * @author Daniel Zhou
+ */
+public class CompactMaze implements Maze {
+  public static final int CAVE = Cell.CAVE;
+  public static final int PIT = Cell.PIT;
+  public static final int BAT = Cell.BAT;
+  public static final int WUMPUS = Cell.WUMPUS;
+  public static final int BLOOD = Cell.BLOOD;
+  public static final int DRAFT = Cell.DRAFT;
+  public static final int VISITED = Cell.VISITED;
+
+  private static final int WALL_SOUTH = 1;
+  private static final int WALL_EAST = 2;
+
+  private int rows;
+  private int columns;
+  private int numOfRemainingWalls;
+  private MazeTopology topology;
+  private long[] walls;
+  private byte[] flags;
+  private int[] caveCells;
+  private int[] caveOffsets;
+  private int[] caveTargets;
+  private Cell[][] gameMap;
+
+  /**
+   * This class constructs a compact Room maze where number remaining walls is
+   * specified.
+   *
+   * @param rows                total rows of this maze
+   * @param columns             total columns of this maze
+   * @param numOfRemainingWalls the number of remaining walls after construction
+   * @param seedKruskal         the seed of the wall generation
+   * @throws IllegalArgumentException if attributes are invalid
+   */
+  public CompactMaze(int rows, int columns, int numOfRemainingWalls, long seedKruskal)
+      throws IllegalArgumentException {
+    this(rows, columns, numOfRemainingWalls, seedKruskal, false);
+  }
+
+  /**
+   * This class constructs a compact Room maze where number remaining walls is
+   * specified.
+   *
+   * @param rows                total rows of this maze
+   * @param columns             total columns of this maze
+   * @param numOfRemainingWalls the number of remaining walls after construction
+   * @param seedKruskal         the seed of the wall generation
+   * @param isTiled             true to generate the walls tile by tile in parallel
+   * @throws IllegalArgumentException if attributes are invalid
+   */
+  public CompactMaze(int rows, int columns, int numOfRemainingWalls, long seedKruskal,
+      boolean isTiled) throws IllegalArgumentException {
+    this(MazeTopology.generate(rows, columns, numOfRemainingWalls, seedKruskal,
+        isTiled ? MazeTopology.Type.TILED_ROOM : MazeTopology.Type.ROOM));
+  }
+
+  /**
+   * This class constructs a compact Room maze from a generated topology, the
+   * wall bits of the topology are shared and not copied.
+   *
+   * @param topology the wall layout of a room maze
+   * @throws IllegalArgumentException if the topology is not a room topology
+   */
+  public CompactMaze(MazeTopology topology) throws IllegalArgumentException {
+    if (topology.getType() == MazeTopology.Type.WRAPPING) {
+      throw new IllegalArgumentException("invalid topology! Should be a room topology");
+    }
+    this.rows = topology.getRows();
+    this.columns = topology.getColumns();
+    this.numOfRemainingWalls = topology.getNumOfRemainingWalls();
+    this.topology = topology;
+    initialize();
+  }
+
+  /**
+   * Initialize a compact room maze in Kruskal algorithm.
+   */
+  @Override
+  public void initialize() {
+    walls = topology.getWalls();
+    flags = new byte[rows * columns];
+    gameMap = null;
+    setCave();
+    setLeadToCaves();
+  }
+
+  /**
+   * Flag the cells with other than 2 open sides as Cave, count the caves.
+   */
+  private void setCave() {
+    int numOfCaves = 0;
+    for (int cell = 0; cell < flags.length; cell++) {
+      if (getNumOfNeighbours(cell) != 2) {
+        flags[cell] |= CAVE;
+        numOfCaves++;
+      }
+    }
+    caveCells = new int[numOfCaves];
+    caveOffsets = new int[numOfCaves + 1];
+    int cave = 0;
+    for (int cell = 0; cell < flags.length; cell++) {
+      if ((flags[cell] & CAVE) != 0) {
+        caveCells[cave] = cell;
+        cave++;
+      }
+    }
+    // count the tunnels leaving every cave once all caves are flagged
+    int[] neighbours = new int[4];
+    for (cave = 0; cave < numOfCaves; cave++) {
+      int count = getNeighbours(caveCells[cave], neighbours);
+      caveOffsets[cave + 1] = caveOffsets[cave];
+      for (int i = 0; i < count; i++) {
+        if ((flags[neighbours[i]] & CAVE) == 0) {
+          caveOffsets[cave + 1]++;
+        }
+      }
+    }
+  }
+
+  /**
+   * Fill the CSR lead-to caves by walking every tunnel leaving each cave.
+   */
+  private void setLeadToCaves() {
+    caveTargets = new int[caveOffsets[caveCells.length]];
+    int[] neighbours = new int[4];
+    for (int cave = 0; cave < caveCells.length; cave++) {
+      int cell = caveCells[cave];
+      int count = getNeighbours(cell, neighbours);
+      int target = caveOffsets[cave];
+      for (int i = 0; i < count; i++) {
+        if ((flags[neighbours[i]] & CAVE) == 0) {
+          caveTargets[target++] = followTunnel(cell, neighbours[i]);
+        }
+      }
+    }
+  }
+
+  /**
+   * Walk from a cell into a neighbour until a cave is reached.
+   *
+   * @param from the cell the walk starts
+   * @param next the neighbour to walk into
+   * @return the cell index of the cave reached
+   */
+  private int followTunnel(int from, int next) {
+    int previous = from;
+    int current = next;
+    // stop at a cave, or back at the start on a loop of tunnels
+    while ((flags[current] & CAVE) == 0 && current != from) {
+      int following = otherNeighbour(current, previous);
+      previous = current;
+      current = following;
+    }
+    return current;
+  }
+
+  /**
+   * Get the open neighbour of a tunnel cell which is not the given cell.
+   */
+  private int otherNeighbour(int cell, int notThis) {
+    int row = cell / columns;
+    int col = cell % columns;
+    if (row > 0 && !hasWall(cell - columns, WALL_SOUTH) && cell - columns != notThis) {
+      return cell - columns;
+    }
+    if (col < columns - 1 && !hasWall(cell, WALL_EAST) && cell + 1 != notThis) {
+      return cell + 1;
+    }
+    if (row < rows - 1 && !hasWall(cell, WALL_SOUTH) && cell + columns != notThis) {
+      return cell + columns;
+    }
+    if (col > 0 && !hasWall(cell - 1, WALL_EAST) && cell - 1 != notThis) {
+      return cell - 1;
+    }
+    return -1;
+  }
+
+  private boolean hasWall(int cell, int wall) {
+    return ((walls[cell >>> 5] >>> ((cell & 31) << 1)) & wall) != 0;
+  }
+
+  /**
+   * Get the open neighbours of a cell in N, E, S, W order.
+   *
+   * @param cell       the 0-based cell index
+   * @param neighbours array of at least 4 slots receiving the neighbours
+   * @return the number of neighbours written
+   */
+  public int getNeighbours(int cell, int[] neighbours) {
+    int row = cell / columns;
+    int col = cell % columns;
+    int count = 0;
+    if (row > 0 && !hasWall(cell - columns, WALL_SOUTH)) {
+      neighbours[count++] = cell - columns;
+    }
+    if (col < columns - 1 && !hasWall(cell, WALL_EAST)) {
+      neighbours[count++] = cell + 1;
+    }
+    if (row < rows - 1 && !hasWall(cell, WALL_SOUTH)) {
+      neighbours[count++] = cell + columns;
+    }
+    if (col > 0 && !hasWall(cell - 1, WALL_EAST)) {
+      neighbours[count++] = cell - 1;
+    }
+    return count;
+  }
+
+  /**
+   * Get the open sides of a cell, bit 1 << direction of CaveGraph.
+   *
+   * @param cell the 0-based cell index
+   * @return the mask of open sides
+   */
+  public int getOpenSides(int cell) {
+    int row = cell / columns;
+    int col = cell % columns;
+    int openSides = 0;
+    if (row > 0 && !hasWall(cell - columns, WALL_SOUTH)) {
+      openSides |= 1 << CaveGraph.NORTH;
+    }
+    if (col < columns - 1 && !hasWall(cell, WALL_EAST)) {
+      openSides |= 1 << CaveGraph.EAST;
+    }
+    if (row < rows - 1 && !hasWall(cell, WALL_SOUTH)) {
+      openSides |= 1 << CaveGraph.SOUTH;
+    }
+    if (col > 0 && !hasWall(cell - 1, WALL_EAST)) {
+      openSides |= 1 << CaveGraph.WEST;
+    }
+    return openSides;
+  }
+
+  private int getNumOfNeighbours(int cell) {
+    return Integer.bitCount(getOpenSides(cell));
+  }
+
+  /**
+   * Get the dense cave id of a cell.
+   *
+   * @param cell the 0-based cell index
+   * @return the cave id, or a negative value if the cell is a tunnel
+   */
+  public int getCaveId(int cell) {
+    return Arrays.binarySearch(caveCells, cell);
+  }
+
+  /**
+   * Get the number of caves in this maze.
+   *
+   * @return the number of caves
+   */
+  public int getNumOfCaves() {
+    return caveCells.length;
+  }
+
+  /**
+   * Get the cell index of a cave.
+   *
+   * @param caveId the dense cave id
+   * @return the 0-based cell index
+   */
+  public int getCaveCell(int caveId) {
+    return caveCells[caveId];
+  }
+
+  /**
+   * Get the caves a cave leads to.
+   *
+   * @param caveId  the dense cave id
+   * @param leadTos array of at least 4 slots receiving the cell indices
+   * @return the number of caves written
+   */
+  public int getLeadToCaves(int caveId, int[] leadTos) {
+    int count = getNeighbours(caveCells[caveId], leadTos);
+    int target = caveOffsets[caveId];
+    for (int i = 0; i < count; i++) {
+      if ((flags[leadTos[i]] & CAVE) == 0) {
+        leadTos[i] = caveTargets[target++];
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Get the caves a cell leads to, tunnels are followed in both directions.
+   *
+   * @param cell    the 0-based cell index
+   * @param leadTos array of at least 4 slots receiving the cell indices
+   * @return the number of caves written
+   */
+  public int getLeadToCavesOfCell(int cell, int[] leadTos) {
+    int caveId = getCaveId(cell);
+    if (caveId >= 0) {
+      return getLeadToCaves(caveId, leadTos);
+    }
+    int count = getNeighbours(cell, leadTos);
+    for (int i = 0; i < count; i++) {
+      leadTos[i] = followTunnel(cell, leadTos[i]);
+    }
+    return count;
+  }
+
+  /**
+   * Get the flag byte of a cell.
+   *
+   * @param cell the 0-based cell index
+   * @return the flags of this cell
+   */
+  public int getFlags(int cell) {
+    return flags[cell];
+  }
+
+  /**
+   * Check if a cell has any of the given flags.
+   *
+   * @param cell the 0-based cell index
+   * @param mask the flags to check
+   * @return true if any flag in mask is set
+   */
+  public boolean hasFlag(int cell, int mask) {
+    return (flags[cell] & mask) != 0;
+  }
+
+  /**
+   * Set or clear flags of a cell.
+   *
+   * @param cell  the 0-based cell index
+   * @param mask  the flags to change
+   * @param value true to set, false to clear
+   */
+  public void setFlag(int cell, int mask, boolean value) {
+    if (value) {
+      flags[cell] |= mask;
+    } else {
+      flags[cell] &= ~mask;
+    }
+  }
+
+  /**
+   * Get the packed status flags of all cells in row-major order, shared with the
+   * cells of the gameMap.
+   *
+   * @return the flag array
+   */
+  @Override
+  public byte[] getCellFlags() {
+    return flags;
+  }
+
+  /**
+   * Get the number of bytes held by the flat arrays of this maze.
+   *
+   * @return the approximate memory footprint in bytes
+   */
+  public long getMemoryFootprint() {
+    return 8L * walls.length + flags.length
+        + 4L * (caveCells.length + caveOffsets.length + caveTargets.length);
+  }
+
+  /**
+   * Get the wall layout this maze was built from.
+   *
+   * @return the topology
+   */
+  public MazeTopology getTopology() {
+    return topology;
+  }
+
+  /**
+   * Get the total rows of this maze.
+   *
+   * @return the rows
+   */
+  public int getRows() {
+    return rows;
+  }
+
+  /**
+   * Get the total columns of this maze.
+   *
+   * @return the columns
+   */
+  public int getColumns() {
+    return columns;
+  }
+
+  /**
+   * Build the remaining walls from the wall bits.
+   *
+   * @return the list of remaining walls
+   */
+  @Override
+  public List<Wall> getRemainingWallList() {
+    Cell[][] map = getGameMap();
+    List<Wall> remainingWallList = new ArrayList<>(numOfRemainingWalls);
+    for (int row = 0; row < rows; row++) {
+      for (int col = 0; col < columns; col++) {
+        int cell = row * columns + col;
+        if (row < rows - 1 && hasWall(cell, WALL_SOUTH)) {
+          remainingWallList.add(new Wall(map[row][col], map[row + 1][col]));
+        }
+        if (col < columns - 1 && hasWall(cell, WALL_EAST)) {
+          remainingWallList.add(new Wall(map[row][col], map[row][col + 1]));
+        }
+      }
+    }
+    return remainingWallList;
+  }
+
+  /**
+   * Get the 2D array gameMap, Cells are built on the first call. The status
+   * flags of every Cell are stored in the flag array of this maze.
+   *
+   * @return the gameMap the 2D array gameMap
+   */
+  @Override
+  public Cell[][] getGameMap() {
+    if (gameMap == null) {
+      gameMap = new Cell[rows][columns];
+      for (int row = 0; row < rows; row++) {
+        for (int col = 0; col < columns; col++) {
+          Cell cell = new Cell(row, col, flags, row * columns + col);
+          cell.setIndex(row * columns + col + 1);
+          gameMap[row][col] = cell;
+        }
+      }
+      int[] cells = new int[4];
+      for (int cell = 0; cell < flags.length; cell++) {
+        Cell current = gameMap[cell / columns][cell % columns];
+        int count = getNeighbours(cell, cells);
+        for (int i = 0; i < count; i++) {
+          current.getNeighouberCellsSet().add(gameMap[cells[i] / columns][cells[i] % columns]);
+        }
+        count = getLeadToCavesOfCell(cell, cells);
+        for (int i = 0; i < count; i++) {
+          current.getLeadToCavesSet().add(gameMap[cells[i] / columns][cells[i] % columns]);
+        }
+      }
+    }
+    return gameMap;
+  }
+
+  /**
+   * Print the Maze with its cells information. Verification purpose.
+   */
+  @Override
+  public void printMaze() {
+    Cell[][] map = getGameMap();
+    for (int row = 0; row < rows; row++) {
+      for (int col = 0; col < columns; col++) {
+        System.out.println(map[row][col] + " Connected: "
+            + map[row][col].getNeighouberCellsSet() + " Leads to:"
+            + map[row][col].getLeadToCavesSet() + map[row][col].isCave());
+        System.out.println("*****");
+      }
+    }
+  }
+
+  /**
+   * This methods will set all cells as visited.
+   */
+  @Override
+  public void revealGameMap() {
+    for (int cell = 0; cell < flags.length; cell++) {
+      flags[cell] |= VISITED;
+    }
+  }
+}
@@ -3,101 +3,138 @@ package model;
 import java.util.Arrays;
 
 /**
- * This class is implemented to represent Disjoint Set Data Structure.
- * 
+ * This class is implemented to represent Disjoint Set Data Structure. Every
+ * position of the grid is represented by its row-major index (columns * x + y),
+ * parents and set sizes share one primitive int array (a root stores the
+ * negated size of its set) so that no object is allocated per position. find
+ * uses iterative path halving and union is done by size, which keeps the trees
+ * shallow for large grids.
+ *
  * @author Daniel Zhou
  */
 public class DisjointSets {
   private int rows;
   private int columns;
-  private int[] rank;
-  private Cell[] parent;
+  private int[] parent; // parent index, or -(set size) for a root
+  private int numOfSets;
 
   /**
    * construct a disjoint set.
-   * 
+   *
    * @param rows total rows of this disjoint sets
    * @param columns total columns of this disjoint sets
    */
   public DisjointSets(int rows, int columns) {
     this.rows = rows;
     this.columns = columns;
-    int size = rows * columns;
-    this.rank = new int[size];
-    this.parent = new Cell[size];
+    int total = rows * columns;
+    this.parent = new int[total];
     buildSet();
   }
 
   private void buildSet() {
-    for (int i = 0; i < rows; i++) {
-      for (int j = 0; j < columns; j++) {
-        int index = columns * i + j;
-        Cell p = new Cell(i, j);
-        parent[index] = p;
-      }
-    }
+    Arrays.fill(parent, -1);
+    numOfSets = parent.length;
   }
 
   /**
-   * find method recursively traverses the parent array until hit a node who is
-   * parent of itself.
-   * 
-   * @param cell the target Cell.
-   * @return the set contains target node
+   * find method traverses the parent array until hit a node who is parent of
+   * itself, halving the path on the way.
+   *
+   * @param index the row-major index of the target position.
+   * @return the index of the representative of the set contains target node
    */
-  public Cell find(Cell cell) {
-    int index = columns * cell.getX() + cell.getY();
-    // If i is the parent of itself
-    if (parent[index] == cell) {
-      return cell;
-    } else {
-      // Recursively find the representative.
-      Cell result = find(parent[index]);
-      parent[index] = result;
-      return result;
+  public int find(int index) {
+    while (parent[index] >= 0) {
+      int next = parent[index];
+      if (parent[next] < 0) {
+        return next;
+      }
+      // point to grandparent, halving the path
+      parent[index] = parent[next];
+      index = parent[next];
     }
+    return index;
   }
 
   /**
    * Union two sets containing target i and target j.
-   * 
-   * @param i value at first set
-   * @param j value at second set
+   *
+   * @param i index at first set
+   * @param j index at second set
+   * @return true if two different sets were merged, false if already connected
    */
-  public void union(Cell i, Cell j) {
-    Cell irep = find(i);
-    Cell jrep = find(j);
-    int iIdx = columns * i.getX() + i.getY();
-    int jIdx = columns * j.getX() + j.getY();
-    int irank = rank[iIdx];
-    int jrank = rank[jIdx];
+  public boolean union(int i, int j) {
+    int irep = find(i);
+    int jrep = find(j);
     // if belongs same set, no union
-    if (irep.equals(jrep)) {
-      return;
-    }
-    // union i to j set
-    if (irank < jrank) {
-      this.parent[iIdx] = jrep;
+    if (irep == jrep) {
+      return false;
     }
-    // else union j to i set
-    else if (irank > jrank) {
-      this.parent[jIdx] = irep;
-    }
-    // same rank, union j to i and update rank of i
-    else {
-      this.parent[jIdx] = irep;
-      rank[iIdx]++;
+    // attach the smaller tree below the larger one
+    if (parent[irep] > parent[jrep]) {
+      parent[jrep] += parent[irep];
+      parent[irep] = jrep;
+    } else {
+      parent[irep] += parent[jrep];
+      parent[jrep] = irep;
     }
+    numOfSets--;
+    return true;
   }
 
   /**
    * Find if two nodes are connected.
-   * 
-   * @param i value at first set
-   * @param j value at second set
+   *
+   * @param i index at first set
+   * @param j index at second set
+   */
+  public boolean isConnected(int i, int j) {
+    return find(i) == find(j);
+  }
+
+  /**
+   * Get the number of disjoint sets left.
+   *
+   * @return the number of sets
+   */
+  public int getNumOfSets() {
+    return numOfSets;
+  }
+
+  /**
+   * find the representative for the given cell.
+   *
+   * @param cell the target Cell.
+   * @return a Cell positioned at the representative of the set
+   */
+  public Cell find(Cell cell) {
+    int root = find(indexOf(cell));
+    return new Cell(root / columns, root % columns);
+  }
+
+  /**
+   * Union two sets containing target cell i and target cell j.
+   *
+   * @param i cell at first set
+   * @param j cell at second set
+   */
+  public void union(Cell i, Cell j) {
+    union(indexOf(i), indexOf(j));
+  }
+
+  /**
+   * Find if two cells are connected.
+   *
+   * @param i cell at first set
+   * @param j cell at second set
    */
   public boolean isConnected(Cell i, Cell j) {
-    return this.find(i) == this.find(j);
+    return isConnected(indexOf(i), indexOf(j));
+  }
+
+  private int indexOf(Cell cell) {
+    return columns * cell.getX() + cell.getY();
   }
 
   @Override
@@ -0,0 +1,342 @@
+package model;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * This class represents a Room Maze generated row by row with Eller's
+ * algorithm. generate() streams every row to a RowConsumer as soon as it is
+ * decided, keeping only O(columns) state, so the memory used for generation
+ * does not depend on the number of rows. Each row is handed over as one wall
+ * byte per cell: WALL_SOUTH if the wall below the cell stands, WALL_EAST if the
+ * wall on its right stands. Outer borders are never reported.
+ *
+ * <p>Eller's algorithm builds a perfect maze, which leaves exactly
+ * (rows - 1) * (columns - 1) walls. Extra walls are broken by selection
+ * sampling over the walls the algorithm keeps, so exactly numOfRemainingWalls
+ * walls remain, as in RoomMaze.
+ *
+ * <p>The Maze methods build the full grid of Cell objects on first use, like
+ * the other mazes, and are meant for small maps only.
+ *
+ * @author Daniel Zhou
+ */
+public class EllerMaze implements Maze {
+  public static final int WALL_SOUTH = 1;
+  public static final int WALL_EAST = 2;
+
+  private int rows;
+  private int columns;
+  private int numOfRemainingWalls;
+  private long seedEller;
+  private byte[] walls;
+  private Cell[][] gameMap;
+  private byte[] flags;
+
+  /**
+   * Receives the rows of the maze in order.
+   */
+  public interface RowConsumer {
+
+    /**
+     * Accept one row of the maze. The array is reused for the next row.
+     *
+     * @param row   the row index
+     * @param walls one wall byte per column, WALL_SOUTH and WALL_EAST bits
+     */
+    void acceptRow(int row, byte[] walls);
+  }
+
+  /**
+   * This class constructs an Eller maze where number remaining walls is
+   * specified. Nothing is generated until generate() or initialize() is called.
+   *
+   * @param rows                total rows of this maze
+   * @param columns             total columns of this maze
+   * @param numOfRemainingWalls the number of remaining walls after construction
+   * @param seedEller           the seed of the generation
+   * @throws IllegalArgumentException if attributes are invalid
+   */
+  public EllerMaze(int rows, int columns, int numOfRemainingWalls, long seedEller)
+      throws IllegalArgumentException {
+    if (rows < 0 || columns < 0) {
+      throw new IllegalArgumentException("invalid map size! Cannot be negative");
+    }
+    if (numOfRemainingWalls < 0) {
+      throw new IllegalArgumentException("invalid number of walls left! Cannot be negative");
+    }
+    if (numOfRemainingWalls > ((long) (rows - 1) * (columns - 1))) {
+      throw new IllegalArgumentException("invalid number of walls left! "
+          + "should be in range 0 to " + ((long) (rows - 1) * (columns - 1)));
+    }
+    this.rows = rows;
+    this.columns = columns;
+    this.numOfRemainingWalls = numOfRemainingWalls;
+    this.seedEller = seedEller;
+  }
+
+  /**
+   * Generate the maze and stream every row to the consumer. The same seed always
+   * streams the same rows.
+   *
+   * @param consumer the consumer receiving the rows
+   */
+  public void generate(RowConsumer consumer) {
+    if (rows == 0 || columns == 0) {
+      return;
+    }
+    Random rand = new Random(seedEller);
+    int numOfLabels = 2 * columns;
+    int[] label = new int[columns]; // set label of every cell in the current row
+    int[] nextLabel = new int[columns];
+    int[] parent = new int[numOfLabels]; // union-find over the labels of one row
+    int[] members = new int[numOfLabels];
+    boolean[] hasDown = new boolean[numOfLabels];
+    boolean[] isUsed = new boolean[numOfLabels];
+    byte[] rowWalls = new byte[columns];
+    // selection sampling of the extra walls among the kept walls
+    long numOfKeptWalls = (long) (rows - 1) * (columns - 1);
+    long numOfExtraWalls = numOfKeptWalls - numOfRemainingWalls;
+
+    for (int col = 0; col < columns; col++) {
+      label[col] = col;
+    }
+    for (int row = 0; row < rows; row++) {
+      boolean isLastRow = row == rows - 1;
+      for (int i = 0; i < numOfLabels; i++) {
+        parent[i] = i;
+      }
+      // join cells on the right
+      for (int col = 0; col < columns; col++) {
+        rowWalls[col] = 0;
+        if (col == columns - 1) {
+          continue;
+        }
+        int left = findLabel(parent, label[col]);
+        int right = findLabel(parent, label[col + 1]);
+        if (left != right && (isLastRow || rand.nextBoolean())) {
+          parent[right] = left;
+        } else if (rand.nextDouble() * numOfKeptWalls-- < numOfExtraWalls) {
+          numOfExtraWalls--;
+        } else {
+          rowWalls[col] |= WALL_EAST;
+        }
+      }
+      if (!isLastRow) {
+        // every set needs at least one cell open to the next row
+        for (int i = 0; i < numOfLabels; i++) {
+          members[i] = 0;
+          hasDown[i] = false;
+          isUsed[i] = false;
+        }
+        for (int col = 0; col < columns; col++) {
+          label[col] = findLabel(parent, label[col]);
+          members[label[col]]++;
+        }
+        for (int col = 0; col < columns; col++) {
+          int set = label[col];
+          members[set]--;
+          if (rand.nextBoolean() || (members[set] == 0 && !hasDown[set])) {
+            hasDown[set] = true;
+            isUsed[set] = true;
+            nextLabel[col] = set;
+          } else {
+            nextLabel[col] = -1;
+            if (rand.nextDouble() * numOfKeptWalls-- < numOfExtraWalls) {
+              numOfExtraWalls--;
+            } else {
+              rowWalls[col] |= WALL_SOUTH;
+            }
+          }
+        }
+        // cells closed to the row above start a new set
+        int fresh = 0;
+        for (int col = 0; col < columns; col++) {
+          if (nextLabel[col] == -1) {
+            while (isUsed[fresh]) {
+              fresh++;
+            }
+            isUsed[fresh] = true;
+            nextLabel[col] = fresh;
+          }
+        }
+        int[] swap = label;
+        label = nextLabel;
+        nextLabel = swap;
+      }
+      consumer.acceptRow(row, rowWalls);
+    }
+  }
+
+  private static int findLabel(int[] parent, int label) {
+    while (parent[label] != label) {
+      parent[label] = parent[parent[label]];
+      label = parent[label];
+    }
+    return label;
+  }
+
+  /**
+   * Generate the maze and write it as text, one line per row and one digit per
+   * cell holding its WALL_SOUTH and WALL_EAST bits.
+   *
+   * @param writer the writer receiving the maze
+   * @throws IOException if the writer fails
+   */
+  public void writeTo(Writer writer) throws IOException {
+    char[] line = new char[columns + 1];
+    line[columns] = '\n';
+    try {
+      generate((row, rowWalls) -> {
+        for (int col = 0; col < columns; col++) {
+          line[col] = (char) ('0' + rowWalls[col]);
+        }
+        try {
+          writer.write(line);
+        } catch (IOException e) {
+          throw new IllegalStateException(e);
+        }
+      });
+    } catch (IllegalStateException e) {
+      if (e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
+      }
+      throw e;
+    }
+    writer.flush();
+  }
+
+  /**
+   * Generate the whole maze into Cell objects.
+   */
+  @Override
+  public void initialize() {
+    walls = new byte[rows * columns];
+    gameMap = new Cell[rows][columns];
+    flags = new byte[rows * columns];
+    for (int row = 0; row < rows; row++) {
+      for (int col = 0; col < columns; col++) {
+        Cell cell = new Cell(row, col, flags, row * columns + col);
+        cell.setIndex(row * columns + col + 1);
+        gameMap[row][col] = cell;
+      }
+    }
+    generate((row, rowWalls) -> {
+      System.arraycopy(rowWalls, 0, walls, row * columns, columns);
+      for (int col = 0; col < columns; col++) {
+        if (row < rows - 1 && (rowWalls[col] & WALL_SOUTH) == 0) {
+          connect(gameMap[row][col], gameMap[row + 1][col]);
+        }
+        if (col < columns - 1 && (rowWalls[col] & WALL_EAST) == 0) {
+          connect(gameMap[row][col], gameMap[row][col + 1]);
+        }
+      }
+    });
+    setCave();
+    setLeadToCavesSet();
+  }
+
+  private void connect(Cell cellOne, Cell cellTwo) {
+    cellOne.getNeighouberCellsSet().add(cellTwo);
+    cellTwo.getNeighouberCellsSet().add(cellOne);
+  }
+
+  /**
+   * Set the cells in the Maze to Cave when it is not bi-direction tunnel,
+   * otherwise Tunnel when bridging access have 2 connections.
+   */
+  private void setCave() {
+    for (int row = 0; row < rows; row++) {
+      for (int col = 0; col < columns; col++) {
+        Cell targetCell = gameMap[row][col];
+        targetCell.setCave(targetCell.getNeighouberCellsSet().size() != 2);
+      }
+    }
+  }
+
+  /**
+   * Set leadToCavesSet into each cells stored in the gameMap, each tunnel chain
+   * is contracted once.
+   */
+  private void setLeadToCavesSet() {
+    TunnelContraction.setLeadToCavesSet(gameMap);
+  }
+
+  /**
+   * Get the remaining walls, the maze is generated on the first call.
+   *
+   * @return the list of remaining walls
+   */
+  @Override
+  public List<Wall> getRemainingWallList() {
+    Cell[][] map = getGameMap();
+    List<Wall> remainingWallList = new ArrayList<>(numOfRemainingWalls);
+    for (int row = 0; row < rows; row++) {
+      for (int col = 0; col < columns; col++) {
+        int wall = walls[row * columns + col];
+        if ((wall & WALL_SOUTH) != 0) {
+          remainingWallList.add(new Wall(map[row][col], map[row + 1][col]));
+        }
+        if ((wall & WALL_EAST) != 0) {
+          remainingWallList.add(new Wall(map[row][col], map[row][col + 1]));
+        }
+      }
+    }
+    return remainingWallList;
+  }
+
+  /**
+   * Get the 2D array gameMap, the maze is generated on the first call.
+   *
+   * @return the gameMap the 2D array gameMap
+   */
+  @Override
+  public Cell[][] getGameMap() {
+    if (gameMap == null) {
+      initialize();
+    }
+    return gameMap;
+  }
+
+  /**
+   * Print the Maze with its cells information. Verification purpose.
+   */
+  @Override
+  public void printMaze() {
+    Cell[][] map = getGameMap();
+    for (int row = 0; row < rows; row++) {
+      for (int col = 0; col < columns; col++) {
+        System.out.println(map[row][col] + " Connected: "
+            + map[row][col].getNeighouberCellsSet() + " Leads to:"
+            + map[row][col].getLeadToCavesSet() + map[row][col].isCave());
+        System.out.println("*****");
+      }
+    }
+  }
+
+  /**
+   * Get the packed status flags of all cells in row-major order, shared with the
+   * cells of the gameMap.
+   *
+   * @return the flag array
+   */
+  @Override
+  public byte[] getCellFlags() {
+    getGameMap();
+    return flags;
+  }
+
+  /**
+   * This methods will set all cells as visited.
+   */
+  @Override
+  public void revealGameMap() {
+    getGameMap();
+    for (int cell = 0; cell < flags.length; cell++) {
+      flags[cell] |= Cell.VISITED;
+    }
+  }
+}
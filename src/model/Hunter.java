@@ -6,7 +6,8 @@ import java.awt.Point;
  * This class represents a hunter who has a current Position, and number of
  * arrows to shoot. Hunter can move to any position as the getter and setter are
  * accessible from game class and its position is updated after each moveTo
- * command.
+ * command. The hunter owns its position Points and updates them in place, so a
+ * turn does not allocate new Points.
  * 
  * @author Daniel Zhou
  *
@@ -26,8 +27,8 @@ public class Hunter {
     if (currentPos.x < 0 || currentPos.y < 0) {
       throw new IllegalArgumentException("invalid position for a hunter");
     }
-    this.currentPos = currentPos;
-    this.arrowPos = currentPos;
+    this.currentPos = new Point(currentPos);
+    this.arrowPos = new Point(currentPos);
   }
 
   /**
@@ -45,7 +46,18 @@ public class Hunter {
    * @param currentPos the currentPos to set
    */
   public void setCurrentPos(Point currentPos) {
-    this.currentPos = currentPos;
+    this.currentPos.setLocation(currentPos);
+  }
+
+  /**
+   * Set the current position of this Hunter in place.
+   * 
+   * @param x the row to set
+   * @param y the column to set
+   */
+  public void setCurrentPos(int x, int y) {
+    this.currentPos.x = x;
+    this.currentPos.y = y;
   }
 
   /**
@@ -87,6 +99,17 @@ public class Hunter {
    * @param arrowPos the arrowPos to set
    */
   public void setArrowPos(Point arrowPos) {
-    this.arrowPos = arrowPos;
+    this.arrowPos.setLocation(arrowPos);
+  }
+
+  /**
+   * Set the arrow Position of this Hunter in place.
+   * 
+   * @param x the row to set
+   * @param y the column to set
+   */
+  public void setArrowPos(int x, int y) {
+    this.arrowPos.x = x;
+    this.arrowPos.y = y;
   }
 }
@@ -0,0 +1,201 @@
+package model;
+
+import java.util.SplittableRandom;
+
+/**
+ * This class represents a Kruskal maze generator working on packed int edge
+ * ids instead of Wall objects. Every inner wall of a rows x columns grid is
+ * encoded as (cellIndex * 2 + side), where cellIndex is the 0-based row-major
+ * index of the upper/left cell and side is SOUTH or EAST. The generator shuffles
+ * all edges once (Fisher-Yates), breaks every edge joining two different sets in
+ * a single linear pass, and then breaks random extra walls until exactly
+ * numOfRemainingWalls walls remain.
+ *
+ * <p>After generate() the edges array is partitioned: the first
+ * getNumOfBrokenWalls() entries are broken walls, the rest are the remaining
+ * walls.
+ *
+ * @author Daniel Zhou
+ */
+public class KruskalGenerator {
+  public static final int SOUTH = 0; // wall between cell and the cell below
+  public static final int EAST = 1; // wall between cell and the cell on the right
+
+  protected final int rows;
+  protected final int columns;
+  protected final int numOfRemainingWalls;
+  protected final SplittableRandom rand;
+  protected int[] edges;
+  protected int numOfBrokenWalls;
+
+  /**
+   * Construct a generator for the given grid.
+   *
+   * @param rows                total rows of the maze
+   * @param columns             total columns of the maze
+   * @param numOfRemainingWalls the number of remaining walls after generation
+   * @param rand                the random source used for the shuffle
+   * @throws IllegalArgumentException if attributes are invalid
+   */
+  public KruskalGenerator(int rows, int columns, int numOfRemainingWalls,
+      SplittableRandom rand) throws IllegalArgumentException {
+    if (rows < 0 || columns < 0) {
+      throw new IllegalArgumentException("invalid map size! Cannot be negative");
+    }
+    if (numOfRemainingWalls < 0) {
+      throw new IllegalArgumentException("invalid number of walls left! Cannot be negative");
+    }
+    this.rows = rows;
+    this.columns = columns;
+    this.numOfRemainingWalls = numOfRemainingWalls;
+    this.rand = rand;
+    this.edges = buildEdges();
+  }
+
+  /**
+   * Encode every inner wall of the grid in row-major order, the same order the
+   * mazes used to build their wall list.
+   */
+  private int[] buildEdges() {
+    int total = Math.max(0, rows * (columns - 1)) + Math.max(0, (rows - 1) * columns);
+    int[] result = new int[total];
+    int count = 0;
+    for (int row = 0; row < rows; row++) {
+      for (int col = 0; col < columns; col++) {
+        int cell = row * columns + col;
+        if (row < rows - 1) {
+          result[count++] = cell * 2 + SOUTH;
+        }
+        if (col < columns - 1) {
+          result[count++] = cell * 2 + EAST;
+        }
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Run the generation, partition edges into broken and remaining walls.
+   */
+  public void generate() {
+    shuffle(edges, 0, edges.length, rand);
+    // single linear pass, move spanning tree edges to the front
+    int numOfTreeEdges = joinSets(new DisjointSets(rows, columns), 0, edges.length);
+    numOfBrokenWalls = breakExtraWalls(numOfTreeEdges, rand);
+  }
+
+  /**
+   * Break random walls out of the non-tree edges, which are stored from
+   * firstCandidate to the end of edges, until numOfRemainingWalls walls remain.
+   *
+   * @param firstCandidate the index of the first edge not yet broken
+   * @param rand           the random source
+   * @return the total number of broken walls
+   */
+  protected int breakExtraWalls(int firstCandidate, SplittableRandom rand) {
+    int numOfExtraWalls = Math.max(0, edges.length - firstCandidate - numOfRemainingWalls);
+    // partial Fisher-Yates over the candidates
+    for (int i = firstCandidate; i < firstCandidate + numOfExtraWalls; i++) {
+      swap(edges, i, i + rand.nextInt(edges.length - i));
+    }
+    return firstCandidate + numOfExtraWalls;
+  }
+
+  /**
+   * Shuffle part of an int array in place.
+   *
+   * @param array the array to shuffle
+   * @param from  first index, inclusive
+   * @param to    last index, exclusive
+   * @param rand  the random source
+   */
+  protected static void shuffle(int[] array, int from, int to, SplittableRandom rand) {
+    for (int i = to - 1; i > from; i--) {
+      swap(array, i, from + rand.nextInt(i - from + 1));
+    }
+  }
+
+  /**
+   * Move the edges between from and to which join two different sets to the
+   * front of the range, keeping the others behind them.
+   *
+   * @param cellConnected the disjoint sets of the cells
+   * @param from          first index, inclusive
+   * @param to            last index, exclusive
+   * @return the number of edges moved to the front
+   */
+  protected int joinSets(DisjointSets cellConnected, int from, int to) {
+    int numOfTreeEdges = 0;
+    for (int i = from; i < to; i++) {
+      int edge = edges[i];
+      if (cellConnected.union(getCell(edge), getOtherCell(edge))) {
+        swap(edges, from + numOfTreeEdges, i);
+        numOfTreeEdges++;
+      }
+    }
+    return numOfTreeEdges;
+  }
+
+  protected static void swap(int[] array, int i, int j) {
+    int temp = array[i];
+    array[i] = array[j];
+    array[j] = temp;
+  }
+
+  /**
+   * Get the 0-based row-major index of the upper or left cell of the edge.
+   *
+   * @param edge the packed edge id
+   * @return the cell index
+   */
+  public static int getCell(int edge) {
+    return edge >>> 1;
+  }
+
+  /**
+   * Get the side of the wall, either SOUTH or EAST.
+   *
+   * @param edge the packed edge id
+   * @return the side of the wall
+   */
+  public static int getSide(int edge) {
+    return edge & 1;
+  }
+
+  /**
+   * Get the 0-based row-major index of the lower or right cell of the edge.
+   *
+   * @param edge the packed edge id
+   * @return the cell index
+   */
+  public int getOtherCell(int edge) {
+    return getSide(edge) == SOUTH ? getCell(edge) + columns : getCell(edge) + 1;
+  }
+
+  /**
+   * Get all the edges, broken walls first.
+   *
+   * @return the edges array
+   */
+  public int[] getEdges() {
+    return edges;
+  }
+
+  /**
+   * Get the number of broken walls after generation.
+   *
+   * @return the number of broken walls
+   */
+  public int getNumOfBrokenWalls() {
+    return numOfBrokenWalls;
+  }
+
+  /**
+   * Get the number of remaining walls after generation.
+   *
+   * @return the number of remaining walls
+   */
+  public int getNumOfRemainingWalls() {
+    return edges.length - numOfBrokenWalls;
+  }
+}
@@ -4,7 +4,8 @@ import java.util.List;
 
 /**
  * The Maze interface provides all common methods declared for any Maze object.
- * The common functions are getRemainingWallList(), getGameMap(), 
+ * The common functions are getRemainingWallList(), getGameMap(),
+ * getCellFlags(), revealGameMap().
  * 
  * @author Daniel Zhou
  */
@@ -24,9 +25,20 @@ public interface Maze {
    * Get a game map with 2D array after initialization.
    */
   Cell[][] getGameMap();
+
+  /**
+   * Get the packed status flags of all Cells in row-major order, shared with
+   * the Cells of the game map.
+   */
+  byte[] getCellFlags();
   
   /**
    * Print all Cells stored in the Maze object.
    */
   void printMaze();
+
+  /**
+   * Set all Cells stored in the Maze object as visited.
+   */
+  void revealGameMap();
 }
@@ -0,0 +1,310 @@
+package model;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * This class represents a cache of generated maze topologies keyed by their
+ * generation parameters (rows, columns, numOfRemainingWalls, seed, type). The
+ * topologies are immutable, so a cached one can build a fresh maze for every
+ * restart. The cache keeps the total footprint of its topologies within a
+ * memory budget and evicts the least recently used ones first. A topology
+ * larger than the whole budget is generated but not kept.
+ *
+ * <p>Topologies are generated outside the lock, so the cache can be shared by
+ * several games and threads. A topology being generated is kept as a pending
+ * build, and a lookup for it waits for that build instead of generating the
+ * same topology again.
+ *
+ * @author Daniel Zhou
+ */
+public class MazeCache {
+  public static final long DEFAULT_MEMORY_BUDGET = 64L << 20; // 64 MB
+
+  private final long memoryBudget;
+  private final LinkedHashMap<Key, MazeTopology> topologies;
+  private final Map<Key, Build> builds = new HashMap<>(); // being generated
+  private long memoryUsage;
+  private int numOfHits;
+  private int numOfMisses;
+
+  /**
+   * Construct an empty cache with a memory budget.
+   *
+   * @param memoryBudget the maximum number of bytes held by the cached topologies
+   * @throws IllegalArgumentException if the budget is negative
+   */
+  public MazeCache(long memoryBudget) throws IllegalArgumentException {
+    if (memoryBudget < 0) {
+      throw new IllegalArgumentException("invalid memory budget! Cannot be negative");
+    }
+    this.memoryBudget = memoryBudget;
+    // access order, the eldest entry is the least recently used
+    this.topologies = new LinkedHashMap<>(16, 0.75f, true);
+  }
+
+  /**
+   * Get the topology for the given parameters, generate it on a miss.
+   *
+   * @param rows                total rows of the maze
+   * @param columns             total columns of the maze
+   * @param numOfRemainingWalls the number of remaining walls
+   * @param seed                the seed of the wall generation
+   * @param type                the kind of maze
+   * @return the cached or generated topology
+   * @throws IllegalArgumentException if attributes are invalid
+   */
+  public MazeTopology get(int rows, int columns, int numOfRemainingWalls, long seed,
+      MazeTopology.Type type) throws IllegalArgumentException {
+    Key key = new Key(rows, columns, numOfRemainingWalls, seed, type);
+    while (true) {
+      Build build;
+      boolean isOwner = false;
+      synchronized (this) {
+        MazeTopology topology = topologies.get(key);
+        if (topology != null) {
+          numOfHits++;
+          return topology;
+        }
+        build = builds.get(key);
+        if (build == null) {
+          numOfMisses++;
+          build = new Build(key);
+          builds.put(key, build);
+          isOwner = true;
+        } else {
+          numOfHits++;
+        }
+      }
+      if (isOwner) {
+        build.run();
+      }
+      try {
+        return build.future.join();
+      } catch (CancellationException e) {
+        // a dropped prefetch, generate it here
+      } catch (CompletionException e) {
+        if (e.getCause() instanceof Error) {
+          throw (Error) e.getCause();
+        }
+        throw (RuntimeException) e.getCause();
+      }
+    }
+  }
+
+  /**
+   * Get the topology for the given parameters, generate it on the executor on
+   * a miss. A lookup for it made meanwhile waits for this build. Invalid
+   * parameters complete the returned future with the IllegalArgumentException.
+   *
+   * @param rows                total rows of the maze
+   * @param columns             total columns of the maze
+   * @param numOfRemainingWalls the number of remaining walls
+   * @param seed                the seed of the wall generation
+   * @param type                the kind of maze
+   * @param executor            the executor generating the topology
+   * @return the future topology
+   */
+  public synchronized CompletableFuture<MazeTopology> getAsync(int rows, int columns,
+      int numOfRemainingWalls, long seed, MazeTopology.Type type, Executor executor) {
+    Key key = new Key(rows, columns, numOfRemainingWalls, seed, type);
+    MazeTopology topology = topologies.get(key);
+    if (topology != null) {
+      numOfHits++;
+      return CompletableFuture.completedFuture(topology);
+    }
+    Build build = builds.get(key);
+    if (build == null) {
+      numOfMisses++;
+      build = new Build(key);
+      builds.put(key, build);
+      // queued under the lock, a rejected build is never seen by a lookup
+      try {
+        executor.execute(build);
+      } catch (RuntimeException e) {
+        builds.remove(key);
+        build.future.completeExceptionally(e);
+      }
+    }
+    return build.future;
+  }
+
+  /**
+   * Check if the topology for the given parameters is cached, without
+   * counting as a use.
+   *
+   * @param rows                total rows of the maze
+   * @param columns             total columns of the maze
+   * @param numOfRemainingWalls the number of remaining walls
+   * @param seed                the seed of the wall generation
+   * @param type                the kind of maze
+   * @return true if the topology is cached
+   */
+  public synchronized boolean contains(int rows, int columns, int numOfRemainingWalls,
+      long seed, MazeTopology.Type type) {
+    return topologies.containsKey(new Key(rows, columns, numOfRemainingWalls, seed, type));
+  }
+
+  /**
+   * Keep a generated topology unless another thread cached it first, then
+   * evict the least recently used topologies over the budget.
+   */
+  private synchronized MazeTopology put(Key key, MazeTopology topology) {
+    builds.remove(key);
+    MazeTopology cached = topologies.get(key);
+    if (cached != null) {
+      return cached;
+    }
+    if (topology.getMemoryFootprint() > memoryBudget) {
+      return topology;
+    }
+    topologies.put(key, topology);
+    memoryUsage += topology.getMemoryFootprint();
+    Iterator<Map.Entry<Key, MazeTopology>> eldest = topologies.entrySet().iterator();
+    while (memoryUsage > memoryBudget) {
+      memoryUsage -= eldest.next().getValue().getMemoryFootprint();
+      eldest.remove();
+    }
+    return topology;
+  }
+
+  /**
+   * Remove all cached topologies.
+   */
+  public synchronized void clear() {
+    topologies.clear();
+    memoryUsage = 0;
+  }
+
+  /**
+   * Get the number of cached topologies.
+   *
+   * @return the number of cached topologies
+   */
+  public synchronized int size() {
+    return topologies.size();
+  }
+
+  /**
+   * Get the memory budget of this cache.
+   *
+   * @return the budget in bytes
+   */
+  public long getMemoryBudget() {
+    return memoryBudget;
+  }
+
+  /**
+   * Get the number of bytes held by the cached topologies.
+   *
+   * @return the memory usage in bytes
+   */
+  public synchronized long getMemoryUsage() {
+    return memoryUsage;
+  }
+
+  /**
+   * Get the number of lookups answered from the cache.
+   *
+   * @return the number of hits
+   */
+  public synchronized int getNumOfHits() {
+    return numOfHits;
+  }
+
+  /**
+   * Get the number of lookups which generated a topology.
+   *
+   * @return the number of misses
+   */
+  public synchronized int getNumOfMisses() {
+    return numOfMisses;
+  }
+
+  /**
+   * The generation of a topology, run once by the lookup or the executor which
+   * started it and awaited by the others.
+   */
+  final class Build implements Runnable {
+    private final Key key;
+    private final CompletableFuture<MazeTopology> future = new CompletableFuture<>();
+
+    Build(Key key) {
+      this.key = key;
+    }
+
+    @Override
+    public void run() {
+      try {
+        MazeTopology topology = MazeTopology.generate(key.rows, key.columns,
+            key.numOfRemainingWalls, key.seed, key.type);
+        future.complete(put(key, topology));
+      } catch (Throwable e) {
+        // the waiting lookups get the failure, later ones build again
+        synchronized (MazeCache.this) {
+          builds.remove(key, this);
+        }
+        future.completeExceptionally(e);
+        if (e instanceof Error) {
+          throw (Error) e;
+        }
+      }
+    }
+
+    /**
+     * Drop a build which will never run, the lookups waiting for it generate
+     * the topology themselves.
+     */
+    void cancel() {
+      synchronized (MazeCache.this) {
+        builds.remove(key, this);
+      }
+      future.cancel(false);
+    }
+  }
+
+  /**
+   * The generation parameters of a topology.
+   */
+  private static final class Key {
+    private final int rows;
+    private final int columns;
+    private final int numOfRemainingWalls;
+    private final long seed;
+    private final MazeTopology.Type type;
+
+    Key(int rows, int columns, int numOfRemainingWalls, long seed, MazeTopology.Type type) {
+      this.rows = rows;
+      this.columns = columns;
+      this.numOfRemainingWalls = numOfRemainingWalls;
+      this.seed = seed;
+      this.type = type;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      if (!(other instanceof Key)) {
+        return false;
+      }
+      Key key = (Key) other;
+      return rows == key.rows && columns == key.columns
+          && numOfRemainingWalls == key.numOfRemainingWalls && seed == key.seed
+          && type == key.type;
+    }
+
+    @Override
+    public int hashCode() {
+      int hash = rows;
+      hash = 31 * hash + columns;
+      hash = 31 * hash + numOfRemainingWalls;
+      hash = 31 * hash + Long.hashCode(seed);
+      return 31 * hash + type.hashCode();
+    }
+  }
+}
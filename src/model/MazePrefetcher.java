@@ -0,0 +1,71 @@
+package model;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * This class represents a background generator which fills a MazeCache with
+ * the topologies of games likely to be started next, so starting one of them
+ * only takes a cache hit, or waits for the running generation. Topologies are
+ * generated one at a time on a single daemon thread, in the order they are
+ * requested.
+ *
+ * @author Daniel Zhou
+ */
+public class MazePrefetcher {
+  private final MazeCache mazeCache;
+  private final ExecutorService executor;
+
+  /**
+   * Construct a prefetcher filling the given cache.
+   *
+   * @param mazeCache the cache receiving the generated topologies
+   */
+  public MazePrefetcher(MazeCache mazeCache) {
+    this.mazeCache = mazeCache;
+    this.executor = Executors.newSingleThreadExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "maze-prefetcher");
+      thread.setDaemon(true);
+      thread.setPriority(Thread.MIN_PRIORITY);
+      return thread;
+    });
+  }
+
+  /**
+   * Generate a topology in the background unless it is cached already. Invalid
+   * parameters complete the returned future with the IllegalArgumentException.
+   *
+   * @param rows                total rows of the maze
+   * @param columns             total columns of the maze
+   * @param numOfRemainingWalls the number of remaining walls
+   * @param seed                the seed of the wall generation
+   * @param type                the kind of maze
+   * @return the future topology
+   */
+  public Future<MazeTopology> prefetch(int rows, int columns, int numOfRemainingWalls,
+      long seed, MazeTopology.Type type) {
+    return mazeCache.getAsync(rows, columns, numOfRemainingWalls, seed, type, executor);
+  }
+
+  /**
+   * Get the cache this prefetcher fills.
+   *
+   * @return the mazeCache
+   */
+  public MazeCache getMazeCache() {
+    return mazeCache;
+  }
+
+  /**
+   * Stop the background thread, pending requests are dropped and generated by
+   * the next lookup instead.
+   */
+  public void shutdown() {
+    for (Runnable dropped : executor.shutdownNow()) {
+      if (dropped instanceof MazeCache.Build) {
+        ((MazeCache.Build) dropped).cancel();
+      }
+    }
+  }
+}
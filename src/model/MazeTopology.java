@@ -0,0 +1,164 @@
+package model;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * This class represents the immutable wall layout of a generated maze, the
+ * part of a maze which only depends on its generation parameters. Walls are
+ * stored as 2 bits per cell (wall to the south, wall to the east) packed into
+ * longs, a set bit meaning the wall stands. A topology holds no per-game state,
+ * so the same topology can build any number of mazes, and be shared between
+ * threads.
+ *
+ * @author Daniel Zhou
+ */
+public final class MazeTopology {
+  /**
+   * The kind of maze a topology is generated for.
+   */
+  public enum Type {
+    ROOM, // Kruskal on the whole grid
+    TILED_ROOM, // Kruskal tile by tile in parallel
+    WRAPPING // Kruskal on the whole grid, borders wrap around
+  }
+
+  private static final int WALL_SOUTH = 1;
+  private static final int WALL_EAST = 2;
+
+  private final int rows;
+  private final int columns;
+  private final int numOfRemainingWalls;
+  private final long seed;
+  private final Type type;
+  private final long[] walls;
+
+  private MazeTopology(int rows, int columns, int numOfRemainingWalls, long seed, Type type,
+      long[] walls) {
+    this.rows = rows;
+    this.columns = columns;
+    this.numOfRemainingWalls = numOfRemainingWalls;
+    this.seed = seed;
+    this.type = type;
+    this.walls = walls;
+  }
+
+  /**
+   * Generate the topology of a maze where number remaining walls is specified.
+   *
+   * @param rows                total rows of the maze
+   * @param columns             total columns of the maze
+   * @param numOfRemainingWalls the number of remaining walls after generation
+   * @param seed                the seed of the wall generation
+   * @param type                the kind of maze
+   * @return the generated topology
+   * @throws IllegalArgumentException if attributes are invalid
+   */
+  public static MazeTopology generate(int rows, int columns, int numOfRemainingWalls, long seed,
+      Type type) throws IllegalArgumentException {
+    if (rows < 0 || columns < 0) {
+      throw new IllegalArgumentException("invalid map size! Cannot be negative");
+    }
+    if (numOfRemainingWalls < 0) {
+      throw new IllegalArgumentException("invalid number of walls left! Cannot be negative");
+    }
+    if (numOfRemainingWalls > ((rows - 1) * (columns - 1))) {
+      throw new IllegalArgumentException("invalid number of walls left! "
+          + "should be in range 0 to " + ((rows - 1) * (columns - 1)));
+    }
+    KruskalGenerator generator;
+    if (type == Type.TILED_ROOM) {
+      generator = new TiledKruskalGenerator(rows, columns, numOfRemainingWalls,
+          new SplittableRandom(seed));
+    } else {
+      generator = new KruskalGenerator(rows, columns, numOfRemainingWalls,
+          new SplittableRandom(seed));
+    }
+    generator.generate();
+    long[] walls = new long[(rows * columns + 31) / 32];
+    Arrays.fill(walls, -1L);
+    int[] edges = generator.getEdges();
+    for (int i = 0; i < generator.getNumOfBrokenWalls(); i++) {
+      int cell = KruskalGenerator.getCell(edges[i]);
+      int wall = KruskalGenerator.getSide(edges[i]) == KruskalGenerator.SOUTH ? WALL_SOUTH
+          : WALL_EAST;
+      walls[cell >>> 5] &= ~((long) wall << ((cell & 31) << 1));
+    }
+    return new MazeTopology(rows, columns, numOfRemainingWalls, seed, type, walls);
+  }
+
+  /**
+   * Check if the wall on one side of a cell stands. The walls on the last row
+   * and the last column are not part of the maze and always stand.
+   *
+   * @param cell the 0-based row-major cell index
+   * @param side KruskalGenerator.SOUTH or KruskalGenerator.EAST
+   * @return true if the wall stands
+   */
+  public boolean hasWall(int cell, int side) {
+    int wall = side == KruskalGenerator.SOUTH ? WALL_SOUTH : WALL_EAST;
+    return (walls[cell >>> 5] & ((long) wall << ((cell & 31) << 1))) != 0;
+  }
+
+  /**
+   * Get the packed wall bits, shared with CompactMaze and never modified.
+   */
+  long[] getWalls() {
+    return walls;
+  }
+
+  /**
+   * Get the total rows of this topology.
+   *
+   * @return the rows
+   */
+  public int getRows() {
+    return rows;
+  }
+
+  /**
+   * Get the total columns of this topology.
+   *
+   * @return the columns
+   */
+  public int getColumns() {
+    return columns;
+  }
+
+  /**
+   * Get the number of remaining walls of this topology.
+   *
+   * @return the number of remaining walls
+   */
+  public int getNumOfRemainingWalls() {
+    return numOfRemainingWalls;
+  }
+
+  /**
+   * Get the seed this topology was generated from.
+   *
+   * @return the seed
+   */
+  public long getSeed() {
+    return seed;
+  }
+
+  /**
+   * Get the kind of maze this topology was generated for.
+   *
+   * @return the type
+   */
+  public Type getType() {
+    return type;
+  }
+
+  /**
+   * Get the number of bytes held by this topology.
+   *
+   * @return the approximate memory footprint in bytes
+   */
+  public long getMemoryFootprint() {
+    // object and array headers, fields
+    return 64 + 8L * walls.length;
+  }
+}
@@ -1,29 +1,29 @@
 package model;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
-import java.util.Random;
 import java.util.Set;
 
 /**
  * This class represents a Maze object which takes the total rows, total
  * columns, and the number of remaining walls as input. In this class, A Room
- * Maze has also fields: remainingWallList for checking the Kruskal algorithm,
- * breakedWall Set to store the Wall object, cellConnected as disjoint set to
- * update connections, and 2D array gameMap to store all Cell objects.
+ * Maze has also fields: generator holding the packed walls of the
+ * Kruskal algorithm, remainingWallList and breakedWall Set built from the
+ * generator on request, and 2D array gameMap to store all Cell objects.
  * 
  * @author Daniel Zhou
  */
 public class RoomMaze implements Maze {
   private List<Wall> remainingWallList;
   private Set<Wall> breakedWallSet;
-  private DisjointSets cellConnected;
+  private MazeTopology topology;
   private int rows;
   private int columns;
   private int numOfRemainingWalls;
   private Cell[][] gameMap;
-  private long seedKruskal;
+  private byte[] flags;
 
   /**
    * This class constructs a Room maze where number remaining walls is specified.
@@ -31,28 +31,46 @@ public class RoomMaze implements Maze {
    * @param rows                total rows of this maze
    * @param columns             total columns of this maze
    * @param numOfRemainingWalls the number of remaining walls after construction
+   * @param seedKruskal         the seed of the wall generation
    * @throws IllegalArgumentException if attributes are invalid
    */
   public RoomMaze(int rows, int columns, int numOfRemainingWalls, long seedKruskal) 
       throws IllegalArgumentException {
-    if (rows < 0 || columns < 0) {
-      throw new IllegalArgumentException("invalid map size! Cannot be negative");
-    }
-    if (numOfRemainingWalls < 0) {
-      throw new IllegalArgumentException("invalid number of walls left! Cannot be negative");
-    }
-    if (numOfRemainingWalls > ((rows - 1) * (columns - 1))) {
-      throw new IllegalArgumentException("invalid number of walls left! "
-          + "should be in range 0 to " + ((rows - 1) * (columns - 1)));
+    this(rows, columns, numOfRemainingWalls, seedKruskal, false);
+  }
+
+  /**
+   * This class constructs a Room maze where number remaining walls is specified.
+   * 
+   * @param rows                total rows of this maze
+   * @param columns             total columns of this maze
+   * @param numOfRemainingWalls the number of remaining walls after construction
+   * @param seedKruskal         the seed of the wall generation
+   * @param isTiled             true to generate the walls tile by tile in parallel
+   * @throws IllegalArgumentException if attributes are invalid
+   */
+  public RoomMaze(int rows, int columns, int numOfRemainingWalls, long seedKruskal,
+      boolean isTiled) throws IllegalArgumentException {
+    this(MazeTopology.generate(rows, columns, numOfRemainingWalls, seedKruskal,
+        isTiled ? MazeTopology.Type.TILED_ROOM : MazeTopology.Type.ROOM));
+  }
+
+  /**
+   * This class constructs a Room maze from a generated topology.
+   * 
+   * @param topology the wall layout of a room maze
+   * @throws IllegalArgumentException if the topology is not a room topology
+   */
+  public RoomMaze(MazeTopology topology) throws IllegalArgumentException {
+    if (topology.getType() == MazeTopology.Type.WRAPPING) {
+      throw new IllegalArgumentException("invalid topology! Should be a room topology");
     }
-    this.rows = rows;
-    this.columns = columns;
-    this.numOfRemainingWalls = numOfRemainingWalls;
-    this.remainingWallList = new ArrayList<>();
-    this.breakedWallSet = new HashSet<>();
+    this.rows = topology.getRows();
+    this.columns = topology.getColumns();
+    this.numOfRemainingWalls = topology.getNumOfRemainingWalls();
     this.gameMap = new Cell[rows][columns];
-    this.cellConnected = new DisjointSets(rows, columns);
-    this.seedKruskal = seedKruskal;
+    this.flags = new byte[rows * columns];
+    this.topology = topology;
     initialize();
   }
 
@@ -62,8 +80,7 @@ public class RoomMaze implements Maze {
   @Override
   public void initialize() {
     buildCells();
-    buildWalls();
-    breakWallKruskal();
+    breakWalls();
     setCave();
     setLeadToCavesSet();
   }
@@ -76,7 +93,7 @@ public class RoomMaze implements Maze {
     for (int row = 0; row < rows; row++) {
       for (int col = 0; col < columns; col++) {
         int index = row * (columns) + col + 1;
-        Cell cell = new Cell(row, col);
+        Cell cell = new Cell(row, col, flags, index - 1);
         cell.setIndex(index);
         gameMap[row][col] = cell;
       }
@@ -84,48 +101,41 @@ public class RoomMaze implements Maze {
   }
 
   /**
-   * Instantiate each wall object at set up, assign total walls to
-   * remainingWallList.
+   * Break the walls which do not stand in the topology, connect the cells on
+   * both sides of every broken wall.
    */
-  private void buildWalls() {
-    // construct the walls as inner borders and add to wallList
+  private void breakWalls() {
     for (int row = 0; row < rows; row++) {
       for (int col = 0; col < columns; col++) {
-        if (row < rows - 1) {
-          Wall wallDown = new Wall(gameMap[row][col], gameMap[row + 1][col]);
-          this.remainingWallList.add(wallDown);
+        int cell = row * columns + col;
+        if (row < rows - 1 && !topology.hasWall(cell, KruskalGenerator.SOUTH)) {
+          connect(gameMap[row][col], gameMap[row + 1][col]);
         }
-        if (col < columns - 1) {
-          Wall wallRight = new Wall(gameMap[row][col], gameMap[row][col + 1]);
-          this.remainingWallList.add(wallRight);
+        if (col < columns - 1 && !topology.hasWall(cell, KruskalGenerator.EAST)) {
+          connect(gameMap[row][col], gameMap[row][col + 1]);
         }
       }
     }
   }
 
+  private void connect(Cell cellOne, Cell cellTwo) {
+    cellOne.getNeighouberCellsSet().add(cellTwo);
+    cellTwo.getNeighouberCellsSet().add(cellOne);
+  }
+
   /**
-   * breakWall until the target number reached, randomly choose a wall from wall
-   * list, which is Kruskal algorithm.
+   * Build Wall objects for the standing or the broken walls of the topology.
    */
-  private void breakWallKruskal() {
-    Random rand = new Random(seedKruskal);
-    while (remainingWallList.size() > numOfRemainingWalls) {
-      // Use Kruskal algorithm to randomly select wall
-      Wall targetWall = remainingWallList.get(rand.nextInt(remainingWallList.size()));
-      Cell cellOne = targetWall.getCellOne();
-      Cell cellTwo = targetWall.getCellTwo();
-      // if not breaked and not connected make it breaked or stored into savedWall
-      // list
-      if (!breakedWallSet.contains(targetWall)) {
-        if (!cellConnected.isConnected(cellOne, cellTwo)) {
-          cellConnected.union(cellOne, cellTwo);
+  private void addWalls(Collection<Wall> walls, boolean isStanding) {
+    for (int row = 0; row < rows; row++) {
+      for (int col = 0; col < columns; col++) {
+        int cell = row * columns + col;
+        if (row < rows - 1 && topology.hasWall(cell, KruskalGenerator.SOUTH) == isStanding) {
+          walls.add(new Wall(gameMap[row][col], gameMap[row + 1][col]));
+        }
+        if (col < columns - 1 && topology.hasWall(cell, KruskalGenerator.EAST) == isStanding) {
+          walls.add(new Wall(gameMap[row][col], gameMap[row][col + 1]));
         }
-        this.remainingWallList.remove(targetWall);
-        this.breakedWallSet.add(targetWall);
-        cellOne.getNeighouberCellsSet().add(cellTwo);
-        cellTwo.getNeighouberCellsSet().add(cellOne);
-      } else {
-        continue;
       }
     }
   }
@@ -187,58 +197,32 @@ public class RoomMaze implements Maze {
   }
 
   /**
-   * Set leadToCavesSet into each cells stored in the gameMap.
+   * Set leadToCavesSet into each cells stored in the gameMap, each tunnel chain
+   * is contracted once.
    */
   private void setLeadToCavesSet() {
-    for (int row = 0; row < rows; row++) {
-      for (int col = 0; col < columns; col++) {
-        findLeadToCaves(gameMap[row][col]);
-      }
-    }
+    TunnelContraction.setLeadToCavesSet(gameMap);
   }
 
   /**
-   * Use BFS method to find all the neighbour caves.
-   */
-  public void findLeadToCaves(Cell currentCell) {
-    for (Cell neighbourCell : currentCell.getNeighouberCellsSet()) {
-      if (neighbourCell.isCave()) {
-        currentCell.getLeadToCavesSet().add(neighbourCell);
-      } else {
-        Set<Cell> visitedSet = new HashSet<>();
-        visitedSet.add(neighbourCell);
-        visitedSet.add(currentCell);
-        currentCell.getLeadToCavesSet().add(findNextCave(neighbourCell, visitedSet));
-      }
-    }
-  }
-
-  /**
-   * Recursively locate the leadToCaves.
+   * Get the totalWallList, Wall objects are built on the first call.
+   * @return the totalWallList total wall list
    */
-  private Cell findNextCave(Cell currentCell, Set<Cell> visited) {
-    for (Cell neighbour : currentCell.getNeighouberCellsSet()) {
-      if (visited.contains(neighbour)) {
-        continue;
-      }
-      if (neighbour.isCave()) {
-        return neighbour;
-      } else {
-        visited.add(neighbour);
-        return findNextCave(neighbour, visited);
-      }
+  @Override
+  public List<Wall> getRemainingWallList() {
+    if (remainingWallList == null) {
+      remainingWallList = new ArrayList<>(numOfRemainingWalls);
+      addWalls(remainingWallList, true);
     }
-    System.out.println("should not arrive here ");
-    return currentCell;
+    return remainingWallList;
   }
 
   /**
-   * Get the totalWallList.
-   * @return the totalWallList total wall list
+   * Get the wall layout this maze was built from.
+   * @return the topology
    */
-  @Override
-  public List<Wall> getRemainingWallList() {
-    return remainingWallList;
+  public MazeTopology getTopology() {
+    return topology;
   }
 
   /**
@@ -250,21 +234,35 @@ public class RoomMaze implements Maze {
   }
 
   /**
-   * Get the breakedWallSet.
+   * Get the breakedWallSet, Wall objects are built on the first call.
    * @return the breakedWallSet store breakedWallSet for Kruskal algorithm
    */
   public Set<Wall> getBreakedWallSet() {
+    if (breakedWallSet == null) {
+      breakedWallSet = new HashSet<>();
+      addWalls(breakedWallSet, false);
+    }
     return breakedWallSet;
   }
   
+  /**
+   * Get the packed status flags of all cells in row-major order, shared with the
+   * cells of the gameMap.
+   *
+   * @return the flag array
+   */
+  @Override
+  public byte[] getCellFlags() {
+    return flags;
+  }
+
   /**
    * This methods will set all cells as visited.
    */
+  @Override
   public void revealGameMap() {
-    for (int row = 0; row < rows; row++) {
-      for (int col = 0; col < columns; col++) {
-        gameMap[row][col].setVisited(true);
-      }
+    for (int cell = 0; cell < flags.length; cell++) {
+      flags[cell] |= Cell.VISITED;
     }  
   }
 }
@@ -0,0 +1,98 @@
+package model;
+
+/**
+ * This class represents a SplitMix64 random generator whose state can be read
+ * and restored, so a game can be snapshotted with the draws still to come. The
+ * state is a 64-bit counter advanced by the golden gamma, and every value is
+ * the mix64 finalizer of the counter. A split generator starts from the next
+ * value of this one, a random point of the same sequence of 2^64 counters.
+ *
+ * @author Daniel Zhou
+ */
+public final class SplitMix64 {
+  public static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+  private long seed;
+
+  /**
+   * Construct a generator from a seed.
+   *
+   * @param seed the initial seed
+   */
+  public SplitMix64(long seed) {
+    this.seed = seed;
+  }
+
+  /**
+   * Get the SplitMix64 finalizer of a value, a bijection which spreads every
+   * input bit over the whole output.
+   *
+   * @param z the value to mix
+   * @return the mixed value
+   */
+  public static long mix64(long z) {
+    z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+    z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+    return z ^ (z >>> 31);
+  }
+
+  /**
+   * Get a new generator seeded with the next value of this one.
+   *
+   * @return the new generator
+   */
+  public SplitMix64 split() {
+    return new SplitMix64(nextLong());
+  }
+
+  /**
+   * Get the next value.
+   *
+   * @return a uniform long
+   */
+  public long nextLong() {
+    seed += GOLDEN_GAMMA;
+    return mix64(seed);
+  }
+
+  /**
+   * Get the next value below a bound, the high 32 bits of a value scaled to
+   * the bound, redrawn in the rare cases which would favour some results.
+   *
+   * @param bound the exclusive upper bound
+   * @return a uniform int in 0 to bound - 1
+   * @throws IllegalArgumentException if the bound is not positive
+   */
+  public int nextInt(int bound) throws IllegalArgumentException {
+    if (bound <= 0) {
+      throw new IllegalArgumentException("invalid bound! Should be positive");
+    }
+    long scaled = (nextLong() >>> 32) * bound;
+    if ((scaled & 0xffffffffL) < bound) {
+      // 2^32 mod bound low parts would be hit once more than the others
+      long threshold = (1L << 32) % bound;
+      while ((scaled & 0xffffffffL) < threshold) {
+        scaled = (nextLong() >>> 32) * bound;
+      }
+    }
+    return (int) (scaled >>> 32);
+  }
+
+  /**
+   * Get the state to restore the values to come with setState.
+   *
+   * @return the seed
+   */
+  public long getState() {
+    return seed;
+  }
+
+  /**
+   * Restore a state read with getState.
+   *
+   * @param state the seed
+   */
+  public void setState(long state) {
+    this.seed = state;
+  }
+}
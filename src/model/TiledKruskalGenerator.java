@@ -0,0 +1,184 @@
+package model;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * This class represents a Kruskal maze generator which builds the maze in
+ * parallel. The grid is cut into square tiles; every tile shuffles and joins its
+ * inner walls on a ForkJoinPool with its own SplittableRandom stream, touching
+ * only its own cells in the shared DisjointSets. The walls crossing tile
+ * borders are then shuffled and joined in one sequential pass, and the extra
+ * walls are broken from all non-tree edges as in KruskalGenerator.
+ *
+ * <p>The random streams are split from the seed in tile order before any task
+ * runs, so a seed always gives the same maze whatever the number of threads.
+ *
+ * @author Daniel Zhou
+ */
+public class TiledKruskalGenerator extends KruskalGenerator {
+  public static final int DEFAULT_TILE_SIZE = 256;
+
+  private final int tileSize;
+  private final int tileRows;
+  private final int tileColumns;
+  private final ForkJoinPool pool;
+  private DisjointSets cellConnected;
+  private SplittableRandom[] tileRandoms;
+  private int[] tileOffsets; // first edge of every tile, boundary edges last
+  private int[] tileTreeEdges; // number of tree edges found in every tile
+
+  /**
+   * Construct a tiled generator for the given grid.
+   *
+   * @param rows                total rows of the maze
+   * @param columns             total columns of the maze
+   * @param numOfRemainingWalls the number of remaining walls after generation
+   * @param rand                the random source the tile streams are split from
+   * @param tileSize            rows and columns of one tile
+   * @param pool                the pool running the tiles
+   * @throws IllegalArgumentException if attributes are invalid
+   */
+  public TiledKruskalGenerator(int rows, int columns, int numOfRemainingWalls,
+      SplittableRandom rand, int tileSize, ForkJoinPool pool) throws IllegalArgumentException {
+    super(rows, columns, numOfRemainingWalls, rand);
+    if (tileSize < 1) {
+      throw new IllegalArgumentException("invalid tile size! Should be positive");
+    }
+    this.tileSize = tileSize;
+    this.tileRows = (rows + tileSize - 1) / tileSize;
+    this.tileColumns = (columns + tileSize - 1) / tileSize;
+    this.pool = pool;
+  }
+
+  /**
+   * Construct a tiled generator with the default tile size on the common pool.
+   *
+   * @param rows                total rows of the maze
+   * @param columns             total columns of the maze
+   * @param numOfRemainingWalls the number of remaining walls after generation
+   * @param rand                the random source the tile streams are split from
+   * @throws IllegalArgumentException if attributes are invalid
+   */
+  public TiledKruskalGenerator(int rows, int columns, int numOfRemainingWalls,
+      SplittableRandom rand) throws IllegalArgumentException {
+    this(rows, columns, numOfRemainingWalls, rand, DEFAULT_TILE_SIZE, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Run the generation, partition edges into broken and remaining walls.
+   */
+  @Override
+  public void generate() {
+    int numOfTiles = tileRows * tileColumns;
+    cellConnected = new DisjointSets(rows, columns);
+    tileRandoms = new SplittableRandom[numOfTiles];
+    for (int tile = 0; tile < numOfTiles; tile++) {
+      tileRandoms[tile] = rand.split();
+    }
+    SplittableRandom boundaryRandom = rand.split();
+    tileOffsets = new int[numOfTiles + 1];
+    for (int tile = 0; tile < numOfTiles; tile++) {
+      int height = getTileEnd(tile / tileColumns, rows) - (tile / tileColumns) * tileSize;
+      int width = getTileEnd(tile % tileColumns, columns) - (tile % tileColumns) * tileSize;
+      tileOffsets[tile + 1] = tileOffsets[tile] + height * (width - 1) + (height - 1) * width;
+    }
+    tileTreeEdges = new int[numOfTiles];
+    pool.invoke(new TileTask(0, numOfTiles));
+
+    // stitch the tiles together over the walls on the tile borders
+    int boundary = tileOffsets[numOfTiles];
+    int count = boundary;
+    for (int row = 0; row < rows; row++) {
+      for (int col = 0; col < columns; col++) {
+        int cell = row * columns + col;
+        if (row < rows - 1 && (row + 1) % tileSize == 0) {
+          edges[count++] = cell * 2 + SOUTH;
+        }
+        if (col < columns - 1 && (col + 1) % tileSize == 0) {
+          edges[count++] = cell * 2 + EAST;
+        }
+      }
+    }
+    shuffle(edges, boundary, edges.length, boundaryRandom);
+    int boundaryTreeEdges = joinSets(cellConnected, boundary, edges.length);
+
+    // gather all tree edges in front of the other edges, in tile order
+    int[] ordered = new int[edges.length];
+    int front = 0;
+    for (int tile = 0; tile < numOfTiles; tile++) {
+      System.arraycopy(edges, tileOffsets[tile], ordered, front, tileTreeEdges[tile]);
+      front += tileTreeEdges[tile];
+    }
+    System.arraycopy(edges, boundary, ordered, front, boundaryTreeEdges);
+    front += boundaryTreeEdges;
+    int numOfTreeEdges = front;
+    for (int tile = 0; tile < numOfTiles; tile++) {
+      int length = tileOffsets[tile + 1] - tileOffsets[tile] - tileTreeEdges[tile];
+      System.arraycopy(edges, tileOffsets[tile] + tileTreeEdges[tile], ordered, front, length);
+      front += length;
+    }
+    System.arraycopy(edges, boundary + boundaryTreeEdges, ordered, front,
+        edges.length - boundary - boundaryTreeEdges);
+    edges = ordered;
+    numOfBrokenWalls = breakExtraWalls(numOfTreeEdges, rand);
+    cellConnected = null;
+    tileRandoms = null;
+  }
+
+  /**
+   * Get the first row or column after a tile, clipped to the grid.
+   */
+  private int getTileEnd(int tileIndex, int limit) {
+    return Math.min(limit, (tileIndex + 1) * tileSize);
+  }
+
+  /**
+   * Encode, shuffle and join the inner walls of one tile.
+   */
+  private void generateTile(int tile) {
+    int firstRow = (tile / tileColumns) * tileSize;
+    int firstCol = (tile % tileColumns) * tileSize;
+    int lastRow = getTileEnd(tile / tileColumns, rows);
+    int lastCol = getTileEnd(tile % tileColumns, columns);
+    int count = tileOffsets[tile];
+    for (int row = firstRow; row < lastRow; row++) {
+      for (int col = firstCol; col < lastCol; col++) {
+        int cell = row * columns + col;
+        if (row < lastRow - 1) {
+          edges[count++] = cell * 2 + SOUTH;
+        }
+        if (col < lastCol - 1) {
+          edges[count++] = cell * 2 + EAST;
+        }
+      }
+    }
+    shuffle(edges, tileOffsets[tile], tileOffsets[tile + 1], tileRandoms[tile]);
+    tileTreeEdges[tile] = joinSets(cellConnected, tileOffsets[tile], tileOffsets[tile + 1]);
+  }
+
+  /**
+   * Generates a range of tiles, splitting the range in halves.
+   */
+  private class TileTask extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+    private final int from;
+    private final int to;
+
+    TileTask(int from, int to) {
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected void compute() {
+      if (to - from == 1) {
+        generateTile(from);
+      } else if (to > from) {
+        int middle = (from + to) >>> 1;
+        invokeAll(new TileTask(from, middle), new TileTask(middle, to));
+      }
+    }
+  }
+}
@@ -0,0 +1,83 @@
+package model;
+
+/**
+ * This class fills the leadToCavesSet of every cell in a gameMap whose caves
+ * are already flagged. Every tunnel chain is walked once, iteratively, from the
+ * first cave met at one of its ends; the cave at the other end is then added to
+ * the two end caves and to every tunnel on the chain, so the whole map is done
+ * in O(cells) without a visited set per cell. Tunnels on a loop with no cave
+ * keep an empty leadToCavesSet.
+ *
+ * @author Daniel Zhou
+ */
+final class TunnelContraction {
+  private final Cell[] chain; // tunnels of the chain being walked, reused
+
+  private TunnelContraction(int numOfCells) {
+    this.chain = new Cell[numOfCells];
+  }
+
+  /**
+   * Set leadToCavesSet into each cells stored in the gameMap.
+   *
+   * @param gameMap the cells of the maze, caves flagged
+   */
+  static void setLeadToCavesSet(Cell[][] gameMap) {
+    int numOfCells = 0;
+    for (Cell[] row : gameMap) {
+      numOfCells += row.length;
+    }
+    TunnelContraction contraction = new TunnelContraction(numOfCells);
+    for (Cell[] row : gameMap) {
+      for (Cell cell : row) {
+        if (cell.isCave()) {
+          contraction.contractFrom(cell);
+        }
+      }
+    }
+  }
+
+  /**
+   * Link a cave to its neighbour caves and contract every tunnel chain leaving
+   * it which has not been walked yet.
+   */
+  private void contractFrom(Cell cave) {
+    for (Cell neighbour : cave.getNeighouberCellsSet()) {
+      if (neighbour.isCave()) {
+        cave.getLeadToCavesSet().add(neighbour);
+      } else if (neighbour.getLeadToCavesSet().isEmpty()) {
+        walkTunnel(cave, neighbour);
+      }
+    }
+  }
+
+  /**
+   * Walk a tunnel chain from a cave to the cave at its other end, then record
+   * both ends on the chain.
+   */
+  private void walkTunnel(Cell cave, Cell next) {
+    int length = 0;
+    Cell previous = cave;
+    Cell current = next;
+    // a tunnel already holding a cave was walked, only on a malformed map
+    while (!current.isCave() && current.getLeadToCavesSet().isEmpty()) {
+      current.getLeadToCavesSet().add(cave);
+      chain[length++] = current;
+      Cell following = current;
+      for (Cell neighbour : current.getNeighouberCellsSet()) {
+        if (neighbour != previous) {
+          following = neighbour;
+        }
+      }
+      previous = current;
+      current = following;
+    }
+    if (current.isCave()) {
+      cave.getLeadToCavesSet().add(current);
+      current.getLeadToCavesSet().add(cave);
+      for (int i = 0; i < length; i++) {
+        chain[i].getLeadToCavesSet().add(current);
+      }
+    }
+  }
+}
@@ -0,0 +1,67 @@
+package model;
+
+/**
+ * This class represents the random keys of Zobrist hashing: one 64-bit key for
+ * every value of every feature of a state. The hash of a state is the XOR of
+ * the keys of its feature values, so changing one feature costs two XORs,
+ * whatever the size of the state. The keys are drawn from a SplitMix64 seed,
+ * so a seed always gives the same hashes.
+ *
+ * @author Daniel Zhou
+ */
+public final class ZobristKeys {
+  private final long[] keys;
+  private final int numOfFeatures;
+  private final int numOfValues;
+
+  /**
+   * Construct the keys of a state.
+   *
+   * @param numOfFeatures the number of features, like the position of a hunter
+   * @param numOfValues   the number of values of every feature, like the cells
+   * @param seed          the seed of the keys
+   * @throws IllegalArgumentException if there is no feature or no value
+   */
+  public ZobristKeys(int numOfFeatures, int numOfValues, long seed)
+      throws IllegalArgumentException {
+    if (numOfFeatures <= 0 || numOfValues <= 0) {
+      throw new IllegalArgumentException("invalid number of keys! Should be positive");
+    }
+    this.numOfFeatures = numOfFeatures;
+    this.numOfValues = numOfValues;
+    this.keys = new long[numOfFeatures * numOfValues];
+    SplitMix64 random = new SplitMix64(seed);
+    for (int i = 0; i < keys.length; i++) {
+      keys[i] = random.nextLong();
+    }
+  }
+
+  /**
+   * Get the key of a value of a feature.
+   *
+   * @param feature the feature in 0 to numOfFeatures - 1
+   * @param value   the value in 0 to numOfValues - 1
+   * @return the key
+   */
+  public long get(int feature, int value) {
+    return keys[feature * numOfValues + value];
+  }
+
+  /**
+   * Get the number of features.
+   *
+   * @return the numOfFeatures
+   */
+  public int getNumOfFeatures() {
+    return numOfFeatures;
+  }
+
+  /**
+   * Get the number of values of every feature.
+   *
+   * @return the numOfValues
+   */
+  public int getNumOfValues() {
+    return numOfValues;
+  }
+}
@@ -0,0 +1,24 @@
+package simulation;
+
+import java.util.SplittableRandom;
+
+import controller.Game;
+
+/**
+ * The BotStrategy interface provides the turn of an automated player. A bot
+ * plays the current hunter of a Game through its typed commands move, moveTo
+ * and shoot, and reads the game through its CaveGraph and its cells, never
+ * through the text transcript.
+ *
+ * @author Daniel Zhou
+ */
+public interface BotStrategy {
+
+  /**
+   * Play one turn for the current hunter of a game in progress.
+   *
+   * @param game   the game to play
+   * @param random the random source of this game
+   */
+  void playTurn(Game game, SplittableRandom random);
+}
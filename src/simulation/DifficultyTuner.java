@@ -0,0 +1,333 @@
+package simulation;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import controller.Difficulty;
+import controller.GameOutcome;
+import controller.GamePreset;
+
+/**
+ * This class represents a tuner which searches the game settings for a preset
+ * a reference bot wins with a target probability. The rows, columns, remaining
+ * walls, pits, bats and arrows are searched by hill climbing, moving to the
+ * neighbour whose win rate is closest to the target.
+ *
+ * <p>Every candidate is simulated in batches, only until the Wilson interval of
+ * its win rate is tight enough, or until the interval shows it cannot beat the
+ * best candidate so far. All candidates play the same game seeds, so their win
+ * rates are compared on the same mazes, and the games of a candidate are kept
+ * to be continued if it is evaluated again.
+ *
+ * @author Daniel Zhou
+ */
+public class DifficultyTuner {
+  public static final double DEFAULT_Z = 1.96; // 95% confidence
+  public static final double DEFAULT_PRECISION = 0.01;
+  public static final int DEFAULT_MAX_STEPS = 30;
+
+  private static final int BATCH_SIZE = 1000;
+  private static final int MAX_GAMES_PER_CANDIDATE = 200000;
+  private static final int MIN_SIZE = 3; // rows and columns the search keeps to
+  private static final int MAX_SIZE = 20;
+
+  private final Supplier<BotStrategy> botFactory;
+  private final double precision;
+  private final long seed;
+  private final Map<Long, SimulationReport> reports = new HashMap<>();
+  private double z = DEFAULT_Z;
+  private int maxSteps = DEFAULT_MAX_STEPS;
+  private long numOfGamesPlayed;
+
+  /**
+   * Construct a tuner.
+   *
+   * @param botFactory the reference bot
+   * @param precision  the half width of the win rate interval of a preset
+   * @param seed       the seed of the simulated games
+   * @throws IllegalArgumentException if the precision is not in 0 to 0.5
+   */
+  public DifficultyTuner(Supplier<BotStrategy> botFactory, double precision, long seed)
+      throws IllegalArgumentException {
+    if (!(precision > 0 && precision < 0.5)) {
+      throw new IllegalArgumentException("invalid precision! should be in range 0 to 0.5");
+    }
+    this.botFactory = botFactory;
+    this.precision = precision;
+    this.seed = seed;
+  }
+
+  /**
+   * Search a preset the reference bot wins with the target probability,
+   * starting from a preset and keeping its label and farewell.
+   *
+   * @param start         the preset to start from
+   * @param targetWinRate the probability to win
+   * @return the preset whose win rate is closest to the target
+   * @throws IllegalArgumentException if the target is not in 0 to 1, or the
+   *                                  start preset cannot build a game
+   */
+  public GamePreset tune(GamePreset start, double targetWinRate)
+      throws IllegalArgumentException {
+    if (!(targetWinRate >= 0 && targetWinRate <= 1)) {
+      throw new IllegalArgumentException("invalid win rate! should be in range 0 to 1");
+    }
+    GamePreset best = start;
+    SimulationReport bestReport = evaluate(start, targetWinRate, Double.POSITIVE_INFINITY);
+    if (bestReport.getNumOfGames() == 0) {
+      throw new IllegalArgumentException("invalid preset " + start.getLabel()
+          + "! Cannot build a game");
+    }
+    for (int step = 0; step < maxSteps; step++) {
+      if (getWinLowerBound(bestReport) <= targetWinRate
+          && targetWinRate <= getWinUpperBound(bestReport)) {
+        break;
+      }
+      double bestDistance = Math.abs(bestReport.getRate(GameOutcome.WON) - targetWinRate);
+      GamePreset current = best;
+      for (GamePreset neighbour : getNeighbours(current)) {
+        SimulationReport report = evaluate(neighbour, targetWinRate, bestDistance);
+        double distance = Math.abs(report.getRate(GameOutcome.WON) - targetWinRate);
+        if (report.getNumOfGames() > 0 && distance < bestDistance) {
+          best = neighbour;
+          bestReport = report;
+          bestDistance = distance;
+        }
+      }
+      if (best == current) {
+        break;
+      }
+      // a neighbour may have stopped early against a worse candidate
+      bestReport = evaluate(best, targetWinRate, Double.POSITIVE_INFINITY);
+    }
+    return best;
+  }
+
+  /**
+   * Get the presets one setting away from a preset, one more or one fewer
+   * row, column, pit, bat or arrow, or an eighth more or fewer remaining walls.
+   * Neighbours with too few cells for their hazards are skipped.
+   */
+  private List<GamePreset> getNeighbours(GamePreset preset) {
+    List<GamePreset> neighbours = new ArrayList<>();
+    int maxWalls = getMaxWalls(preset.getRows(), preset.getColumns());
+    int wallStep = Math.max(1, maxWalls / 8);
+    for (int sign = -1; sign <= 1; sign += 2) {
+      int rows = preset.getRows() + sign;
+      int columns = preset.getColumns() + sign;
+      int arrows = preset.getStartingNumArrow() + sign;
+      int pits = preset.getNumOfPits() + sign;
+      int bats = preset.getNumOfBats() + sign;
+      int walls = Math.min(maxWalls, Math.max(0, preset.getNumOfRemainingWalls()
+          + sign * wallStep));
+      if (arrows >= 1) {
+        neighbours.add(with(preset, preset.getNumOfRemainingWalls(), preset.getNumOfBats(),
+            preset.getNumOfPits(), arrows));
+      }
+      if (pits >= 0 && fits(preset.getRows(), preset.getColumns(), pits,
+          preset.getNumOfBats())) {
+        neighbours.add(with(preset, preset.getNumOfRemainingWalls(), preset.getNumOfBats(),
+            pits, preset.getStartingNumArrow()));
+      }
+      if (bats >= 0 && fits(preset.getRows(), preset.getColumns(), preset.getNumOfPits(),
+          bats)) {
+        neighbours.add(with(preset, preset.getNumOfRemainingWalls(), bats,
+            preset.getNumOfPits(), preset.getStartingNumArrow()));
+      }
+      if (walls != preset.getNumOfRemainingWalls()) {
+        neighbours.add(with(preset, walls, preset.getNumOfBats(), preset.getNumOfPits(),
+            preset.getStartingNumArrow()));
+      }
+      if (rows >= MIN_SIZE && rows <= MAX_SIZE
+          && fits(rows, preset.getColumns(), preset.getNumOfPits(), preset.getNumOfBats())) {
+        neighbours.add(new GamePreset(preset.getLabel(), rows, preset.getColumns(),
+            Math.min(preset.getNumOfRemainingWalls(), getMaxWalls(rows, preset.getColumns())),
+            preset.getNumOfBats(), preset.getNumOfPits(), preset.getStartingNumArrow(),
+            preset.getFarewell()));
+      }
+      if (columns >= MIN_SIZE && columns <= MAX_SIZE
+          && fits(preset.getRows(), columns, preset.getNumOfPits(), preset.getNumOfBats())) {
+        neighbours.add(new GamePreset(preset.getLabel(), preset.getRows(), columns,
+            Math.min(preset.getNumOfRemainingWalls(), getMaxWalls(preset.getRows(), columns)),
+            preset.getNumOfBats(), preset.getNumOfPits(), preset.getStartingNumArrow(),
+            preset.getFarewell()));
+      }
+    }
+    return neighbours;
+  }
+
+  /**
+   * Check if a maze has cells for the hazards, the wumpus and the start, as
+   * GamePreset requires.
+   */
+  private static boolean fits(int rows, int columns, int numOfPits, int numOfBats) {
+    return (long) numOfPits + numOfBats + 2 <= (long) rows * columns;
+  }
+
+  private static int getMaxWalls(int rows, int columns) {
+    return (rows - 1) * (columns - 1);
+  }
+
+  private static GamePreset with(GamePreset preset, int numOfRemainingWalls, int numOfBats,
+      int numOfPits, int startingNumArrow) {
+    return new GamePreset(preset.getLabel(), preset.getRows(), preset.getColumns(),
+        numOfRemainingWalls, numOfBats, numOfPits, startingNumArrow, preset.getFarewell());
+  }
+
+  /**
+   * Simulate a candidate in batches until its win rate interval is tight
+   * enough, or its distance to the target is surely above the best distance.
+   * A candidate which cannot build a game gets an empty report.
+   */
+  private SimulationReport evaluate(GamePreset candidate, double targetWinRate,
+      double bestDistance) {
+    long key = getKey(candidate);
+    SimulationReport report = reports.get(key);
+    if (report == null) {
+      report = new SimulationReport();
+      reports.put(key, report);
+    }
+    try {
+      Simulator simulator = new Simulator(candidate, botFactory);
+      while (report.getNumOfGames() < MAX_GAMES_PER_CANDIDATE) {
+        if (report.getNumOfGames() > 0) {
+          double lower = getWinLowerBound(report);
+          double upper = getWinUpperBound(report);
+          if ((upper - lower) / 2 <= precision) {
+            break;
+          }
+          double minDistance = targetWinRate < lower ? lower - targetWinRate
+              : targetWinRate > upper ? targetWinRate - upper : 0;
+          if (minDistance > bestDistance) {
+            break;
+          }
+        }
+        report.merge(simulator.run(report.getNumOfGames(), BATCH_SIZE, seed));
+        numOfGamesPlayed += BATCH_SIZE;
+      }
+    } catch (IllegalArgumentException e) {
+      // too many hazards for the caves of some maze, not a candidate
+      report = new SimulationReport();
+      reports.put(key, report);
+    }
+    return report;
+  }
+
+  private double getWinLowerBound(SimulationReport report) {
+    return report.getWilsonLowerBound(GameOutcome.WON, z);
+  }
+
+  private double getWinUpperBound(SimulationReport report) {
+    return report.getWilsonUpperBound(GameOutcome.WON, z);
+  }
+
+  /**
+   * Pack the searched settings of a preset, 10 bits each.
+   */
+  private static long getKey(GamePreset preset) {
+    long key = preset.getRows();
+    key = key << 10 | preset.getColumns();
+    key = key << 10 | preset.getNumOfRemainingWalls();
+    key = key << 10 | preset.getNumOfBats();
+    key = key << 10 | preset.getNumOfPits();
+    return key << 10 | preset.getStartingNumArrow();
+  }
+
+  /**
+   * Get the games simulated for a preset with the settings of a tuned one.
+   *
+   * @param preset the preset
+   * @return the report, empty if the preset was never simulated
+   */
+  public SimulationReport getReport(GamePreset preset) {
+    SimulationReport report = reports.get(getKey(preset));
+    return report == null ? new SimulationReport() : report;
+  }
+
+  /**
+   * Get the number of games simulated by this tuner.
+   *
+   * @return the number of games
+   */
+  public long getNumOfGamesPlayed() {
+    return numOfGamesPlayed;
+  }
+
+  /**
+   * Get the standard normal quantile of the confidence of the intervals.
+   *
+   * @return the z
+   */
+  public double getZ() {
+    return z;
+  }
+
+  /**
+   * Set the standard normal quantile of the confidence of the intervals.
+   *
+   * @param z the z to set, 1.96 for 95%
+   * @throws IllegalArgumentException if z is not positive
+   */
+  public void setZ(double z) throws IllegalArgumentException {
+    if (!(z > 0)) {
+      throw new IllegalArgumentException("invalid z! Should be positive");
+    }
+    this.z = z;
+  }
+
+  /**
+   * Get the maximum number of hill climbing steps of a search.
+   *
+   * @return the maxSteps
+   */
+  public int getMaxSteps() {
+    return maxSteps;
+  }
+
+  /**
+   * Set the maximum number of hill climbing steps of a search.
+   *
+   * @param maxSteps the maxSteps to set
+   * @throws IllegalArgumentException if the number of steps is negative
+   */
+  public void setMaxSteps(int maxSteps) throws IllegalArgumentException {
+    if (maxSteps < 0) {
+      throw new IllegalArgumentException("invalid number of steps! Cannot be negative");
+    }
+    this.maxSteps = maxSteps;
+  }
+
+  /**
+   * Tune every difficulty preset for a random bot and write the presets file
+   * GameDriver loads with --gui. The arguments are the file, res/presets.txt by
+   * default, and the precision.
+   */
+  public static void main(String[] args) throws IOException {
+    String file = args.length > 0 ? args[0] : "res/presets.txt";
+    double precision = args.length > 1 ? Double.parseDouble(args[1]) : DEFAULT_PRECISION;
+    // Easy, Medium, Hard, Hell
+    double[] targetWinRates = {0.4, 0.25, 0.15, 0.08};
+    List<GamePreset> presets = new ArrayList<>();
+    for (Difficulty difficulty : Difficulty.values()) {
+      DifficultyTuner tuner = new DifficultyTuner(() -> new RandomBot(0.5), precision, 1);
+      double target = targetWinRates[difficulty.ordinal()];
+      GamePreset preset = tuner.tune(difficulty.getPreset(), target);
+      SimulationReport report = tuner.getReport(preset);
+      System.out.println(String.format("%s: target %.3f, won %.3f [%.3f, %.3f] with %d arrows,"
+          + " %d pits, %d bats, %d walls after %d games", preset.getLabel(), target,
+          report.getRate(GameOutcome.WON), tuner.getWinLowerBound(report),
+          tuner.getWinUpperBound(report), preset.getStartingNumArrow(), preset.getNumOfPits(),
+          preset.getNumOfBats(), preset.getNumOfRemainingWalls(), tuner.getNumOfGamesPlayed()));
+      presets.add(preset);
+    }
+    try (Writer writer = new FileWriter(file)) {
+      GamePreset.store(presets, writer);
+    }
+  }
+}
@@ -0,0 +1,856 @@
+package simulation;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import controller.Difficulty;
+import controller.Game;
+import controller.GameOutcome;
+import controller.GamePreset;
+import model.BeliefState;
+import model.CaveGraph;
+import model.Cell;
+import model.MazeCache;
+import model.ZobristKeys;
+
+/**
+ * This class represents an exact solver of small games: from what the hunter
+ * knows, the highest probability to win within a number of turns, and the
+ * action reaching it. The hazards are drawn uniformly over the caves, like Game
+ * draws them, so every layout of the Wumpus, the pits and the bats consistent
+ * with what the hunter sensed in the visited caves and with its missed arrows
+ * is equally likely. The solver enumerates these layouts and runs expectimax
+ * over information states: an action splits the layouts by what the hunter
+ * senses next, superbats grabbing the hunter half of the time and dropping it
+ * in any other cave.
+ *
+ * <p>The same information state is often reached through different orders of
+ * moves, so states are merged by a Zobrist hash of the hunter's cave, arrows,
+ * turns left, observations and missed arrows, in a transposition table of
+ * bounded size. The turns are searched by iterative deepening until a time
+ * budget runs out: the probability to win within n turns grows with n towards
+ * the probability to win at all. An action is cut off as soon as it cannot beat
+ * the best action even if all its remaining outcomes were wins.
+ *
+ * <p>The solver plays one hunter. In a 2 player game it ignores the other
+ * hunter, and knows what both sensed as they mark the same visited caves.
+ *
+ * @author Daniel Zhou
+ */
+public class ExpectimaxSolver implements BotStrategy {
+  public static final int MAX_CAVES = 64;
+  public static final int MAX_LAYOUTS = 1 << 22;
+  public static final int MAX_HORIZON = 64;
+  public static final int DEFAULT_TABLE_BITS = 20;
+
+  private static final int MAX_DISTANCE = 5; // the caves an arrow flies through
+  private static final int BLOOD = 1; // what the hunter senses in a cave
+  private static final int DRAFT = 2;
+  private static final int BATS = 4;
+  private static final int NUM_OF_CLASSES = 64; // what is sensed in two caves
+  private static final int NO_ACTION = -1;
+  // kinds of partition of the layouts
+  private static final int ENTER = 0; // the hunter enters a cave and stays
+  private static final int DROP = 1; // superbats drop the hunter in a cave
+  private static final int HAS_BATS = 2;
+  private static final int MISS = 3;
+  // features of the Zobrist hash
+  private static final int POSITION = 0;
+  private static final int ARROWS = 1;
+  private static final int TURNS = 2;
+  private static final int MISSED = 3;
+  private static final int OBSERVED = 4; // plus what was sensed in the cave
+  private static final int NUM_OF_FEATURES = OBSERVED + 8;
+  private static final long ZOBRIST_SEED = 1;
+
+  private final int horizon;
+  private final long budgetNanos;
+  private final TranspositionTable table;
+
+  // the map the tables below were built for
+  private CaveGraph caveGraph;
+  private int numOfPits;
+  private int numOfBats;
+  private int numOfCaves;
+  private ZobristKeys zobrist;
+  private long[] adjacent; // the caves every cave leads to
+  private int[][] moves; // distinct caves every cave leads to
+  private int[][] shots; // distinct caves an arrow shot from every cave stops in
+  private int[][] shotTargets; // the cave and distance to shoot for every shot
+  private int[][] shotDistances;
+
+  // the layouts consistent with the state solved, and lists of them
+  private byte[] wumpusCaves = new byte[0];
+  private long[] pitMasks = new long[0];
+  private long[] batMasks = new long[0];
+  private int numOfLayouts;
+  private int[] arena = new int[0];
+  private int[][] starts; // the classes of the partitions of every turn
+  private int[][] dropStarts;
+  private int[][] wumpusCounts; // the layouts by Wumpus cave of every turn
+  private final int[] ends = new int[NUM_OF_CLASSES];
+  private int[][] classCounts; // the layouts of every class by Wumpus cave
+
+  private long deadline;
+  private boolean isTimed;
+  private boolean isTimeUp;
+  private long numOfNodes;
+  private double winProbability;
+  private int solvedHorizon;
+  private int bestTarget = CaveGraph.NONE;
+  private int bestDistance;
+  private final int[] leadToCaves = new int[4];
+
+  /**
+   * Construct a solver.
+   *
+   * @param horizon   the most turns searched
+   * @param budget    the time to search deeper after one turn is solved
+   * @param unit      the unit of the budget
+   * @param tableBits the log2 of the number of entries of the transposition
+   *                  table, 20 takes about 20 MB
+   * @throws IllegalArgumentException if the horizon is not in 1 to 64, the
+   *                                  budget is negative or the table size is
+   *                                  not in 1 to 30
+   */
+  public ExpectimaxSolver(int horizon, long budget, TimeUnit unit, int tableBits)
+      throws IllegalArgumentException {
+    if (horizon < 1 || horizon > MAX_HORIZON) {
+      throw new IllegalArgumentException("invalid horizon! should be in range 1 to "
+          + MAX_HORIZON);
+    }
+    if (budget < 0) {
+      throw new IllegalArgumentException("invalid budget! Cannot be negative");
+    }
+    this.horizon = horizon;
+    this.budgetNanos = unit.toNanos(budget);
+    this.table = new TranspositionTable(tableBits);
+  }
+
+  /**
+   * Solve the current hunter's state of a game: its win probability and best
+   * action, read with the getters.
+   *
+   * @param game the game, in progress
+   * @return the highest probability to win within the solved horizon
+   * @throws IllegalArgumentException if the game is over, or has more than 64
+   *                                  caves or too many possible layouts
+   */
+  public double solve(Game game) throws IllegalArgumentException {
+    if (game.isEnd()) {
+      throw new IllegalArgumentException("invalid game! Already over");
+    }
+    prepare(game);
+    int cell = game.getHunter().getCurrentPos().x * game.getColumns()
+        + game.getHunter().getCurrentPos().y;
+    int cave = caveGraph.getCaveId(cell);
+    long visited = 0;
+    long missed = 0;
+    long key = 0;
+    byte[] observations = new byte[numOfCaves];
+    BeliefState beliefs = game.getBeliefState();
+    for (int c = 0; c < numOfCaves; c++) {
+      int flags = game.getCellFlags()[caveGraph.getCaveCell(c)];
+      if ((flags & Cell.VISITED) != 0) {
+        visited |= 1L << c;
+        observations[c] = (byte) observe(flags);
+        key ^= zobrist.get(OBSERVED + observations[c], c);
+      } else if (beliefs.getWumpusProbability(c) == 0) {
+        // an arrow missed the Wumpus there
+        missed |= 1L << c;
+        key ^= zobrist.get(MISSED, c);
+      }
+    }
+    enumerateLayouts(visited, missed, observations);
+    if (numOfLayouts == 0) {
+      throw new IllegalArgumentException("invalid game! No layout matches what was sensed");
+    }
+    ensureArena(numOfLayouts);
+    for (int i = 0; i < numOfLayouts; i++) {
+      arena[i] = i;
+    }
+    key ^= zobrist.get(POSITION, cave);
+    long start = System.nanoTime();
+    deadline = start + budgetNanos;
+    isTimeUp = false;
+    winProbability = 0;
+    solvedHorizon = 0;
+    int bestAction = NO_ACTION;
+    for (int turns = 1; turns <= horizon; turns++) {
+      // the first turn is always solved
+      isTimed = turns > 1;
+      int arrows = Math.min(game.getHunter().getNumberOfArrows(), turns);
+      long rootKey = key ^ zobrist.get(ARROWS, arrows) ^ zobrist.get(TURNS, turns);
+      double value = solve(cave, arrows, turns, 0, numOfLayouts, numOfLayouts, visited, missed,
+          rootKey);
+      if (isTimeUp) {
+        break;
+      }
+      int entry = table.find(rootKey);
+      winProbability = value;
+      solvedHorizon = turns;
+      bestAction = entry < 0 ? NO_ACTION : table.getAction(entry);
+      if (value >= 1) {
+        break;
+      }
+    }
+    if (bestAction == NO_ACTION) {
+      bestTarget = CaveGraph.NONE;
+      bestDistance = 0;
+    } else if (bestAction < numOfCaves) {
+      bestTarget = bestAction;
+      bestDistance = 0;
+    } else {
+      bestTarget = shotTargets[cave][bestAction - numOfCaves];
+      bestDistance = shotDistances[cave][bestAction - numOfCaves];
+    }
+    return winProbability;
+  }
+
+  @Override
+  public void playTurn(Game game, SplittableRandom random) {
+    solve(game);
+    if (bestTarget == CaveGraph.NONE) {
+      // no action can win within the horizon
+      int cell = game.getHunter().getCurrentPos().x * game.getColumns()
+          + game.getHunter().getCurrentPos().y;
+      int count = caveGraph.getLeadToCavesOfCell(cell, leadToCaves);
+      game.moveTo(leadToCaves[random.nextInt(count)]);
+    } else if (bestDistance == 0) {
+      game.moveTo(bestTarget);
+    } else {
+      game.shoot(bestTarget, bestDistance);
+    }
+  }
+
+  /**
+   * Build the tables of the map of a game, unless they were built for it. The
+   * solved states only depend on the map, so the table is kept between games.
+   */
+  private void prepare(Game game) throws IllegalArgumentException {
+    CaveGraph graph = game.getCaveGraph();
+    if (graph == caveGraph && game.getNumOfPits() == numOfPits
+        && game.getNumOfBats() == numOfBats) {
+      return;
+    }
+    if (graph.getNumOfCaves() > MAX_CAVES) {
+      throw new IllegalArgumentException("invalid game! Only " + MAX_CAVES
+          + " caves can be solved");
+    }
+    caveGraph = graph;
+    numOfPits = game.getNumOfPits();
+    numOfBats = game.getNumOfBats();
+    numOfCaves = graph.getNumOfCaves();
+    zobrist = new ZobristKeys(NUM_OF_FEATURES, Math.max(numOfCaves, MAX_HORIZON + 1),
+        ZOBRIST_SEED);
+    adjacent = new long[numOfCaves];
+    moves = new int[numOfCaves][];
+    shots = new int[numOfCaves][];
+    shotTargets = new int[numOfCaves][];
+    shotDistances = new int[numOfCaves][];
+    starts = new int[horizon + 1][NUM_OF_CLASSES + 1];
+    dropStarts = new int[horizon + 1][NUM_OF_CLASSES + 1];
+    wumpusCounts = new int[horizon + 1][numOfCaves];
+    classCounts = new int[NUM_OF_CLASSES][numOfCaves];
+    int[] stops = new int[4 * MAX_DISTANCE];
+    int[] targets = new int[4 * MAX_DISTANCE];
+    int[] distances = new int[4 * MAX_DISTANCE];
+    for (int cave = 0; cave < numOfCaves; cave++) {
+      int count = graph.getLeadToCaves(cave, leadToCaves);
+      for (int i = 0; i < count; i++) {
+        adjacent[cave] |= 1L << leadToCaves[i];
+      }
+      moves[cave] = new int[Long.bitCount(adjacent[cave])];
+      int numOfMoves = 0;
+      for (long bits = adjacent[cave]; bits != 0; bits &= bits - 1) {
+        moves[cave][numOfMoves++] = Long.numberOfTrailingZeros(bits);
+      }
+      // the stop caves of Game.shoot, each once
+      long stopped = 0;
+      int numOfShots = 0;
+      for (int target : moves[cave]) {
+        int direction = graph.getDirectionTo(cave, target);
+        for (int distance = 1; distance <= MAX_DISTANCE; distance++) {
+          int stop = distance == 1 ? target : graph.getArrowTarget(cave, direction, distance);
+          if ((stopped >>> stop & 1) == 0) {
+            stopped |= 1L << stop;
+            stops[numOfShots] = stop;
+            targets[numOfShots] = target;
+            distances[numOfShots++] = distance;
+          }
+        }
+      }
+      shots[cave] = Arrays.copyOf(stops, numOfShots);
+      shotTargets[cave] = Arrays.copyOf(targets, numOfShots);
+      shotDistances[cave] = Arrays.copyOf(distances, numOfShots);
+    }
+    table.clear();
+  }
+
+  /**
+   * Enumerate the layouts consistent with what was sensed in the visited
+   * caves: no hazard where the hunter was alive, blood and drafts next to the
+   * Wumpus and the pits, bats where they were met, no Wumpus where an arrow
+   * missed.
+   */
+  private void enumerateLayouts(long visited, long missed, byte[] observations)
+      throws IllegalArgumentException {
+    long all = numOfCaves == 64 ? -1L : (1L << numOfCaves) - 1;
+    long knownBats = 0;
+    for (long bits = visited; bits != 0; bits &= bits - 1) {
+      int cave = Long.numberOfTrailingZeros(bits);
+      if ((observations[cave] & BATS) != 0) {
+        knownBats |= 1L << cave;
+      }
+    }
+    long[] pitSets = getSubsets(all & ~visited, numOfPits);
+    long[] batSets = getSubsets(all & ~visited, numOfBats - Long.bitCount(knownBats));
+    numOfLayouts = 0;
+    for (long pits : pitSets) {
+      if (!isDraftConsistent(pits, visited, observations)) {
+        continue;
+      }
+      for (long bits = all & ~visited & ~missed & ~pits; bits != 0; bits &= bits - 1) {
+        int wumpus = Long.numberOfTrailingZeros(bits);
+        if (!isBloodConsistent(wumpus, visited, observations)) {
+          continue;
+        }
+        for (long bats : batSets) {
+          if ((bats & (pits | 1L << wumpus)) == 0) {
+            addLayout(wumpus, pits, bats | knownBats);
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Get every subset of a number of caves among the given caves.
+   */
+  private static long[] getSubsets(long caves, int size) throws IllegalArgumentException {
+    int[] ids = new int[Long.bitCount(caves)];
+    int n = 0;
+    for (long bits = caves; bits != 0; bits &= bits - 1) {
+      ids[n++] = Long.numberOfTrailingZeros(bits);
+    }
+    if (size < 0 || size > n) {
+      return new long[0];
+    }
+    double count = 1;
+    for (int i = 0; i < size; i++) {
+      count = count * (n - i) / (i + 1);
+    }
+    if (count > MAX_LAYOUTS) {
+      throw new IllegalArgumentException("invalid game! Too many layouts to solve");
+    }
+    long[] subsets = new long[(int) Math.round(count)];
+    int[] indices = new int[size];
+    for (int i = 0; i < size; i++) {
+      indices[i] = i;
+    }
+    for (int s = 0; s < subsets.length; s++) {
+      long subset = 0;
+      for (int index : indices) {
+        subset |= 1L << ids[index];
+      }
+      subsets[s] = subset;
+      // the next combination in lexicographic order
+      int i = size - 1;
+      while (i >= 0 && indices[i] == n - size + i) {
+        i--;
+      }
+      if (i >= 0) {
+        indices[i]++;
+        for (int j = i + 1; j < size; j++) {
+          indices[j] = indices[j - 1] + 1;
+        }
+      }
+    }
+    return subsets;
+  }
+
+  private boolean isDraftConsistent(long pits, long visited, byte[] observations) {
+    for (long bits = visited; bits != 0; bits &= bits - 1) {
+      int cave = Long.numberOfTrailingZeros(bits);
+      if (((adjacent[cave] & pits) != 0) != ((observations[cave] & DRAFT) != 0)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private boolean isBloodConsistent(int wumpus, long visited, byte[] observations) {
+    for (long bits = visited; bits != 0; bits &= bits - 1) {
+      int cave = Long.numberOfTrailingZeros(bits);
+      if ((adjacent[cave] >>> wumpus & 1) != (observations[cave] & BLOOD)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private void addLayout(int wumpus, long pits, long bats) throws IllegalArgumentException {
+    if (numOfLayouts == MAX_LAYOUTS) {
+      throw new IllegalArgumentException("invalid game! Too many layouts to solve");
+    }
+    if (numOfLayouts == wumpusCaves.length) {
+      int capacity = Math.max(1024, 2 * numOfLayouts);
+      wumpusCaves = Arrays.copyOf(wumpusCaves, capacity);
+      pitMasks = Arrays.copyOf(pitMasks, capacity);
+      batMasks = Arrays.copyOf(batMasks, capacity);
+    }
+    wumpusCaves[numOfLayouts] = (byte) wumpus;
+    pitMasks[numOfLayouts] = pits;
+    batMasks[numOfLayouts++] = bats;
+  }
+
+  /**
+   * Get the highest probability to win within some turns from a cave, over the
+   * layouts of arena[from, from + count), and store it with its action. The
+   * arena from top on is free for the layouts of the next states.
+   */
+  private double solve(int cave, int arrows, int turns, int from, int count, int top,
+      long visited, long missed, long key) {
+    if (turns == 0) {
+      return 0;
+    }
+    int entry = table.find(key);
+    if (entry >= 0) {
+      return table.getValue(entry);
+    }
+    if ((++numOfNodes & 1023) == 0 && isTimed && System.nanoTime() > deadline) {
+      isTimeUp = true;
+    }
+    if (isTimeUp) {
+      return 0;
+    }
+    // every layout agrees on the bats of a visited cave
+    boolean isBatCave = (batMasks[arena[from]] >>> cave & 1) != 0;
+    double best = 0;
+    int bestAction = NO_ACTION;
+    boolean isMissTried = false;
+    int[] hitCounts = countWumpusCaves(from, count, wumpusCounts[turns]);
+    // the best action with a turn less comes first, to cut off more actions
+    int first = getPreviousAction(arrows, turns, key);
+    int numOfShots = shots[cave].length;
+    // a move cannot win in the last turn
+    int numOfActions = numOfShots + (turns > 1 ? moves[cave].length : 0);
+    for (int i = -1; i < numOfActions && best < 1; i++) {
+      int action = i < 0 ? first : i < numOfShots ? numOfCaves + i : moves[cave][i - numOfShots];
+      if (action == NO_ACTION || i >= 0 && action == first) {
+        continue;
+      }
+      double value;
+      if (action >= numOfCaves) {
+        int stop = shots[cave][action - numOfCaves];
+        int hits = hitCounts[stop];
+        if (hits == 0) {
+          // a sure miss only wastes an arrow, unless the superbats here may fly
+          if (!isBatCave || isMissTried) {
+            continue;
+          }
+          isMissTried = true;
+        }
+        value = (double) hits / count;
+        if (hits < count && arrows > 1 && turns > 1) {
+          value += afterMiss(cave, stop, arrows, turns, from, count, top, visited, missed, key);
+        }
+      } else {
+        value = move(cave, action, arrows, turns, from, count, top, visited, missed, key, best);
+      }
+      if (value > best) {
+        best = value;
+        bestAction = action;
+      }
+    }
+    if (isTimeUp) {
+      return 0;
+    }
+    table.store(key, turns, best, bestAction);
+    return best;
+  }
+
+  /**
+   * Get the best action of a state with a turn less, found in the table when
+   * the turns are deepened one by one.
+   */
+  private int getPreviousAction(int arrows, int turns, long key) {
+    if (turns < 2) {
+      return NO_ACTION;
+    }
+    int previousArrows = Math.min(arrows, turns - 1);
+    int entry = table.find(key ^ zobrist.get(TURNS, turns) ^ zobrist.get(TURNS, turns - 1)
+        ^ zobrist.get(ARROWS, arrows) ^ zobrist.get(ARROWS, previousArrows));
+    return entry < 0 ? NO_ACTION : table.getAction(entry);
+  }
+
+  /**
+   * Get the value of a state after an action: the last turn is only a shot,
+   * solved without the table which it would fill with cheap states.
+   */
+  private double next(int cave, int arrows, int turns, int from, int count, int top,
+      long visited, long missed, long key) {
+    if (turns > 1) {
+      return solve(cave, arrows, turns, from, count, top, visited, missed, key);
+    }
+    int[] hitCounts = countWumpusCaves(from, count, wumpusCounts[0]);
+    int hits = 0;
+    for (int stop : shots[cave]) {
+      hits = Math.max(hits, hitCounts[stop]);
+    }
+    return (double) hits / count;
+  }
+
+  /**
+   * Count the layouts of arena[from, from + count) by Wumpus cave.
+   */
+  private int[] countWumpusCaves(int from, int count, int[] counts) {
+    Arrays.fill(counts, 0);
+    for (int i = from; i < from + count; i++) {
+      counts[wumpusCaves[arena[i]]]++;
+    }
+    return counts;
+  }
+
+  /**
+   * Get the probability to win after an arrow missed, times the probability
+   * to miss: superbats in the cave may grab the hunter before its next turn.
+   */
+  private double afterMiss(int cave, int stop, int arrows, int turns, int from, int count,
+      int top, long visited, long missed, long key) {
+    int numOfMisses = partition(from, count, top, MISS, stop, 0, starts[turns]);
+    long nextKey = key ^ zobrist.get(ARROWS, arrows) ^ zobrist.get(ARROWS, arrows - 1)
+        ^ zobrist.get(TURNS, turns) ^ zobrist.get(TURNS, turns - 1);
+    if ((missed >>> stop & 1) == 0) {
+      nextKey ^= zobrist.get(MISSED, stop);
+    }
+    long nextMissed = missed | 1L << stop;
+    int nextTop = top + numOfMisses;
+    double value = next(cave, arrows - 1, turns - 1, top, numOfMisses, nextTop, visited,
+        nextMissed, nextKey);
+    if ((batMasks[arena[top]] >>> cave & 1) != 0) {
+      value = 0.5 * value + 0.5 * drop(cave, arrows - 1, turns - 1, top, numOfMisses, nextTop,
+          visited, nextMissed, nextKey ^ zobrist.get(POSITION, cave));
+    }
+    return value * numOfMisses / count;
+  }
+
+  /**
+   * Get the probability to win after moving to a cave, cut off once it
+   * cannot beat the best value.
+   */
+  private double move(int cave, int target, int arrows, int turns, int from, int count,
+      int top, long visited, long missed, long key, double best) {
+    int nextArrows = Math.min(arrows, turns - 1);
+    long nextKey = key ^ zobrist.get(POSITION, cave) ^ zobrist.get(ARROWS, arrows)
+        ^ zobrist.get(ARROWS, nextArrows) ^ zobrist.get(TURNS, turns)
+        ^ zobrist.get(TURNS, turns - 1);
+    int[] starts = this.starts[turns];
+    int numOfAlive = 0;
+    double value = 0;
+    if (turns == 2) {
+      // the last turn is a shot, no list of layouts is needed
+      value = getLastShotHits(from, count, ENTER, target, 0) / count;
+    } else {
+      numOfAlive = partition(from, count, top, ENTER, target, 0, starts);
+    }
+    int nextTop = top + numOfAlive;
+    // the mass of the outcomes not counted yet
+    double remaining = (double) numOfAlive / count;
+    for (int observation = 0; observation < NUM_OF_CLASSES && numOfAlive > 0; observation++) {
+      int size = starts[observation + 1] - starts[observation];
+      if (size == 0) {
+        continue;
+      }
+      if (value + remaining <= best) {
+        return value;
+      }
+      double probability = (observation & BATS) == 0 ? (double) size / count
+          : 0.5 * size / count;
+      long childKey = nextKey ^ zobrist.get(POSITION, target);
+      if ((visited >>> target & 1) == 0) {
+        childKey ^= zobrist.get(OBSERVED + observation, target);
+      }
+      value += probability * next(target, nextArrows, turns - 1, top + starts[observation],
+          size, nextTop, visited | 1L << target, missed, childKey);
+      remaining -= probability;
+    }
+    int numOfBatLayouts = partition(from, count, nextTop, HAS_BATS, target, 0, starts);
+    if (numOfBatLayouts > 0 && value + 0.5 * numOfBatLayouts / count > best) {
+      value += 0.5 * numOfBatLayouts / count * drop(target, nextArrows, turns - 1, nextTop,
+          numOfBatLayouts, nextTop + numOfBatLayouts, visited, missed, nextKey);
+    }
+    return value;
+  }
+
+  /**
+   * Get the probability to win after superbats in a cave grabbed the hunter,
+   * over the layouts of arena[from, from + count) which all have bats there.
+   * The hunter sensed the cave, and is dropped in any other cave. The key has
+   * no position, the position of the drop is added.
+   */
+  private double drop(int cave, int arrows, int turns, int from, int count, int top,
+      long visited, long missed, long key) {
+    double value = 0;
+    int[] starts = dropStarts[turns];
+    for (int landing = 0; landing < numOfCaves; landing++) {
+      if (landing == cave) {
+        continue;
+      }
+      if (turns == 1) {
+        value += getLastShotHits(from, count, DROP, cave, landing) / count;
+        continue;
+      }
+      int numOfAlive = partition(from, count, top, DROP, cave, landing, starts);
+      int nextTop = top + numOfAlive;
+      double landingValue = 0;
+      for (int observations = 0; observations < NUM_OF_CLASSES && numOfAlive > 0;
+          observations++) {
+        int size = starts[observations + 1] - starts[observations];
+        if (size == 0) {
+          continue;
+        }
+        long childKey = key ^ zobrist.get(POSITION, landing);
+        if ((visited >>> cave & 1) == 0) {
+          childKey ^= zobrist.get(OBSERVED + (observations >>> 3), cave);
+        }
+        if ((visited >>> landing & 1) == 0) {
+          childKey ^= zobrist.get(OBSERVED + (observations & 7), landing);
+        }
+        landingValue += (double) size * next(landing, arrows, turns, top + starts[observations],
+            size, nextTop, visited | 1L << cave | 1L << landing, missed, childKey);
+      }
+      value += landingValue / count;
+    }
+    return value / (numOfCaves - 1);
+  }
+
+  /**
+   * Get the layouts of arena[from, from + count) the best last shot hits in
+   * every class of a partition, summed over the classes. The shot is from the
+   * cave entered or the landing cave of a drop, and a class whose cave has
+   * bats counts half when entered, as the bats may grab the hunter.
+   */
+  private double getLastShotHits(int from, int count, int kind, int cave, int landing) {
+    long classes = 0;
+    for (int i = from; i < from + count; i++) {
+      int layout = arena[i];
+      int k = classify(layout, kind, cave, landing);
+      if (k >= 0) {
+        classCounts[k][wumpusCaves[layout]]++;
+        classes |= 1L << k;
+      }
+    }
+    int[] stops = shots[kind == ENTER ? cave : landing];
+    double hits = 0;
+    for (; classes != 0; classes &= classes - 1) {
+      int k = Long.numberOfTrailingZeros(classes);
+      int most = 0;
+      for (int stop : stops) {
+        most = Math.max(most, classCounts[k][stop]);
+      }
+      hits += kind == ENTER && (k & BATS) != 0 ? 0.5 * most : most;
+      Arrays.fill(classCounts[k], 0);
+    }
+    return hits;
+  }
+
+  /**
+   * Copy the layouts of arena[from, from + count) kept by a partition to the
+   * arena from top on, grouped by what the hunter senses: the class of a layout
+   * k is in top + starts[k] to top + starts[k + 1]. Return the number copied.
+   */
+  private int partition(int from, int count, int top, int kind, int cave, int landing,
+      int[] starts) {
+    Arrays.fill(starts, 0);
+    for (int i = from; i < from + count; i++) {
+      int k = classify(arena[i], kind, cave, landing);
+      if (k >= 0) {
+        starts[k + 1]++;
+      }
+    }
+    for (int k = 0; k < NUM_OF_CLASSES; k++) {
+      starts[k + 1] += starts[k];
+    }
+    int total = starts[NUM_OF_CLASSES];
+    ensureArena(top + total);
+    System.arraycopy(starts, 0, ends, 0, NUM_OF_CLASSES);
+    for (int i = from; i < from + count; i++) {
+      int layout = arena[i];
+      int k = classify(layout, kind, cave, landing);
+      if (k >= 0) {
+        arena[top + ends[k]++] = layout;
+      }
+    }
+    return total;
+  }
+
+  /**
+   * Get the class of a layout in a partition, -1 if the layout is dropped.
+   */
+  private int classify(int layout, int kind, int cave, int landing) {
+    int wumpus = wumpusCaves[layout];
+    long pits = pitMasks[layout];
+    switch (kind) {
+      case ENTER:
+        return wumpus == cave || (pits >>> cave & 1) != 0 ? -1 : observe(layout, cave);
+      case DROP:
+        return wumpus == landing || (pits >>> landing & 1) != 0 ? -1
+            : observe(layout, cave) << 3 | observe(layout, landing);
+      case HAS_BATS:
+        return (batMasks[layout] >>> cave & 1) != 0 ? 0 : -1;
+      default:
+        return wumpus == cave ? -1 : 0;
+    }
+  }
+
+  /**
+   * Get what the hunter senses in a cave of a layout.
+   */
+  private int observe(int layout, int cave) {
+    int observation = (int) (adjacent[cave] >>> wumpusCaves[layout] & 1);
+    if ((adjacent[cave] & pitMasks[layout]) != 0) {
+      observation |= DRAFT;
+    }
+    if ((batMasks[layout] >>> cave & 1) != 0) {
+      observation |= BATS;
+    }
+    return observation;
+  }
+
+  /**
+   * Get what the hunter sensed in a visited cave of the map, from its flags.
+   */
+  private static int observe(int flags) {
+    int observation = (flags & Cell.BLOOD) != 0 ? BLOOD : 0;
+    if ((flags & Cell.DRAFT) != 0) {
+      observation |= DRAFT;
+    }
+    return (flags & Cell.BAT) != 0 ? observation | BATS : observation;
+  }
+
+  private void ensureArena(int size) {
+    if (size > arena.length) {
+      arena = Arrays.copyOf(arena, Math.max(size, 2 * arena.length));
+    }
+  }
+
+  /**
+   * Get the win probability of the last solve.
+   *
+   * @return the probability to win within the solved horizon
+   */
+  public double getWinProbability() {
+    return winProbability;
+  }
+
+  /**
+   * Get the number of turns the last solve looked ahead, the horizon unless
+   * the time budget ran out.
+   *
+   * @return the solved horizon
+   */
+  public int getSolvedHorizon() {
+    return solvedHorizon;
+  }
+
+  /**
+   * Get the cave of the best action of the last solve, to move to if the
+   * distance is 0 or else to shoot at.
+   *
+   * @return the dense cave id, CaveGraph.NONE if no action can win within the
+   *         solved horizon
+   */
+  public int getBestTarget() {
+    return bestTarget;
+  }
+
+  /**
+   * Get the number of caves the arrow of the best action flies through.
+   *
+   * @return the distance, 0 for a move
+   */
+  public int getBestDistance() {
+    return bestDistance;
+  }
+
+  /**
+   * Get the number of layouts consistent with the last solved state.
+   *
+   * @return the number of layouts
+   */
+  public int getNumOfLayouts() {
+    return numOfLayouts;
+  }
+
+  /**
+   * Get the number of states solved by this solver, without the ones found
+   * in the transposition table.
+   *
+   * @return the number of states
+   */
+  public long getNumOfNodes() {
+    return numOfNodes;
+  }
+
+  /**
+   * Get the share of the lookups found in the transposition table.
+   *
+   * @return the hit rate in 0 to 1
+   */
+  public double getTableHitRate() {
+    return table.getHitRate();
+  }
+
+  /**
+   * Certify the maps of a preset: solve the start of seeded games, 10 seconds
+   * per map, and compare the optimal win probability within the horizon to the
+   * win rate of the bots within as many turns. The arguments are the number of games, 100 by
+   * default, the horizon, 5 by default, and the preset label, Hell by default.
+   */
+  public static void main(String[] args) {
+    int numOfGames = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+    int turns = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+    Difficulty difficulty = Difficulty.HELL;
+    for (Difficulty preset : Difficulty.values()) {
+      if (args.length > 2 && preset.getLabel().equalsIgnoreCase(args[2])) {
+        difficulty = preset;
+      }
+    }
+    GamePreset preset = difficulty.getPreset();
+    Game game = new Game(preset.getRows(), preset.getColumns(), preset.getNumOfRemainingWalls(),
+        preset.getNumOfPits(), preset.getNumOfBats(), Math.min(Simulator.DEFAULT_STARTING_IDX,
+        preset.getRows() * preset.getColumns()), preset.getStartingNumArrow(), false, false);
+    game.setMazeCache(new MazeCache(0));
+    ExpectimaxSolver solver = new ExpectimaxSolver(turns, 10, TimeUnit.SECONDS,
+        DEFAULT_TABLE_BITS);
+    double total = 0;
+    int numOfWinnable = 0;
+    int numOfSolved = 0;
+    long start = System.nanoTime();
+    for (int i = 0; i < numOfGames; i++) {
+      game.setSeedRandomGame(Simulator.getGameSeed(1, i));
+      game.start();
+      // a map the budget stops short of the horizon gives a lower bound
+      double value = solver.solve(game);
+      total += value;
+      numOfWinnable += value > 0 ? 1 : 0;
+      numOfSolved += solver.getSolvedHorizon() == turns ? 1 : 0;
+    }
+    double seconds = (System.nanoTime() - start) / 1e9;
+    System.out.println(String.format("%s: %d of %d maps winnable, %d solved to %d turns, %.2f s"
+        + " per map, table hit rate %.2f", preset.getLabel(), numOfWinnable, numOfGames,
+        numOfSolved, turns, seconds / numOfGames, solver.getTableHitRate()));
+    System.out.println(String.format("  won within %d turns: optimal at least %.3f", turns,
+        total / numOfGames));
+    Simulator random = new Simulator(difficulty, () -> new RandomBot(0.5));
+    random.setMaxTurns(turns);
+    Simulator mcts = new Simulator(difficulty,
+        () -> new MctsBot(1, TimeUnit.MILLISECONDS, 1));
+    mcts.setMaxTurns(turns);
+    System.out.println(String.format("  won within %d turns: RandomBot %.3f, MctsBot %.3f", turns,
+        random.run(numOfGames, 1).getRate(GameOutcome.WON),
+        mcts.run(numOfGames, 1).getRate(GameOutcome.WON)));
+  }
+}
@@ -0,0 +1,674 @@
+package simulation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Supplier;
+
+import controller.Difficulty;
+import controller.Game;
+import model.BeliefState;
+import model.CaveGraph;
+import model.Cell;
+
+/**
+ * This class represents a bot which picks every action by Monte Carlo tree
+ * search over the hazard layouts it cannot see. Every playout draws a layout
+ * consistent with the BeliefState of the hunter, walks down the tree with UCT
+ * and plays the rest of the game at random on that layout. The tree is open
+ * loop: a node is a sequence of actions, an action moving to or shooting into
+ * the i-th cave the hunter's cell leads to, so superbats may put the same node
+ * in different caves.
+ *
+ * <p>The playouts of a move run on several threads sharing one tree without
+ * locks: the statistics are atomic counters, children are added with
+ * compare-and-set, and a visit is counted on the way down so that concurrent
+ * playouts spread over the tree (a virtual loss). The other hunter of a 2
+ * player game is not modelled.
+ *
+ * @author Daniel Zhou
+ */
+public class MctsBot implements BotStrategy {
+  public static final double DEFAULT_EXPLORATION = Math.sqrt(2);
+
+  private static final int NUM_OF_ACTIONS = 8; // move 0-3, shoot 4-7
+  private static final int MAX_PLAYOUT_STEPS = 200; // a longer playout is a loss
+  private static final int CONTINUE = -1;
+  private static final int LOSS = 0;
+  private static final int WIN = 1;
+
+  private final long budgetNanos;
+  private final int numOfThreads;
+  private int maxPlayoutsPerMove;
+  private double exploration = DEFAULT_EXPLORATION;
+  private ExecutorService executor;
+  private long numOfPlayouts;
+  private long numOfMoves;
+  private long searchNanos;
+  private final int[] leadToCaves = new int[4];
+
+  /**
+   * Construct a bot searching for a time budget per move.
+   *
+   * @param budget       the time spent on every move
+   * @param unit         the unit of the budget
+   * @param numOfThreads the number of threads running playouts, 1 to search on
+   *                     the calling thread only
+   * @throws IllegalArgumentException if the budget is negative or there is no
+   *                                  thread
+   */
+  public MctsBot(long budget, TimeUnit unit, int numOfThreads) throws IllegalArgumentException {
+    if (budget < 0) {
+      throw new IllegalArgumentException("invalid budget! Cannot be negative");
+    }
+    if (numOfThreads < 1) {
+      throw new IllegalArgumentException("invalid number of threads! Should be positive");
+    }
+    this.budgetNanos = unit.toNanos(budget);
+    this.numOfThreads = numOfThreads;
+  }
+
+  @Override
+  public void playTurn(Game game, SplittableRandom random) {
+    search(game, random).applyTo(game);
+  }
+
+  /**
+   * Get the action this bot picks for the current hunter, without playing it.
+   *
+   * @param game   the game to search, not over
+   * @param random the random source of the search
+   * @return the action picked
+   */
+  public Action search(Game game, SplittableRandom random) {
+    return prepareSearch(game, random).get();
+  }
+
+  /**
+   * Read what the current hunter knows from the game, and get the search of
+   * its action. The search never touches the game, so it can run on another
+   * thread while the game is shown, and its action be played back on the
+   * thread owning the game.
+   *
+   * @param game   the game to search, not over
+   * @param random the random source of the search, only used on this thread
+   * @return the search, run once
+   */
+  public Supplier<Action> prepareSearch(Game game, SplittableRandom random) {
+    CaveGraph caveGraph = game.getCaveGraph();
+    int cell = game.getHunter().getCurrentPos().x * game.getColumns()
+        + game.getHunter().getCurrentPos().y;
+    int count = caveGraph.getLeadToCavesOfCell(cell, leadToCaves);
+    if (count == 0) {
+      return () -> Action.NONE;
+    }
+    int startCave = caveGraph.getCaveId(cell);
+    if (startCave == CaveGraph.NONE) {
+      // only a tunnel start can leave the hunter out of a cave
+      Action move = new Action(leadToCaves[random.nextInt(count)], 0);
+      return () -> move;
+    }
+    int[] caves = Arrays.copyOf(leadToCaves, count);
+    Search search = new Search(game, startCave);
+    SplittableRandom searchRandom = random.split();
+    return () -> {
+      long start = System.nanoTime();
+      Node root = new Node();
+      runPlayouts(search, root, start + budgetNanos, searchRandom);
+      synchronized (this) {
+        searchNanos += System.nanoTime() - start;
+        numOfPlayouts += root.visits.get();
+        numOfMoves++;
+      }
+      int best = 0;
+      for (int action = 1; action < NUM_OF_ACTIONS; action++) {
+        if ((action & 3) < count && getVisits(root, action) > getVisits(root, best)) {
+          best = action;
+        }
+      }
+      return best < 4 ? new Action(caves[best], 0) : new Action(caves[best - 4], 1);
+    };
+  }
+
+  /**
+   * Run the playouts of one move on the calling thread or on the workers.
+   */
+  private void runPlayouts(Search search, Node root, long deadline, SplittableRandom random) {
+    if (numOfThreads == 1) {
+      search.run(root, deadline, random.split());
+      return;
+    }
+    List<Callable<Void>> workers = new ArrayList<>();
+    for (int i = 0; i < numOfThreads; i++) {
+      SplittableRandom workerRandom = random.split();
+      workers.add(() -> {
+        search.run(root, deadline, workerRandom);
+        return null;
+      });
+    }
+    try {
+      for (Future<Void> worker : getExecutor().invokeAll(workers)) {
+        worker.get();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (CancellationException | RejectedExecutionException e) {
+      // shut down meanwhile, keep the playouts run so far
+    } catch (ExecutionException e) {
+      throw new IllegalStateException("playout failed", e.getCause());
+    }
+  }
+
+  private static int getVisits(Node node, int action) {
+    Node child = node.children.get(action);
+    return child == null ? -1 : child.visits.get();
+  }
+
+  /**
+   * Get the worker threads, started on the first search.
+   */
+  private synchronized ExecutorService getExecutor() {
+    if (executor == null) {
+      executor = Executors.newFixedThreadPool(numOfThreads, runnable -> {
+        Thread thread = new Thread(runnable, "mcts-bot");
+        thread.setDaemon(true);
+        return thread;
+      });
+    }
+    return executor;
+  }
+
+  /**
+   * Stop the worker threads, a later move starts them again. A search running
+   * meanwhile picks its action from the playouts run so far.
+   */
+  public synchronized void shutdown() {
+    if (executor != null) {
+      executor.shutdownNow();
+      executor = null;
+    }
+  }
+
+  /**
+   * Get the number of playouts run by this bot.
+   *
+   * @return the number of playouts
+   */
+  public synchronized long getNumOfPlayouts() {
+    return numOfPlayouts;
+  }
+
+  /**
+   * Get the number of moves searched by this bot.
+   *
+   * @return the number of moves
+   */
+  public synchronized long getNumOfMoves() {
+    return numOfMoves;
+  }
+
+  /**
+   * Get the number of playouts per second of search, over all threads.
+   *
+   * @return the throughput, 0 before the first search
+   */
+  public synchronized double getPlayoutsPerSecond() {
+    return searchNanos == 0 ? 0 : numOfPlayouts * 1e9 / searchNanos;
+  }
+
+  /**
+   * Get the highest number of playouts of a move.
+   *
+   * @return the maxPlayoutsPerMove, 0 for no limit but the time budget
+   */
+  public int getMaxPlayoutsPerMove() {
+    return maxPlayoutsPerMove;
+  }
+
+  /**
+   * Set the highest number of playouts of a move, a move stops at the time
+   * budget or at this number, whichever comes first. With one thread, a limit
+   * and no time budget the bot plays the same moves for the same random.
+   *
+   * @param maxPlayoutsPerMove the limit to set, 0 for none
+   * @throws IllegalArgumentException if the limit is negative
+   */
+  public void setMaxPlayoutsPerMove(int maxPlayoutsPerMove) throws IllegalArgumentException {
+    if (maxPlayoutsPerMove < 0) {
+      throw new IllegalArgumentException("invalid number of playouts! Cannot be negative");
+    }
+    this.maxPlayoutsPerMove = maxPlayoutsPerMove;
+  }
+
+  /**
+   * Get the exploration constant of UCT.
+   *
+   * @return the exploration
+   */
+  public double getExploration() {
+    return exploration;
+  }
+
+  /**
+   * Set the exploration constant of UCT.
+   *
+   * @param exploration the exploration to set
+   * @throws IllegalArgumentException if the constant is negative
+   */
+  public void setExploration(double exploration) throws IllegalArgumentException {
+    if (!(exploration >= 0)) {
+      throw new IllegalArgumentException("invalid exploration! Cannot be negative");
+    }
+    this.exploration = exploration;
+  }
+
+  /**
+   * An action picked by the bot: a move to or a shot into a cave the cell of
+   * the hunter leads to.
+   */
+  public static final class Action {
+    static final Action NONE = new Action(CaveGraph.NONE, 0);
+
+    private final int targetCave;
+    private final int distance;
+
+    Action(int targetCave, int distance) {
+      this.targetCave = targetCave;
+      this.distance = distance;
+    }
+
+    /**
+     * Play this action in a game, nothing happens if there is no cave to go.
+     *
+     * @param game the game searched
+     */
+    public void applyTo(Game game) {
+      if (targetCave == CaveGraph.NONE) {
+        return;
+      } else if (distance == 0) {
+        game.moveTo(targetCave);
+      } else {
+        game.shoot(targetCave, distance);
+      }
+    }
+
+    /**
+     * Get the cave moved to or shot towards.
+     *
+     * @return the dense cave id, CaveGraph.NONE if the hunter cannot act
+     */
+    public int getTargetCave() {
+      return targetCave;
+    }
+
+    /**
+     * Get the number of caves the arrow flies through.
+     *
+     * @return the distance, 0 for a move
+     */
+    public int getDistance() {
+      return distance;
+    }
+  }
+
+  /**
+   * A sequence of actions, shared by the threads of a search.
+   */
+  private static final class Node {
+    final AtomicInteger visits = new AtomicInteger();
+    final AtomicInteger wins = new AtomicInteger();
+    final AtomicReferenceArray<Node> children = new AtomicReferenceArray<>(NUM_OF_ACTIONS);
+  }
+
+  /**
+   * The search of one move: what the hunter knows, read once from the game so
+   * the threads never touch it, and the playouts.
+   */
+  private final class Search {
+    private final CaveGraph caveGraph;
+    private final int numOfCaves;
+    private final int startCave;
+    private final int startArrows;
+    private final int numOfPits;
+    private final int numOfBats;
+    private final int[] wumpusCaves; // equally likely
+    private final int[] pitCaves; // may hold a pit
+    private final int[] draftCaves;
+    private final int[] batCaves; // may hold bats
+    private final int[] knownBatCaves;
+    private final boolean[] mayPit;
+    private final int maxPlayouts = maxPlayoutsPerMove;
+    private final double c = exploration;
+
+    Search(Game game, int startCave) {
+      this.caveGraph = game.getCaveGraph();
+      this.numOfCaves = caveGraph.getNumOfCaves();
+      this.startCave = startCave;
+      this.startArrows = game.getHunter().getNumberOfArrows();
+      this.numOfPits = game.getNumOfPits();
+      this.numOfBats = game.getNumOfBats();
+      BeliefState beliefs = game.getBeliefState();
+      IntList wumpus = new IntList();
+      IntList pits = new IntList();
+      IntList drafts = new IntList();
+      IntList bats = new IntList();
+      IntList knownBats = new IntList();
+      this.mayPit = new boolean[numOfCaves];
+      for (int cave = 0; cave < numOfCaves; cave++) {
+        if (beliefs.getWumpusProbability(cave) > 0) {
+          wumpus.add(cave);
+        }
+        if (beliefs.getPitProbability(cave) > 0) {
+          pits.add(cave);
+          mayPit[cave] = true;
+        }
+        if (beliefs.hasDraft(cave)) {
+          drafts.add(cave);
+        }
+        double bat = beliefs.getBatProbability(cave);
+        if (bat == 1) {
+          knownBats.add(cave);
+        } else if (bat > 0) {
+          bats.add(cave);
+        }
+      }
+      this.wumpusCaves = wumpus.toArray();
+      this.pitCaves = pits.toArray();
+      this.draftCaves = drafts.toArray();
+      this.batCaves = bats.toArray();
+      this.knownBatCaves = knownBats.toArray();
+    }
+
+    /**
+     * Run playouts until the deadline or the playout limit, at least one.
+     */
+    void run(Node root, long deadline, SplittableRandom random) {
+      World world = new World(this, random);
+      Node[] path = new Node[MAX_PLAYOUT_STEPS + 1];
+      do {
+        if (maxPlayouts > 0 && root.visits.get() >= maxPlayouts) {
+          return;
+        }
+        playout(root, world, path);
+      } while (System.nanoTime() < deadline || budgetNanos == 0 && maxPlayouts > 0);
+    }
+
+    /**
+     * Play one game on a fresh layout: select down the tree, add one node,
+     * finish at random, and count the result on the path.
+     */
+    private void playout(Node root, World world, Node[] path) {
+      world.drawLayout();
+      int depth = 0;
+      Node node = root;
+      node.visits.incrementAndGet();
+      path[depth++] = node;
+      int result = CONTINUE;
+      boolean isExpanded = false;
+      while (result == CONTINUE && !isExpanded && depth <= MAX_PLAYOUT_STEPS) {
+        int count = world.getLeadToCaves();
+        int action = select(node, count, world.random);
+        Node child = node.children.get(action);
+        if (child == null) {
+          node.children.compareAndSet(action, null, new Node());
+          child = node.children.get(action);
+          isExpanded = true;
+        }
+        child.visits.incrementAndGet();
+        path[depth++] = child;
+        node = child;
+        result = world.play(action, world.leadToCaves[action & 3]);
+      }
+      if (result == CONTINUE) {
+        result = world.rollout(MAX_PLAYOUT_STEPS - depth);
+      }
+      if (result == WIN) {
+        for (int i = 0; i < depth; i++) {
+          path[i].wins.incrementAndGet();
+        }
+      }
+      world.clearLayout();
+    }
+
+    /**
+     * Pick an action of the first count caves by UCT, untried actions first.
+     */
+    private int select(Node node, int count, SplittableRandom random) {
+      int numOfActions = 2 * count;
+      int untried = random.nextInt(numOfActions);
+      for (int i = 0; i < numOfActions; i++) {
+        int action = toAction((untried + i) % numOfActions, count);
+        if (node.children.get(action) == null) {
+          return action;
+        }
+      }
+      double logVisits = Math.log(Math.max(1, node.visits.get()));
+      int best = 0;
+      double bestValue = Double.NEGATIVE_INFINITY;
+      for (int i = 0; i < numOfActions; i++) {
+        int action = toAction(i, count);
+        Node child = node.children.get(action);
+        int visits = Math.max(1, child.visits.get());
+        double value = (double) child.wins.get() / visits + c * Math.sqrt(logVisits / visits);
+        if (value > bestValue) {
+          bestValue = value;
+          best = action;
+        }
+      }
+      return best;
+    }
+
+    /**
+     * Get the action of an index in 0 to 2 * count - 1, the moves first.
+     */
+    private int toAction(int index, int count) {
+      return index < count ? index : 4 + index - count;
+    }
+  }
+
+  /**
+   * The state of one playout, owned by one thread: a drawn layout, the cave
+   * of the hunter and its arrows.
+   */
+  private static final class World {
+    private final Search search;
+    private final SplittableRandom random;
+    private final byte[] hazards; // Cell flags by cave
+    private final int[] placed; // caves with a hazard, cleared after a playout
+    private int numOfPlaced;
+    private final int[] leadToCaves = new int[4];
+    private final int[] neighbours = new int[4];
+    private int cave;
+    private int arrows;
+
+    World(Search search, SplittableRandom random) {
+      this.search = search;
+      this.random = random;
+      this.hazards = new byte[search.numOfCaves];
+      this.placed = new int[1 + search.numOfPits + search.numOfBats];
+    }
+
+    /**
+     * Draw a layout consistent with the beliefs: the Wumpus among its caves,
+     * a pit next to every draft, the other pits and bats where they may be.
+     */
+    void drawLayout() {
+      cave = search.startCave;
+      arrows = search.startArrows;
+      if (search.wumpusCaves.length > 0) {
+        place(search.wumpusCaves[random.nextInt(search.wumpusCaves.length)], Cell.WUMPUS);
+      }
+      int numOfPits = 0;
+      for (int draftCave : search.draftCaves) {
+        if (numOfPits == search.numOfPits) {
+          break;
+        }
+        int count = search.caveGraph.getLeadToCavesOfCell(search.caveGraph.getCaveCell(draftCave),
+            neighbours);
+        int numOfFree = 0;
+        boolean hasPit = false;
+        for (int i = 0; i < count; i++) {
+          hasPit |= (hazards[neighbours[i]] & Cell.PIT) != 0;
+          if (search.mayPit[neighbours[i]] && hazards[neighbours[i]] == 0) {
+            neighbours[numOfFree++] = neighbours[i];
+          }
+        }
+        if (!hasPit && numOfFree > 0) {
+          place(neighbours[random.nextInt(numOfFree)], Cell.PIT);
+          numOfPits++;
+        }
+      }
+      numOfPits += fill(search.pitCaves, search.numOfPits - numOfPits, Cell.PIT);
+      int numOfBats = 0;
+      for (int batCave : search.knownBatCaves) {
+        if (hazards[batCave] == 0) {
+          place(batCave, Cell.BAT);
+          numOfBats++;
+        }
+      }
+      fill(search.batCaves, search.numOfBats - numOfBats, Cell.BAT);
+    }
+
+    /**
+     * Place a hazard in free caves drawn from the candidates, gives up after a
+     * few draws per hazard when the candidates are crowded.
+     */
+    private int fill(int[] candidates, int numOfHazards, int flag) {
+      int numOfFilled = 0;
+      for (int tries = 0; numOfFilled < numOfHazards && candidates.length > 0
+          && tries < 8 * numOfHazards; tries++) {
+        int candidate = candidates[random.nextInt(candidates.length)];
+        if (hazards[candidate] == 0) {
+          place(candidate, flag);
+          numOfFilled++;
+        }
+      }
+      return numOfFilled;
+    }
+
+    private void place(int hazardCave, int flag) {
+      hazards[hazardCave] = (byte) flag;
+      placed[numOfPlaced++] = hazardCave;
+    }
+
+    void clearLayout() {
+      for (int i = 0; i < numOfPlaced; i++) {
+        hazards[placed[i]] = 0;
+      }
+      numOfPlaced = 0;
+    }
+
+    /**
+     * Get the caves the hunter's cave leads to into leadToCaves.
+     */
+    int getLeadToCaves() {
+      return search.caveGraph.getLeadToCavesOfCell(search.caveGraph.getCaveCell(cave),
+          leadToCaves);
+    }
+
+    /**
+     * Play an action towards a cave, the rules of Game.
+     */
+    int play(int action, int target) {
+      if (action >= 4) {
+        if ((hazards[target] & Cell.WUMPUS) != 0) {
+          return WIN;
+        }
+        return --arrows <= 0 ? LOSS : CONTINUE;
+      }
+      cave = target;
+      if ((hazards[cave] & Cell.BAT) != 0 && random.nextInt(2) == 1
+          && search.numOfCaves > 1) {
+        // any other cave, drawn uniformly
+        int drop = random.nextInt(search.numOfCaves - 1);
+        cave = drop >= cave ? drop + 1 : drop;
+      }
+      return (hazards[cave] & (Cell.WUMPUS | Cell.PIT)) != 0 ? LOSS : CONTINUE;
+    }
+
+    /**
+     * Finish the playout like RandomBot: a random cave, shot at half of the
+     * time when the Wumpus can be smelled.
+     */
+    int rollout(int maxSteps) {
+      for (int step = 0; step < maxSteps; step++) {
+        int count = getLeadToCaves();
+        boolean isBlood = false;
+        for (int i = 0; i < count; i++) {
+          isBlood |= (hazards[leadToCaves[i]] & Cell.WUMPUS) != 0;
+        }
+        int index = random.nextInt(count);
+        int action = isBlood && random.nextInt(2) == 0 ? 4 + index : index;
+        int result = play(action, leadToCaves[index]);
+        if (result != CONTINUE) {
+          return result;
+        }
+      }
+      return LOSS;
+    }
+  }
+
+  /**
+   * A growable list of ints.
+   */
+  private static final class IntList {
+    private int[] values = new int[16];
+    private int size;
+
+    void add(int value) {
+      if (size == values.length) {
+        values = Arrays.copyOf(values, 2 * size);
+      }
+      values[size++] = value;
+    }
+
+    int[] toArray() {
+      return Arrays.copyOf(values, size);
+    }
+  }
+
+  /**
+   * Play every difficulty preset with a search of 1 ms per move on all cores,
+   * and print the outcomes and the playouts per second. The first argument is
+   * the number of games per preset, 200 by default.
+   */
+  public static void main(String[] args) {
+    long numOfGames = args.length > 0 ? Long.parseLong(args[0]) : 200;
+    int numOfThreads = Runtime.getRuntime().availableProcessors();
+    for (Difficulty preset : Difficulty.values()) {
+      List<MctsBot> bots = new ArrayList<>();
+      Simulator simulator = new Simulator(preset, () -> {
+        MctsBot bot = new MctsBot(1, TimeUnit.MILLISECONDS, numOfThreads);
+        synchronized (bots) {
+          bots.add(bot);
+        }
+        return bot;
+      });
+      // the bots use all cores, the games are played one at a time
+      simulator.setPool(new ForkJoinPool(1));
+      SimulationReport report = simulator.run(numOfGames, 1);
+      long playouts = 0;
+      double playoutsPerSecond = 0;
+      for (MctsBot bot : bots) {
+        playouts += bot.getNumOfPlayouts();
+        playoutsPerSecond += bot.getPlayoutsPerSecond() / bots.size();
+        bot.shutdown();
+      }
+      System.out.println(preset.getLabel() + ": " + report);
+      System.out.println(String.format("  playouts     %d, %.0f per second on %d threads",
+          playouts, playoutsPerSecond, numOfThreads));
+    }
+  }
+}
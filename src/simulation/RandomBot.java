@@ -0,0 +1,61 @@
+package simulation;
+
+import java.util.SplittableRandom;
+
+import controller.Game;
+import model.CaveGraph;
+import model.Cell;
+
+/**
+ * This class represents a bot which wanders the maze at random. Every turn it
+ * picks one of the caves the hunter's cell leads to uniformly; when it smells
+ * the Wumpus it shoots an arrow through one cave towards that cave with the
+ * given probability, and moves there otherwise. It keeps no memory between
+ * turns, so one instance can play any number of games.
+ *
+ * @author Daniel Zhou
+ */
+public class RandomBot implements BotStrategy {
+  private final double shootProbability;
+  private final int[] leadToCaves = new int[4];
+
+  /**
+   * Construct a random bot.
+   *
+   * @param shootProbability the chance to shoot when the Wumpus can be smelled
+   * @throws IllegalArgumentException if the probability is not in 0 to 1
+   */
+  public RandomBot(double shootProbability) throws IllegalArgumentException {
+    if (!(shootProbability >= 0 && shootProbability <= 1)) {
+      throw new IllegalArgumentException("invalid probability! should be in range 0 to 1");
+    }
+    this.shootProbability = shootProbability;
+  }
+
+  @Override
+  public void playTurn(Game game, SplittableRandom random) {
+    CaveGraph caveGraph = game.getCaveGraph();
+    int row = game.getHunter().getCurrentPos().x;
+    int col = game.getHunter().getCurrentPos().y;
+    int count = caveGraph.getLeadToCavesOfCell(row * game.getColumns() + col, leadToCaves);
+    if (count == 0) {
+      return;
+    }
+    int targetCave = leadToCaves[random.nextInt(count)];
+    boolean isBlood = (game.getCellFlags()[row * game.getColumns() + col] & Cell.BLOOD) != 0;
+    if (isBlood && random.nextDouble() < shootProbability) {
+      game.shoot(targetCave, 1);
+    } else {
+      game.moveTo(targetCave);
+    }
+  }
+
+  /**
+   * Get the chance to shoot when the Wumpus can be smelled.
+   *
+   * @return the shootProbability
+   */
+  public double getShootProbability() {
+    return shootProbability;
+  }
+}
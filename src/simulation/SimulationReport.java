@@ -0,0 +1,191 @@
+package simulation;
+
+import controller.GameOutcome;
+
+/**
+ * This class represents the statistics of a batch of simulated games: how many
+ * games ended with each GameOutcome, the number of turns played, and the
+ * throughput of the run. Games cut off by the turn limit are counted as
+ * IN_PROGRESS. Reports of disjoint batches can be merged.
+ *
+ * @author Daniel Zhou
+ */
+public class SimulationReport {
+  private final long[] outcomes = new long[GameOutcome.values().length];
+  private long numOfGames;
+  private long totalTurns;
+  private long totalSquaredTurns;
+  private int maxTurns;
+  private long elapsedNanos;
+
+  /**
+   * Count a finished game.
+   *
+   * @param outcome  the outcome of the game
+   * @param numTurns the number of turns played
+   */
+  void record(GameOutcome outcome, int numTurns) {
+    outcomes[outcome.ordinal()]++;
+    numOfGames++;
+    totalTurns += numTurns;
+    totalSquaredTurns += (long) numTurns * numTurns;
+    maxTurns = Math.max(maxTurns, numTurns);
+  }
+
+  /**
+   * Add the games of another report to this one.
+   *
+   * @param other the report of a disjoint batch
+   */
+  void merge(SimulationReport other) {
+    for (int i = 0; i < outcomes.length; i++) {
+      outcomes[i] += other.outcomes[i];
+    }
+    numOfGames += other.numOfGames;
+    totalTurns += other.totalTurns;
+    totalSquaredTurns += other.totalSquaredTurns;
+    maxTurns = Math.max(maxTurns, other.maxTurns);
+  }
+
+  /**
+   * Get the number of games in this report.
+   *
+   * @return the number of games
+   */
+  public long getNumOfGames() {
+    return numOfGames;
+  }
+
+  /**
+   * Get the number of games which ended with an outcome.
+   *
+   * @param outcome the outcome
+   * @return the number of games
+   */
+  public long getCount(GameOutcome outcome) {
+    return outcomes[outcome.ordinal()];
+  }
+
+  /**
+   * Get the share of games which ended with an outcome.
+   *
+   * @param outcome the outcome
+   * @return the rate in 0 to 1, 0 for an empty report
+   */
+  public double getRate(GameOutcome outcome) {
+    return numOfGames == 0 ? 0 : (double) getCount(outcome) / numOfGames;
+  }
+
+  /**
+   * Get the lower bound of the Wilson score interval of the rate of an outcome.
+   *
+   * @param outcome the outcome
+   * @param z       the standard normal quantile of the confidence, 1.96 for 95%
+   * @return the lower bound in 0 to 1, 0 for an empty report
+   */
+  public double getWilsonLowerBound(GameOutcome outcome, double z) {
+    return numOfGames == 0 ? 0 : getWilsonCenter(outcome, z) - getWilsonHalfWidth(outcome, z);
+  }
+
+  /**
+   * Get the upper bound of the Wilson score interval of the rate of an outcome.
+   *
+   * @param outcome the outcome
+   * @param z       the standard normal quantile of the confidence, 1.96 for 95%
+   * @return the upper bound in 0 to 1, 1 for an empty report
+   */
+  public double getWilsonUpperBound(GameOutcome outcome, double z) {
+    return numOfGames == 0 ? 1 : getWilsonCenter(outcome, z) + getWilsonHalfWidth(outcome, z);
+  }
+
+  private double getWilsonCenter(GameOutcome outcome, double z) {
+    double z2n = z * z / numOfGames;
+    return (getRate(outcome) + z2n / 2) / (1 + z2n);
+  }
+
+  private double getWilsonHalfWidth(GameOutcome outcome, double z) {
+    double rate = getRate(outcome);
+    double z2n = z * z / numOfGames;
+    return z * Math.sqrt(rate * (1 - rate) / numOfGames + z2n / (4 * numOfGames)) / (1 + z2n);
+  }
+
+  /**
+   * Get the mean number of turns of a game.
+   *
+   * @return the mean turns, 0 for an empty report
+   */
+  public double getMeanTurns() {
+    return numOfGames == 0 ? 0 : (double) totalTurns / numOfGames;
+  }
+
+  /**
+   * Get the standard deviation of the number of turns of a game.
+   *
+   * @return the standard deviation, 0 for an empty report
+   */
+  public double getStdDevTurns() {
+    if (numOfGames == 0) {
+      return 0;
+    }
+    double mean = getMeanTurns();
+    return Math.sqrt(Math.max(0, (double) totalSquaredTurns / numOfGames - mean * mean));
+  }
+
+  /**
+   * Get the largest number of turns of a game.
+   *
+   * @return the max turns
+   */
+  public int getMaxTurns() {
+    return maxTurns;
+  }
+
+  /**
+   * Get the total number of turns played.
+   *
+   * @return the total turns
+   */
+  public long getTotalTurns() {
+    return totalTurns;
+  }
+
+  /**
+   * Get the wall-clock time of the run.
+   *
+   * @return the elapsed time in nanoseconds
+   */
+  public long getElapsedNanos() {
+    return elapsedNanos;
+  }
+
+  /**
+   * Set the wall-clock time of the run.
+   *
+   * @param elapsedNanos the elapsed time in nanoseconds
+   */
+  public void setElapsedNanos(long elapsedNanos) {
+    this.elapsedNanos = elapsedNanos;
+  }
+
+  /**
+   * Get the number of games simulated per second of wall-clock time.
+   *
+   * @return the throughput, 0 if no time was recorded
+   */
+  public double getGamesPerSecond() {
+    return elapsedNanos == 0 ? 0 : numOfGames * 1e9 / elapsedNanos;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder report = new StringBuilder();
+    report.append(String.format("%d games in %.2f s (%.0f games/s)%n", numOfGames,
+        elapsedNanos / 1e9, getGamesPerSecond()));
+    for (GameOutcome outcome : GameOutcome.values()) {
+      report.append(String.format("  %-13s %6.2f%%%n", outcome, 100 * getRate(outcome)));
+    }
+    report.append(String.format("  turns         mean %.1f, sd %.1f, max %d", getMeanTurns(),
+        getStdDevTurns(), maxTurns));
+    return report.toString();
+  }
+}
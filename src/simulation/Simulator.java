@@ -0,0 +1,239 @@
+package simulation;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Supplier;
+
+import controller.Difficulty;
+import controller.Game;
+import controller.GamePreset;
+import model.MazeCache;
+import model.SplitMix64;
+
+/**
+ * This class represents a headless simulator which plays many Games with a bot
+ * strategy on all cores and reports how they end. The games are split into
+ * chunks with fork-join; every chunk reuses one quiet Game and one bot, and
+ * restarts the game with its own seed. Game i always gets the i-th value of a
+ * SplitMix64 stream of the run seed, and its bot a random stream derived from
+ * that game seed, so a run is reproducible whatever the number of threads.
+ *
+ * @author Daniel Zhou
+ */
+public class Simulator {
+  public static final int DEFAULT_MAX_TURNS = 1000;
+  public static final int DEFAULT_STARTING_IDX = 15; // the start cell of the GUI
+
+  private static final int CHUNK_SIZE = 512; // games played by one task
+
+  private final int rows;
+  private final int columns;
+  private final int numOfRemainingWalls;
+  private final int numOfPits;
+  private final int numOfBats;
+  private final int startingIdx;
+  private final int startingNumArrow;
+  private final Supplier<BotStrategy> botFactory;
+  private int maxTurns = DEFAULT_MAX_TURNS;
+  private ForkJoinPool pool = ForkJoinPool.commonPool();
+
+  /**
+   * Construct a simulator of 1 player games.
+   *
+   * @param rows                total rows of the maze
+   * @param columns             total columns of the maze
+   * @param numOfRemainingWalls total numOfRemainingWalls of the maze
+   * @param numOfPits           total number of pits
+   * @param numOfBats           total number of bats
+   * @param startingIdx         starting index, a random cave if it is a tunnel
+   * @param startingNumArrow    starting number of arrows
+   * @param botFactory          builds one bot per task, bots need not be thread safe
+   * @throws IllegalArgumentException if attributes are invalid
+   */
+  public Simulator(int rows, int columns, int numOfRemainingWalls, int numOfPits, int numOfBats,
+      int startingIdx, int startingNumArrow, Supplier<BotStrategy> botFactory)
+      throws IllegalArgumentException {
+    // fail here rather than in the worker threads
+    new Game(rows, columns, numOfRemainingWalls, numOfPits, numOfBats, startingIdx,
+        startingNumArrow, false, false);
+    this.rows = rows;
+    this.columns = columns;
+    this.numOfRemainingWalls = numOfRemainingWalls;
+    this.numOfPits = numOfPits;
+    this.numOfBats = numOfBats;
+    this.startingIdx = startingIdx;
+    this.startingNumArrow = startingNumArrow;
+    this.botFactory = botFactory;
+  }
+
+  /**
+   * Construct a simulator of the 1 player games of a difficulty preset.
+   *
+   * @param preset     the difficulty preset
+   * @param botFactory builds one bot per task, bots need not be thread safe
+   */
+  public Simulator(Difficulty preset, Supplier<BotStrategy> botFactory) {
+    this(preset.getPreset(), botFactory);
+  }
+
+  /**
+   * Construct a simulator of the 1 player games of a preset.
+   *
+   * @param preset     the preset
+   * @param botFactory builds one bot per task, bots need not be thread safe
+   * @throws IllegalArgumentException if the preset cannot build a game
+   */
+  public Simulator(GamePreset preset, Supplier<BotStrategy> botFactory)
+      throws IllegalArgumentException {
+    this(preset.getRows(), preset.getColumns(), preset.getNumOfRemainingWalls(),
+        preset.getNumOfPits(), preset.getNumOfBats(),
+        Math.min(DEFAULT_STARTING_IDX, preset.getRows() * preset.getColumns()),
+        preset.getStartingNumArrow(), botFactory);
+  }
+
+  /**
+   * Play games and report how they ended.
+   *
+   * @param numOfGames the number of games to play
+   * @param seed       the seed of the run
+   * @return the report of all games
+   * @throws IllegalArgumentException if the number of games is negative
+   */
+  public SimulationReport run(long numOfGames, long seed) throws IllegalArgumentException {
+    return run(0, numOfGames, seed);
+  }
+
+  /**
+   * Play a range of the games of a run and report how they ended, so a run can
+   * be continued in batches.
+   *
+   * @param firstGame  the index of the first game to play
+   * @param numOfGames the number of games to play
+   * @param seed       the seed of the run
+   * @return the report of the games played
+   * @throws IllegalArgumentException if the range is invalid
+   */
+  public SimulationReport run(long firstGame, long numOfGames, long seed)
+      throws IllegalArgumentException {
+    if (firstGame < 0 || numOfGames < 0) {
+      throw new IllegalArgumentException("invalid number of games! Cannot be negative");
+    }
+    long start = System.nanoTime();
+    SimulationReport report = pool.invoke(new SimulationTask(firstGame,
+        firstGame + numOfGames, seed));
+    report.setElapsedNanos(System.nanoTime() - start);
+    return report;
+  }
+
+  /**
+   * Get the seed of a game of a run, the value of a SplitMix64 stream at the
+   * position of the game.
+   *
+   * @param seed the seed of the run
+   * @param game the index of the game
+   * @return the game seed
+   */
+  public static long getGameSeed(long seed, long game) {
+    return SplitMix64.mix64(seed + (game + 1) * SplitMix64.GOLDEN_GAMMA);
+  }
+
+  /**
+   * Play the games from first to last - 1 on the calling thread.
+   */
+  private SimulationReport play(long first, long last, long seed) {
+    SimulationReport report = new SimulationReport();
+    Game game = new Game(rows, columns, numOfRemainingWalls, numOfPits, numOfBats, startingIdx,
+        startingNumArrow, false, false);
+    game.setCompactMaze(true);
+    // every game has its own seed, caching the mazes would only fill the memory
+    game.setMazeCache(new MazeCache(0));
+    BotStrategy bot = botFactory.get();
+    for (long i = first; i < last; i++) {
+      long gameSeed = getGameSeed(seed, i);
+      game.setSeedRandomGame(gameSeed);
+      game.start();
+      SplittableRandom random = new SplittableRandom(SplitMix64.mix64(gameSeed));
+      int turns = 0;
+      while (!game.isEnd() && turns < maxTurns) {
+        bot.playTurn(game, random);
+        turns++;
+      }
+      report.record(game.getOutcome(), turns);
+    }
+    return report;
+  }
+
+  /**
+   * Get the number of turns after which a game is cut off.
+   *
+   * @return the maxTurns
+   */
+  public int getMaxTurns() {
+    return maxTurns;
+  }
+
+  /**
+   * Set the number of turns after which a game is cut off.
+   *
+   * @param maxTurns the maxTurns to set
+   * @throws IllegalArgumentException if the limit is not positive
+   */
+  public void setMaxTurns(int maxTurns) throws IllegalArgumentException {
+    if (maxTurns <= 0) {
+      throw new IllegalArgumentException("invalid number of turns! Should be positive");
+    }
+    this.maxTurns = maxTurns;
+  }
+
+  /**
+   * Set the pool the games are played in, the common pool by default.
+   *
+   * @param pool the pool to set
+   */
+  public void setPool(ForkJoinPool pool) {
+    this.pool = pool;
+  }
+
+  /**
+   * Splits a range of games in halves down to CHUNK_SIZE games.
+   */
+  private class SimulationTask extends RecursiveTask<SimulationReport> {
+    private static final long serialVersionUID = 1L;
+
+    private final long first;
+    private final long last;
+    private final long seed;
+
+    SimulationTask(long first, long last, long seed) {
+      this.first = first;
+      this.last = last;
+      this.seed = seed;
+    }
+
+    @Override
+    protected SimulationReport compute() {
+      if (last - first <= CHUNK_SIZE) {
+        return play(first, last, seed);
+      }
+      long middle = first + (last - first) / 2;
+      SimulationTask left = new SimulationTask(first, middle, seed);
+      left.fork();
+      SimulationReport report = new SimulationTask(middle, last, seed).compute();
+      report.merge(left.join());
+      return report;
+    }
+  }
+
+  /**
+   * Simulate every difficulty preset with a random bot and print the reports.
+   * The first argument is the number of games per preset, 100000 by default.
+   */
+  public static void main(String[] args) {
+    long numOfGames = args.length > 0 ? Long.parseLong(args[0]) : 100000;
+    for (Difficulty preset : Difficulty.values()) {
+      Simulator simulator = new Simulator(preset, () -> new RandomBot(0.5));
+      System.out.println(preset.getLabel() + ": " + simulator.run(numOfGames, 1));
+    }
+  }
+}
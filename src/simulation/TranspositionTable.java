@@ -0,0 +1,103 @@
+package simulation;
+
+import java.util.Arrays;
+
+/**
+ * This class represents a transposition table of bounded size: the solved
+ * values of states and their best actions, by the Zobrist hash of the state.
+ * A hash picks a bucket of two entries. The first entry keeps the state
+ * solved with the most turns left, which took the most work to solve; the
+ * second always takes the newest state, so recent states are found again even
+ * when the table is full.
+ *
+ * @author Daniel Zhou
+ */
+final class TranspositionTable {
+  private final long[] keys;
+  private final double[] values;
+  private final int[] actions;
+  private final byte[] turns; // turns left + 1, 0 for an empty entry
+  private final int mask;
+  private int numOfEntries;
+  private long numOfHits;
+  private long numOfProbes;
+
+  /**
+   * Construct an empty table of 2 to the given power entries.
+   *
+   * @param bits the log2 of the number of entries, 1 to 30
+   * @throws IllegalArgumentException if the size is out of range
+   */
+  TranspositionTable(int bits) throws IllegalArgumentException {
+    if (bits < 1 || bits > 30) {
+      throw new IllegalArgumentException("invalid table size! should be in range 1 to 30 bits");
+    }
+    int size = 1 << bits;
+    this.keys = new long[size];
+    this.values = new double[size];
+    this.actions = new int[size];
+    this.turns = new byte[size];
+    this.mask = size - 2; // even, the first entry of a bucket
+  }
+
+  /**
+   * Get the entry of a state.
+   *
+   * @param key the hash of the state
+   * @return the entry, -1 if the state is not in the table
+   */
+  int find(long key) {
+    numOfProbes++;
+    int bucket = (int) (key ^ (key >>> 32)) & mask;
+    for (int entry = bucket; entry < bucket + 2; entry++) {
+      if (turns[entry] != 0 && keys[entry] == key) {
+        numOfHits++;
+        return entry;
+      }
+    }
+    return -1;
+  }
+
+  double getValue(int entry) {
+    return values[entry];
+  }
+
+  int getAction(int entry) {
+    return actions[entry];
+  }
+
+  /**
+   * Store the value of a state, replacing the first entry of its bucket if it
+   * was solved with fewer turns left, else the second one.
+   */
+  void store(long key, int turnsLeft, double value, int action) {
+    int entry = (int) (key ^ (key >>> 32)) & mask;
+    if (turns[entry] != 0 && keys[entry] != key && turns[entry] > turnsLeft + 1) {
+      entry++;
+    }
+    if (turns[entry] == 0) {
+      numOfEntries++;
+    }
+    keys[entry] = key;
+    values[entry] = value;
+    actions[entry] = action;
+    turns[entry] = (byte) (turnsLeft + 1);
+  }
+
+  void clear() {
+    Arrays.fill(turns, (byte) 0);
+    numOfEntries = 0;
+  }
+
+  int getNumOfEntries() {
+    return numOfEntries;
+  }
+
+  int getCapacity() {
+    return keys.length;
+  }
+
+  double getHitRate() {
+    return numOfProbes == 0 ? 0 : (double) numOfHits / numOfProbes;
+  }
+}
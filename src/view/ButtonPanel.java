@@ -10,6 +10,7 @@ import javax.swing.JOptionPane;
 import javax.swing.JPanel;
 
 import controller.Game;
+import model.CaveGraph;
 
 /**
  * This class represents a control panel containing all the buttons for the Hunt
@@ -91,7 +92,7 @@ public class ButtonPanel extends JPanel {
   /**
    * This methods sets up the layout of 6 x 3 buttons with GridLayout(2, 0) for
    * movePanel/ shootPanel, and GridLayout(3, 3) buttons for each Panel.
-   * Also implement ActionListener reversely to the order of click.
+   * Every direction button plays one compound move or shoot action.
    */
   private void setupButtonLayout() {
 
@@ -112,21 +113,25 @@ public class ButtonPanel extends JPanel {
     moveHunter.addActionListener(e -> JOptionPane.showMessageDialog(null,
         "Click a direction to MOVE.\nOr Press any Arrow Key for direction to MOVE"));
 
-    System.out.println(game.streamOut());
-    moveNorth.addActionListener(e -> game.streamIn(Integer.toString(game.moveToIndex("NORTH"))));
-    moveNorth.addActionListener(e -> game.streamIn("M"));
+    moveNorth.addActionListener(e -> {
+      game.moveAction(CaveGraph.NORTH);
+      System.out.println(game.streamOut());
+    });
 
-    System.out.println(game.streamOut());
-    moveSouth.addActionListener(e -> game.streamIn(Integer.toString(game.moveToIndex("SOUTH"))));
-    moveSouth.addActionListener(e -> game.streamIn("M"));
+    moveSouth.addActionListener(e -> {
+      game.moveAction(CaveGraph.SOUTH);
+      System.out.println(game.streamOut());
+    });
 
-    System.out.println(game.streamOut());
-    moveWest.addActionListener(e -> game.streamIn(Integer.toString(game.moveToIndex("WEST"))));
-    moveWest.addActionListener(e -> game.streamIn("M"));
+    moveWest.addActionListener(e -> {
+      game.moveAction(CaveGraph.WEST);
+      System.out.println(game.streamOut());
+    });
 
-    System.out.println(game.streamOut());
-    moveEast.addActionListener(e -> game.streamIn(Integer.toString(game.moveToIndex("EAST"))));
-    moveEast.addActionListener(e -> game.streamIn("M"));
+    moveEast.addActionListener(e -> {
+      game.moveAction(CaveGraph.EAST);
+      System.out.println(game.streamOut());
+    });
 
     // *------Shoot Button ------*
     shootPanel.setPreferredSize(new Dimension(320, 320));
@@ -145,26 +150,26 @@ public class ButtonPanel extends JPanel {
     shootArrow.addActionListener(e -> JOptionPane.showMessageDialog(null,
         "Click a direction to SHOOT.\nOr Press key W, S, A, D for direction to SHOOT"));
 
-    // using addActionListener is in reversed order to execute
-    shootNorth.addActionListener(e -> System.out.println(game.streamOut()));
-    shootNorth.addActionListener(e -> game.streamIn(Integer.toString(game.shootToIndex("NORTH"))));
-    shootNorth.addActionListener(e -> game.streamIn("1"));
-    shootNorth.addActionListener(e -> game.streamIn("S"));
-
-    shootWest.addActionListener(e -> System.out.println(game.streamOut()));
-    shootWest.addActionListener(e -> game.streamIn(Integer.toString(game.shootToIndex("WEST"))));
-    shootWest.addActionListener(e -> game.streamIn("1"));
-    shootWest.addActionListener(e -> game.streamIn("S"));
-
-    shootEast.addActionListener(e -> System.out.println(game.streamOut()));
-    shootEast.addActionListener(e -> game.streamIn(Integer.toString(game.shootToIndex("EAST"))));
-    shootEast.addActionListener(e -> game.streamIn("1"));
-    shootEast.addActionListener(e -> game.streamIn("S"));
-
-    shootSouth.addActionListener(e -> System.out.println(game.streamOut()));
-    shootSouth.addActionListener(e -> game.streamIn(Integer.toString(game.shootToIndex("SOUTH"))));
-    shootSouth.addActionListener(e -> game.streamIn("1"));
-    shootSouth.addActionListener(e -> game.streamIn("S"));
+    // every click is one compound action, notifying the observers once
+    shootNorth.addActionListener(e -> {
+      game.shootAction(CaveGraph.NORTH, 1);
+      System.out.println(game.streamOut());
+    });
+
+    shootWest.addActionListener(e -> {
+      game.shootAction(CaveGraph.WEST, 1);
+      System.out.println(game.streamOut());
+    });
+
+    shootEast.addActionListener(e -> {
+      game.shootAction(CaveGraph.EAST, 1);
+      System.out.println(game.streamOut());
+    });
+
+    shootSouth.addActionListener(e -> {
+      game.shootAction(CaveGraph.SOUTH, 1);
+      System.out.println(game.streamOut());
+    });
   }
 
   /**
@@ -5,14 +5,27 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.KeyEvent;
 import java.awt.event.KeyListener;
+import java.util.List;
+import java.util.Observable;
+import java.util.Observer;
 import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 import javax.swing.JFrame;
 import javax.swing.JMenu;
 import javax.swing.JMenuBar;
 import javax.swing.JMenuItem;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
+import javax.swing.SwingWorker;
 import controller.Game;
+import controller.GameChange;
+import controller.GamePreset;
+import model.CaveGraph;
+import model.Maze;
+import simulation.MctsBot;
 
 /**
  * This class represents a GUI view for the Hunt The Wumpus Game. This view
@@ -23,14 +36,32 @@ import controller.Game;
  * @author Daniel Zhou
  */
 public class GameView extends JFrame implements KeyListener {
+  private static final int UNDO_DEPTH = 100; // turns the Undo menu can take back
+  private static final long BOT_BUDGET_MILLIS = 300; // search time of a bot turn
+
   private JPanel currentPanel;
   private GraphicPanel graphicPanel;
   private Game game;
+  private final List<GamePreset> presets;
+  private long nextSeedRandomGame = new Random().nextLong();
+  private MctsBot bot; // plays hunter two, null unless playing against the bot
+  private final SplittableRandom botRandom = new SplittableRandom();
 
   /**
-   * Instantiate the Game Frame.
+   * Instantiate the Game Frame with the built-in difficulty presets.
    */
   public GameView() {
+    this(GamePreset.getDefaults());
+  }
+
+  /**
+   * Instantiate the Game Frame with the given difficulty presets, listed in the
+   * Difficulty menu in order.
+   *
+   * @param presets the difficulty presets
+   */
+  public GameView(List<GamePreset> presets) {
+    this.presets = presets;
     this.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
     setUpInitialGame();
     // size JView = JPanel + JMenu. JMenu = 50
@@ -40,6 +71,7 @@ public class GameView extends JFrame implements KeyListener {
     this.setTitle("Hunt The Wumpus");
     setupMenus();
     setUpPanels();
+    prefetchNextGames();
     this.addKeyListener(this);
     // set focus on keyboard
     this.setFocusable(true);
@@ -54,6 +86,8 @@ public class GameView extends JFrame implements KeyListener {
     JMenu option = new JMenu("Options");
     JMenu newGame = new JMenu("New Game");
     option.add(newGame);
+    JMenuItem undo = new JMenuItem("Undo");
+    option.add(undo);
     JMenuItem exitGame = new JMenuItem("Quit");
     option.add(exitGame);
     JMenuItem newGameSameSetup = new JMenuItem("Same Setup");
@@ -66,16 +100,16 @@ public class GameView extends JFrame implements KeyListener {
     mode.add(onePlayer);
     JMenuItem twoPlayer = new JMenuItem("2 Player");
     mode.add(twoPlayer);
+    JMenuItem versusBot = new JMenuItem("2 Player vs Bot");
+    mode.add(versusBot);
 
     JMenuItem difficulty = new JMenu("Difficulty");
-    JMenuItem easy = new JMenuItem("Easy");
-    difficulty.add(easy);
-    JMenuItem medium = new JMenuItem("Medium");
-    difficulty.add(medium);
-    JMenuItem hard = new JMenuItem("Hard");
-    difficulty.add(hard);
-    JMenuItem hell = new JMenuItem("Hell");
-    difficulty.add(hell);
+    MenuItemListener menuListener = new MenuItemListener();
+    for (GamePreset preset : presets) {
+      JMenuItem presetItem = new JMenuItem(preset.getLabel());
+      presetItem.addActionListener(menuListener);
+      difficulty.add(presetItem);
+    }
 
     JMenuBar menuBar = new JMenuBar();
     this.setJMenuBar(menuBar);
@@ -83,16 +117,13 @@ public class GameView extends JFrame implements KeyListener {
     menuBar.add(mode);
     menuBar.add(difficulty);
 
-    MenuItemListener menuListener = new MenuItemListener();
     newGameSameSetup.addActionListener(menuListener);
     newGameRandom.addActionListener(menuListener);
+    undo.addActionListener(menuListener);
     exitGame.addActionListener(menuListener);
-    easy.addActionListener(menuListener);
-    medium.addActionListener(menuListener);
-    hard.addActionListener(menuListener);
-    hell.addActionListener(menuListener);
     onePlayer.addActionListener(menuListener);
     twoPlayer.addActionListener(menuListener);
+    versusBot.addActionListener(menuListener);
   }
 
   /**
@@ -102,6 +133,7 @@ public class GameView extends JFrame implements KeyListener {
   private void setUpPanels() {
     graphicPanel = new GraphicPanel(game);
     game.addObserver(graphicPanel);
+    game.addObserver(new BotPlayer());
     setViewTo(graphicPanel);
   }
 
@@ -121,6 +153,21 @@ public class GameView extends JFrame implements KeyListener {
     boolean isTwoPlayer = true;
     game = new Game(rows, columns, numOfRemainingWalls, numOfPits, numOfBats, startingIdx,
         startingNumArrow, isTwoPlayer);
+    game.setUndoDepth(UNDO_DEPTH);
+  }
+
+  /**
+   * Generate the mazes of the games the menus can start next in the
+   * background, while the current game is played: a random setup with the
+   * next random seed, and every difficulty preset with the current seed.
+   */
+  private void prefetchNextGames() {
+    game.prefetchMaze(game.getRows(), game.getColumns(), game.getNumOfRemainingWalls(),
+        nextSeedRandomGame);
+    for (GamePreset preset : presets) {
+      game.prefetchMaze(preset.getRows(), preset.getColumns(), preset.getNumOfRemainingWalls(),
+          game.getSeedRandomGame());
+    }
   }
 
   /**
@@ -135,112 +182,198 @@ public class GameView extends JFrame implements KeyListener {
       String text = ((JMenuItem) e.getSource()).getText();
       if (text.equals("Same Setup")) {
         // instantiate game with same settings
-        game.start();
+        startGame();
         // reprint view
         setViewTo(graphicPanel);
       }
 
       if (text.equals("Random Setup")) {
-        // randomize the Game random Seed
-        game.setSeedRandomGame(new Random().nextLong());
-        game.start();
+        // randomize the Game random Seed, its maze is prefetched
+        long seedRandomGame = game.getSeedRandomGame();
+        game.setSeedRandomGame(nextSeedRandomGame);
+        nextSeedRandomGame = new Random().nextLong();
+        if (!startGame()) {
+          game.setSeedRandomGame(seedRandomGame);
+        }
         // reprint view
         setViewTo(graphicPanel);
       }
 
+      if (text.equals("Undo")) {
+        undo();
+      }
+
       if (text.equals("Quit")) {
         System.exit(0);
       }
 
       if (text.equals("1 Player")) {
-        game.setTwoPlayers(false);
-        game.start();
+        setBot(null);
+        startGame(false);
         System.out.println(game.streamOut());
         // reprint view
         setViewTo(graphicPanel);
       }
 
       if (text.equals("2 Player")) {
-        game.setTwoPlayers(true);
-        game.start();
+        setBot(null);
+        startGame(true);
         System.out.println(game.streamOut());
         // reprint view
         setViewTo(graphicPanel);
       }
 
-      if (text.equals("Easy")) {
-        game.setRows(10);
-        game.setColumns(10);
-        game.setNumOfRemainingWalls(1);
-        game.setNumOfBats(1);
-        game.setNumOfPits(1);
-        game.getHunter().setNumberOfArrows(20);
-        game.start();
+      if (text.equals("2 Player vs Bot")) {
+        setBot(new MctsBot(BOT_BUDGET_MILLIS, TimeUnit.MILLISECONDS,
+            Runtime.getRuntime().availableProcessors()));
+        startGame(true);
+        System.out.println(game.streamOut());
         // reprint view
         setViewTo(graphicPanel);
-        JOptionPane.showMessageDialog(null,
-            "Easy Game:\nthis Maze has 10 rows, 10 columns, "
-                + "1 remaining wall, 1 supper bat, and "
-                + "1 pit\nHunter is placed at Cell #15 with 20 arrows"
-                + "\n\nEnjoy your hunt!",
-            "Easy Game Generated", JOptionPane.INFORMATION_MESSAGE);
-        System.out.println(game.streamOut());
       }
 
-      if (text.equals("Medium")) {
-        game.setRows(10);
-        game.setColumns(10);
-        game.setNumOfRemainingWalls(10);
-        game.setNumOfBats(3);
-        game.setNumOfPits(3);
-        game.getHunter().setNumberOfArrows(10);
-        game.start();
-        // reprint view
-        setViewTo(graphicPanel);
-        JOptionPane.showMessageDialog(null,
-            "Medium Game:\nthis Maze has 10 rows, 10 columns, "
-                + "10 remaining wall, 3 supper bat, and "
-                + "3 pit\nHunter is placed at Cell #15 with 10 arrows"
-                + "\n\nEnjoy your hunt!",
-            "Medium Game Generated", JOptionPane.INFORMATION_MESSAGE);
-        System.out.println(game.streamOut());
+      for (GamePreset preset : presets) {
+        if (text.equals(preset.getLabel())) {
+          GamePreset current = new GamePreset(preset.getLabel(), game.getRows(),
+              game.getColumns(), game.getNumOfRemainingWalls(), game.getNumOfBats(),
+              game.getNumOfPits(), game.getStartingNumArrow(), preset.getFarewell());
+          preset.applyTo(game);
+          if (!startGame()) {
+            current.applyTo(game);
+            break;
+          }
+          // reprint view
+          setViewTo(graphicPanel);
+          JOptionPane.showMessageDialog(null, preset.getDescription(game.getStartingIdx()),
+              preset.getLabel() + " Game Generated", JOptionPane.INFORMATION_MESSAGE);
+          System.out.println(game.streamOut());
+        }
       }
+      prefetchNextGames();
+    }
+  }
 
-      if (text.equals("Hard")) {
-        game.setRows(8);
-        game.setColumns(8);
-        game.setNumOfRemainingWalls(5);
-        game.setNumOfBats(3);
-        game.setNumOfPits(3);
-        game.getHunter().setNumberOfArrows(5);
-        game.start();
-        // reprint view
-        setViewTo(graphicPanel);
-        JOptionPane.showMessageDialog(null,
-            "Hard Game:\nthis Maze has 8 rows, 8 columns, "
-                + "5 remaining wall, 3 supper bat, and "
-                + "3 pit\nHunter is placed at Cell #15 with 5 arrows"
-                + "\n\nEnjoy your hunt!",
-            "Hard Game Generated", JOptionPane.INFORMATION_MESSAGE);
-        System.out.println(game.streamOut());
+  /**
+   * Start the game. A setup with too few caves for its hazards is reported in
+   * a dialog, and the last game goes on.
+   *
+   * @return true if the game started
+   */
+  private boolean startGame() {
+    try {
+      game.start();
+      return true;
+    } catch (IllegalArgumentException e) {
+      JOptionPane.showMessageDialog(null, e.getMessage(), "Cannot Start Game",
+          JOptionPane.ERROR_MESSAGE);
+      return false;
+    }
+  }
+
+  /**
+   * Start the game in 1 or 2 player mode, the last mode is kept if it cannot
+   * start.
+   *
+   * @param isTwoPlayers true for 2 player mode
+   * @return true if the game started
+   */
+  private boolean startGame(boolean isTwoPlayers) {
+    boolean wasTwoPlayers = game.isTwoPlayers();
+    game.setTwoPlayers(isTwoPlayers);
+    if (startGame()) {
+      return true;
+    }
+    game.setTwoPlayers(wasTwoPlayers);
+    return false;
+  }
+
+  /**
+   * Take back the last turn, the graphic panel observes the restored game.
+   */
+  private void undo() {
+    if (game.undo()) {
+      // against the bot, take back its turn too so the player moves again
+      while (isBotTurn() && game.undo()) {
+        continue;
       }
+      System.out.println(game.streamOut());
+    }
+  }
 
-      if (text.equals("Hell")) {
-        game.setRows(5);
-        game.setColumns(5);
-        game.setNumOfRemainingWalls(5);
-        game.setNumOfBats(2);
-        game.setNumOfPits(2);
-        game.getHunter().setNumberOfArrows(2);
-        game.start();
-        setViewTo(graphicPanel);
-        JOptionPane.showMessageDialog(null,
-            "Hell Game:\nthis Maze has 5 rows, 5 columns, "
-                + "5 remaining wall, 2 supper bat, and "
-                + "2 pit\nHunter is placed at Cell #15 with 2 arrows"
-                + "\n\nTrust your gut!",
-            "Hell Game Generated", JOptionPane.INFORMATION_MESSAGE);
-        System.out.println(game.streamOut());
+  /**
+   * Set the bot playing hunter two, the worker threads of the last bot are
+   * stopped.
+   *
+   * @param newBot the bot, null to play without the bot
+   */
+  private void setBot(MctsBot newBot) {
+    if (bot != null && bot != newBot) {
+      bot.shutdown();
+    }
+    bot = newBot;
+  }
+
+  /**
+   * Check if the bot has to play hunter two now.
+   */
+  private boolean isBotTurn() {
+    return bot != null && !game.isEnd() && game.getHunter() == game.getHunterTwo();
+  }
+
+  /**
+   * This class plays the turns of hunter two against the bot. The bot searches
+   * on a background thread, so the move of the player is drawn and the view
+   * answers meanwhile, and its move is played on the event thread.
+   */
+  private class BotPlayer implements Observer {
+    private BotTurn pending; // the turn searched now, null if none
+
+    @Override
+    public void update(Observable o, Object arg) {
+      if (arg instanceof GameChange && ((GameChange) arg).isMapChanged() && isBotTurn()
+          && pending == null) {
+        pending = new BotTurn();
+        pending.execute();
+      }
+    }
+
+    /**
+     * This class searches one turn of the bot from the state read when it is
+     * created. The move is dropped if the bot or the game changed meanwhile,
+     * by undo or a new game, and the turn is searched again if still due.
+     */
+    private class BotTurn extends SwingWorker<MctsBot.Action, Void> {
+      private final MctsBot turnBot = bot;
+      private final Maze maze = game.getMaze();
+      private final long stateHash = game.getStateHash();
+      private final Supplier<MctsBot.Action> search = bot.prepareSearch(game, botRandom);
+
+      @Override
+      protected MctsBot.Action doInBackground() {
+        return search.get();
+      }
+
+      @Override
+      protected void done() {
+        pending = null;
+        MctsBot.Action action;
+        try {
+          action = get();
+        } catch (InterruptedException | ExecutionException e) {
+          throw new IllegalStateException("bot turn failed", e);
+        }
+        if (turnBot != bot) {
+          // replaced while searching, stop the threads it started meanwhile
+          turnBot.shutdown();
+        } else if (isBotTurn() && game.getMaze() == maze && game.getStateHash() == stateHash) {
+          action.applyTo(game);
+          System.out.println(game.streamOut());
+          return;
+        }
+        if (isBotTurn()) {
+          pending = new BotTurn();
+          pending.execute();
+        }
       }
     }
   }
@@ -272,32 +405,24 @@ public class GameView extends JFrame implements KeyListener {
     switch (e.getKeyChar()) {
       // 'W' Key - Shoot NORTH
       case 'w':
-        game.streamIn("S");
-        game.streamIn("1");
-        game.streamIn(Integer.toString(game.shootToIndex("NORTH")));
+        game.shootAction(CaveGraph.NORTH, 1);
         System.out.println(game.streamOut());
         break;
       // 'S' Key - Shoot SOUTH
       case 's':
-        game.streamIn("S");
-        game.streamIn("1");
-        game.streamIn(Integer.toString(game.shootToIndex("SOUTH")));
+        game.shootAction(CaveGraph.SOUTH, 1);
         System.out.println(game.streamOut());
         break;
   
       // 'D' Key - Shoot EAST
       case 'd':
-        game.streamIn("S");
-        game.streamIn("1");
-        game.streamIn(Integer.toString(game.shootToIndex("EAST")));
+        game.shootAction(CaveGraph.EAST, 1);
         System.out.println(game.streamOut());
         break;
   
       // 'A' Key - Shoot WEST
       case 'a':
-        game.streamIn("S");
-        game.streamIn("1");
-        game.streamIn(Integer.toString(game.shootToIndex("WEST")));
+        game.shootAction(CaveGraph.WEST, 1);
         System.out.println(game.streamOut());
         break;
       default:
@@ -315,27 +440,23 @@ public class GameView extends JFrame implements KeyListener {
   public void keyPressed(KeyEvent e) {
     // Arrow Key - Move WEST
     if (e.getKeyCode() == 37) {
-      game.streamIn("M");
-      game.streamIn(Integer.toString(game.moveToIndex("WEST")));
+      game.moveAction(CaveGraph.WEST);
       System.out.println(game.streamOut());
     }
     // Arrow Key - Move UP
     if (e.getKeyCode() == 38) {
-      game.streamIn("M");
-      game.streamIn(Integer.toString(game.moveToIndex("NORTH")));
+      game.moveAction(CaveGraph.NORTH);
       System.out.println(game.streamOut());
     }
     // Arrow Key RIGHT - Move EAST
     if (e.getKeyCode() == 39) {
-      game.streamIn("M");
-      game.streamIn(Integer.toString(game.moveToIndex("EAST")));
+      game.moveAction(CaveGraph.EAST);
       System.out.println(game.streamOut());
 
     }
     // Arrow Key DOWN - Move SOUTH
     if (e.getKeyCode() == 40) {
-      game.streamIn("M");
-      game.streamIn(Integer.toString(game.moveToIndex("SOUTH")));
+      game.moveAction(CaveGraph.SOUTH);
       System.out.println(game.streamOut());
     }
   }
@@ -361,5 +482,9 @@ public class GameView extends JFrame implements KeyListener {
       game.setSpecialEdition(true);
       setViewTo(graphicPanel);
     }
+    // ShortCut U: Undo the last turn
+    if (e.getKeyChar() == 'u') {
+      undo();
+    }
   }
 }
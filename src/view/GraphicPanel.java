@@ -7,6 +7,8 @@ import javax.swing.JOptionPane;
 import javax.swing.JPanel;
 
 import controller.Game;
+import controller.GameChange;
+import controller.GameOutcome;
 
 /**
  * This class represents a Graphic Panel which combines ButtonPanel and
@@ -49,14 +51,23 @@ public class GraphicPanel extends JPanel implements Observer {
   /**
    * This method overrides updating GraphicPanel with status of the game. If Game
    * ends, disables all Button from Button Panel, revealing all map information.
-   * Also prompts new dialog window to provide reason that game ends.
+   * Also prompts new dialog window to provide reason that game ends. The
+   * MazePanel is only built again for a new game, a move or a shot repaints it.
    */
   @Override
   public void update(Observable o, Object arg) {
-    updateMazePanel();
+    if (arg instanceof GameChange && !((GameChange) arg).isMapChanged()) {
+      // a prompt or a rejected command, nothing to draw again
+      return;
+    }
+    if (arg == GameChange.MOVED || arg == GameChange.SHOT) {
+      mazePanel.repaint();
+    } else {
+      updateMazePanel();
+    }
     buttonPanel.enableButtons(true);
     if (game.isEnd()) {
-      game.getRoomMaze().revealGameMap();
+      game.revealGameMap();
       buttonPanel.enableButtons(false);
       if (game.isSpecialEdition()) {
         JOptionPane.showMessageDialog(null,
@@ -64,22 +75,9 @@ public class GraphicPanel extends JPanel implements Observer {
             + "\nand a Happy New Year!\n",
             "Merry Christmas", JOptionPane.INFORMATION_MESSAGE);
       } else {
-        if (game.isEaten()) {
-          JOptionPane.showMessageDialog(null,
-              "Chomp, chomp, chomp, thanks for feeding the Wumpus!\nBetter luck next time\n",
-              "Game Over", JOptionPane.INFORMATION_MESSAGE);
-        } else if (game.isFallen()) {
-          JOptionPane.showMessageDialog(null,
-              "The cave contains a bottomless pit!\nYou fall screaming into the void.\n",
-              "Game Over", JOptionPane.INFORMATION_MESSAGE);
-        } else if (game.isOutOfArrows()) {
-          JOptionPane.showMessageDialog(null, "You used up all your arrows!\n", "Game Over",
-              JOptionPane.INFORMATION_MESSAGE);
-        } else if (game.isGameWon()) {
-          JOptionPane.showMessageDialog(null,
-              "Hee hee hee, you got the wumpus!\nNext time you won't be so lucky\n", "Game Win",
-              JOptionPane.INFORMATION_MESSAGE);
-        }
+        String title = game.getOutcome() == GameOutcome.WON ? "Game Win" : "Game Over";
+        JOptionPane.showMessageDialog(null, game.getOutcome().getMessage().trim(), title,
+            JOptionPane.INFORMATION_MESSAGE);
       }
     }
   }
@@ -23,9 +23,27 @@ import model.Cell;
  * @author Daniel Zhou
  */
 public class MazePanel extends JPanel {
-  private Game game;
-  private Cell[][] gameMap;
+  // indexed by the mask of open sides: N = 1, E = 2, S = 4, W = 8
+  private static final String[] CELL_IMAGES = {
+      "res/images/roombase-0.png", // none
+      "res/images/roombase-1-N.png", // N
+      "res/images/roombase-1-E.png", // E
+      "res/images/hallway-NE.png", // N E
+      "res/images/roombase-1-S.png", // S
+      "res/images/hallway-NS.png", // N S
+      "res/images/hallway-SE.png", // E S
+      "res/images/roombase-3-W.png", // N E S, west missing
+      "res/images/roombase-1-W.png", // W
+      "res/images/hallway-NW.png", // N W
+      "res/images/hallway-WE.png", // E W
+      "res/images/roombase-3-S.png", // N E W, south missing
+      "res/images/hallway-SW.png", // S W
+      "res/images/roombase-3-E.png", // N S W, east missing
+      "res/images/roombase-3-N.png", // E S W, north missing
+      "res/images/roombase-4.png" // all
+  };
 
+  private Game game;
 
   /**
    * Construct this MazePanel, is resizable according to the rows and columns.
@@ -34,7 +52,6 @@ public class MazePanel extends JPanel {
    */
   public MazePanel(Game currentGame) {
     this.game = currentGame;
-    this.gameMap = game.getGameMap();
     this.setSize(64 * game.getRows(), 64 * game.getColumns());
     // right side of the GraphicView
     this.setLocation(320, 0);
@@ -59,117 +76,46 @@ public class MazePanel extends JPanel {
   /**
    * Get the Ground Image from designated file location.
    * 
+   * @param cell the 0-based cell index
    * @return the Image object can read by MazePanel
    */
-  public Image getGroundImage(Cell cell) {
+  public Image getGroundImage(int cell) {
     return importImage("res/images/emptyRoom.png");
   }
 
   /**
-   * Get the Cell Image from designated file location. Check different
-   * orientations according to the x coordinate and y coordinate of connected
-   * neighbor cells.
+   * Get the Cell Image from designated file location. The image is looked up
+   * by the mask of open sides of the cell, bit 1 << direction in CaveGraph order
+   * NORTH, EAST, SOUTH, WEST.
    * 
+   * @param cell the 0-based cell index
    * @return the Image object can read by MazePanel
    */
-  public Image getCellImage(Cell cell) {
-    // get sumX and sumY are the indicator to show the directions
-    int sumX = 0;
-    int sumY = 0;
-
-    for (Cell neighouberCell : cell.getNeighouberCellsSet()) {
-      sumX = sumX + neighouberCell.getX();
-      sumY = sumY + neighouberCell.getY();
-    }
-
-    if (cell.getNeighouberCellsSet().size() == 0) {
-      return importImage("res/images/roombase-0.png");
-    }
-    // one-way cave in four directions
-    else if (cell.getNeighouberCellsSet().size() == 1) {
-      if ((sumX == cell.getX()) && (sumY < cell.getY())) { // west
-        return importImage("res/images/roombase-1-W.png");
-      } else if ((sumX < cell.getX()) && (sumY == cell.getY())) { // north
-        return importImage("res/images/roombase-1-N.png");
-      } else if ((sumX > cell.getX()) && (sumY == cell.getY())) { // south
-        return importImage("res/images/roombase-1-S.png");
-      } else {
-        return importImage("res/images/roombase-1-E.png"); // east
-      }
-    }
-    // two-way tunnel in four directions
-    else if (cell.getNeighouberCellsSet().size() == 2) {
-      boolean sameX = true;
-      boolean sameY = true;
-      for (Cell neighouberCell : cell.getNeighouberCellsSet()) {
-        // boolean is used for find status of straight hallway
-        sameX = neighouberCell.getX() == cell.getX() ? true : false;
-        sameY = neighouberCell.getY() == cell.getY() ? true : false;
-      }
-      // Straight tunnel
-      if ((sumX == cell.getX() * 2) && (sumY == cell.getY() * 2)) {
-        if (sameX) {
-          return importImage("res/images/hallway-WE.png");// Straight tunnel WE
-        } else if (sameY) {
-          return importImage("res/images/hallway-NS.png");// Straight tunnel NS
-        } else {
-          return null;
-        }
-      } else if ((sumX > cell.getX() * 2) && (sumY < cell.getY() * 2)) { // crooked tunnel SW
-        return importImage("res/images/hallway-SW.png");
-      } else if ((sumX > cell.getX() * 2) && (sumY > cell.getY() * 2)) { // crooked tunnel SE
-        return importImage("res/images/hallway-SE.png");
-      } else if ((sumX < cell.getX() * 2) && (sumY < cell.getY() * 2)) { // crooked tunnel NW
-        return importImage("res/images/hallway-NW.png");
-      } else if ((sumX < cell.getX() * 2) && (sumY > cell.getY() * 2)) { // crooked tunnel NE
-        return importImage("res/images/hallway-NE.png");
-      } else {
-        return null;
-      }
-    }
-    // three-way cave in four directions
-    else if (cell.getNeighouberCellsSet().size() == 3) {
-      if ((sumX == cell.getX() * 3) && (sumY > cell.getY() * 3)) { // west missing
-        return importImage("res/images/roombase-3-W.png");
-      } else if ((sumX > cell.getX() * 3) && (sumY == cell.getY() * 3)) { // north missing
-        return importImage("res/images/roombase-3-N.png");
-      } else if ((sumX == cell.getX() * 3) && (sumY < cell.getY() * 3)) { // east missing
-        return importImage("res/images/roombase-3-E.png");
-      } else {
-        return importImage("res/images/roombase-3-S.png"); // south missing
-      }
-    }
-    // four-way cave in four directions
-    else if (cell.getNeighouberCellsSet().size() == 4) {
-      return importImage("res/images/roombase-4.png");
-    }
-    return null;
+  public Image getCellImage(int cell) {
+    return importImage(CELL_IMAGES[game.getCaveGraph().getOpenSides(cell)]);
   }
 
   /**
    * Get the Element Image from designated file location. Check different flags of
    * of current cell has and reprint the ElementImage to MazePanel.
    * 
+   * @param flags the status flags of the cell
    * @return the Image object can read by MazePanel
    */
-  public Image getElementImage(Cell cell) {
-    if (cell.isWumpus()) {
-      return importImage("res/images/wumpus.png");
-    }
-    if (cell.isPit()) {
-      return importImage("res/images/slime-pit.png");
-    }
-
-    if (cell.isBlood()) {
-      return importImage("res/images/wumpus-nearby.png");
-    }
-    if (cell.isDraft()) {
-      return importImage("res/images/slime-pit-nearby.png");
-    }
-    if (cell.isBat()) {
-      return importImage("res/images/superbat.png");
-    } else {
-      return null;
+  public Image getElementImage(int flags) {
+    switch (Cell.getElementFlag(flags)) {
+      case Cell.WUMPUS:
+        return importImage("res/images/wumpus.png");
+      case Cell.PIT:
+        return importImage("res/images/slime-pit.png");
+      case Cell.BLOOD:
+        return importImage("res/images/wumpus-nearby.png");
+      case Cell.DRAFT:
+        return importImage("res/images/slime-pit-nearby.png");
+      case Cell.BAT:
+        return importImage("res/images/superbat.png");
+      default:
+        return null;
     }
   }
 
@@ -177,26 +123,23 @@ public class MazePanel extends JPanel {
    * Get the Special Edition Image from designated file location. Check different
    * flags of current cell has and reprint the SpecialImage to MazePanel.
    * 
+   * @param flags the status flags of the cell
    * @return the Image object from file.
    */
-  public Image getSpecialImage(Cell cell) {
-    if (cell.isWumpus()) {
-      return importImage("res/images/santa.png");
-    }
-    if (cell.isPit()) {
-      return importImage("res/images/tree.png");
-    }
-
-    if (cell.isBlood()) {
-      return importImage("res/images/present.png");
-    }
-    if (cell.isDraft()) {
-      return importImage("res/images/present.png");
-    }
-    if (cell.isBat()) {
-      return importImage("res/images/sock.png");
-    } else {
-      return null;
+  public Image getSpecialImage(int flags) {
+    switch (Cell.getElementFlag(flags)) {
+      case Cell.WUMPUS:
+        return importImage("res/images/santa.png");
+      case Cell.PIT:
+        return importImage("res/images/tree.png");
+      case Cell.BLOOD:
+        return importImage("res/images/present.png");
+      case Cell.DRAFT:
+        return importImage("res/images/present.png");
+      case Cell.BAT:
+        return importImage("res/images/sock.png");
+      default:
+        return null;
     }
   }
 
@@ -209,7 +152,7 @@ public class MazePanel extends JPanel {
   public void paintComponent(Graphics g) {
     super.paintComponent(g);
     Point curPosition;
-    Cell cell;
+    byte[] cellFlags = game.getCellFlags();
 
     Image hunterOne = new ImageIcon("res/images/hunter.png").getImage();
     Image hunterTwo = new ImageIcon("res/images/hunter2.png").getImage();
@@ -223,7 +166,8 @@ public class MazePanel extends JPanel {
       for (int col = 0; col < game.getColumns(); col++) {
 
         curPosition = new Point(row, col);
-        cell = gameMap[curPosition.x][curPosition.y];
+        int cell = row * game.getColumns() + col;
+        int flags = cellFlags[cell];
 
         g2d.drawImage(getGroundImage(cell), col * 64, row * 64, this);
 
@@ -231,9 +175,9 @@ public class MazePanel extends JPanel {
           g2d.drawImage(getCellImage(cell), col * 64, row * 64, this);
 
           if (game.isSpecialEdition()) {
-            g2d.drawImage(getSpecialImage(cell), col * 64, row * 64, this);
+            g2d.drawImage(getSpecialImage(flags), col * 64, row * 64, this);
           } else {
-            g2d.drawImage(getElementImage(cell), col * 64, row * 64, this);
+            g2d.drawImage(getElementImage(flags), col * 64, row * 64, this);
           }
         }
 
@@ -244,12 +188,12 @@ public class MazePanel extends JPanel {
           g2d.drawImage(arrowTwo, col * 64, row * 64, this);
         }
 
-        if (cell.isVisited()) {
+        if ((flags & Cell.VISITED) != 0) {
           g2d.drawImage(getCellImage(cell), col * 64, row * 64, this);
           if (game.isSpecialEdition()) {
-            g2d.drawImage(getSpecialImage(cell), col * 64, row * 64, this);
+            g2d.drawImage(getSpecialImage(flags), col * 64, row * 64, this);
           } else {
-            g2d.drawImage(getElementImage(cell), col * 64, row * 64, this);
+            g2d.drawImage(getElementImage(flags), col * 64, row * 64, this);
           }
           if (curPosition.equals(game.getHunterOne().getCurrentPos())) {
             g2d.drawImage(hunterOne, col * 64, row * 64, this);
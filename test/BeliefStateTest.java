@@ -0,0 +1,101 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.SplittableRandom;
+
+import org.junit.Test;
+
+import controller.Game;
+import model.BeliefState;
+import model.CaveGraph;
+import model.Cell;
+import model.RoomMaze;
+import simulation.RandomBot;
+
+/**
+ * Test the BeliefState class.
+ */
+public class BeliefStateTest {
+
+  /**
+   * Test the inference on an open 3 x 3 grid, where the corners are tunnels and
+   * the caves are north 0, west 1, center 2, east 3 and south 4.
+   */
+  @Test
+  public void testOpenGrid() {
+    CaveGraph graph = new CaveGraph(new RoomMaze(3, 3, 0, 0));
+    assertEquals(5, graph.getNumOfCaves());
+    assertEquals(4, graph.getCaveCell(2));
+    BeliefState beliefs = new BeliefState(graph, 1, 1);
+    assertEquals(0.2, beliefs.getWumpusProbability(3), 1e-9);
+    // blood in the center: anywhere but the center
+    beliefs.observe(2, Cell.BLOOD | Cell.DRAFT);
+    assertEquals(0.25, beliefs.getWumpusProbability(4), 1e-9);
+    // blood in the north: west or east
+    beliefs.observe(0, Cell.BLOOD | Cell.DRAFT);
+    assertEquals(0.5, beliefs.getWumpusProbability(1), 1e-9);
+    assertEquals(0, beliefs.getWumpusProbability(4), 1e-9);
+    assertFalse(beliefs.isSafe(3));
+    assertTrue(beliefs.isSafe(2));
+    beliefs.observeMiss(1);
+    assertEquals(3, beliefs.getWumpusCave());
+    assertEquals(1, beliefs.getNumOfWumpusCaves());
+    // the draft in the south comes from west or east, no draft in the west
+    beliefs.observe(4, Cell.DRAFT);
+    assertEquals(0.5, beliefs.getPitProbability(1), 1e-9);
+    beliefs.observe(1, 0);
+    assertEquals(0, beliefs.getPitProbability(1), 1e-9);
+    assertEquals(1, beliefs.getPitProbability(3), 1e-9);
+    beliefs.observeBat(1, false);
+    beliefs.observeBat(4, true);
+    assertEquals(1, beliefs.getBatProbability(4), 1e-9);
+    assertEquals(0, beliefs.getBatProbability(0), 1e-9);
+    beliefs.reset();
+    assertEquals(CaveGraph.NONE, beliefs.getWumpusCave());
+    assertEquals(5, beliefs.getNumOfWumpusCaves());
+  }
+
+  /**
+   * Test if the beliefs of random games never rule out the true hazards.
+   */
+  @Test
+  public void testConsistentWithGames() {
+    Game game = new Game(8, 8, 5, 3, 3, 15, 5, false, false);
+    RandomBot bot = new RandomBot(0.5);
+    for (long seed = 0; seed < 200; seed++) {
+      game.setSeedRandomGame(seed);
+      game.start();
+      SplittableRandom random = new SplittableRandom(seed);
+      for (int turn = 0; turn < 100 && !game.isEnd(); turn++) {
+        bot.playTurn(game, random);
+        assertConsistent(game);
+      }
+    }
+  }
+
+  private void assertConsistent(Game game) {
+    CaveGraph graph = game.getCaveGraph();
+    BeliefState beliefs = game.getBeliefState();
+    Cell[][] gameMap = game.getGameMap();
+    int columns = game.getColumns();
+    for (int cave = 0; cave < graph.getNumOfCaves(); cave++) {
+      int cell = graph.getCaveCell(cave);
+      Cell current = gameMap[cell / columns][cell % columns];
+      if (current.isWumpus()) {
+        assertTrue(beliefs.getWumpusProbability(cave) > 0);
+      }
+      if (current.isPit()) {
+        assertTrue(beliefs.getPitProbability(cave) > 0);
+      }
+      if (current.isPit() || current.isWumpus()) {
+        assertFalse(beliefs.isSafe(cave));
+      }
+      if (current.isBat()) {
+        assertTrue(beliefs.getBatProbability(cave) > 0);
+      } else {
+        assertTrue(beliefs.getBatProbability(cave) < 1);
+      }
+    }
+  }
+}
@@ -0,0 +1,161 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.junit.Test;
+
+import model.CaveGraph;
+import model.Cell;
+import model.CompactMaze;
+import model.Maze;
+import model.RoomMaze;
+import model.WrappingMaze;
+
+/**
+ * Test the CaveGraph class.
+ */
+public class CaveGraphTest {
+
+  /**
+   * Check that the graph leads every cell to the same caves as the maze.
+   */
+  private void assertSameLeadTos(Maze maze) {
+    Cell[][] gameMap = maze.getGameMap();
+    int columns = gameMap[0].length;
+    CaveGraph graph = new CaveGraph(maze);
+    int[] leadTos = new int[4];
+    for (Cell[] row : gameMap) {
+      for (Cell cell : row) {
+        Set<Integer> expected = new TreeSet<>();
+        for (Cell cave : cell.getLeadToCavesSet()) {
+          expected.add(cave.getIndex() - 1);
+        }
+        Set<Integer> actual = new TreeSet<>();
+        int count = graph.getLeadToCavesOfCell(cell.getX() * columns + cell.getY(), leadTos);
+        for (int i = 0; i < count; i++) {
+          actual.add(graph.getCaveCell(leadTos[i]));
+        }
+        assertEquals(expected, actual);
+      }
+    }
+  }
+
+  /**
+   * Test if the graph of a RoomMaze matches its leadToCaves sets.
+   */
+  @Test
+  public void testRoomMaze() {
+    assertSameLeadTos(new RoomMaze(15, 12, 30, 6));
+    assertSameLeadTos(new RoomMaze(1, 50, 0, 0));
+  }
+
+  /**
+   * Test if the graph of a WrappingMaze matches its leadToCaves sets.
+   */
+  @Test
+  public void testWrappingMaze() {
+    assertSameLeadTos(new WrappingMaze(10, 10, 20));
+  }
+
+  /**
+   * Test if the graph of a CompactMaze, built from its wall bits, is the graph
+   * of the RoomMaze with the same walls.
+   */
+  @Test
+  public void testCompactMaze() {
+    CaveGraph compact = new CaveGraph(new CompactMaze(15, 12, 30, 6));
+    CaveGraph room = new CaveGraph(new RoomMaze(15, 12, 30, 6));
+    assertEquals(room.getNumOfCaves(), compact.getNumOfCaves());
+    for (int cell = 0; cell < 15 * 12; cell++) {
+      assertEquals(room.getOpenSides(cell), compact.getOpenSides(cell));
+      assertEquals(room.getCaveId(cell), compact.getCaveId(cell));
+    }
+    for (int cave = 0; cave < room.getNumOfCaves(); cave++) {
+      for (int direction = 0; direction < 4; direction++) {
+        assertEquals(room.getTarget(cave, direction), compact.getTarget(cave, direction));
+        assertEquals(room.getArrival(cave, direction), compact.getArrival(cave, direction));
+        assertEquals(room.getTunnelLength(cave, direction),
+            compact.getTunnelLength(cave, direction));
+      }
+    }
+  }
+
+  /**
+   * Test tunnel lengths, tunnel cells and adjacency on a single row.
+   */
+  @Test
+  public void testSingleRow() {
+    CaveGraph graph = new CaveGraph(new RoomMaze(1, 6, 0, 0));
+    assertEquals(2, graph.getNumOfCaves());
+    assertEquals(0, graph.getCaveId(0));
+    assertEquals(CaveGraph.NONE, graph.getCaveId(3));
+    assertEquals(1, graph.getTarget(0, CaveGraph.EAST));
+    assertEquals(CaveGraph.NONE, graph.getTarget(0, CaveGraph.NORTH));
+    assertEquals(4, graph.getTunnelLength(0, CaveGraph.EAST));
+    assertEquals(1, graph.getTunnelCell(0, CaveGraph.EAST, 0));
+    assertEquals(1, graph.getTunnelCell(1, CaveGraph.WEST, 3));
+    assertTrue(graph.isAdjacent(0, 1));
+    assertTrue(graph.isAdjacent(1, 0));
+    assertFalse(graph.isAdjacent(0, 0));
+    assertEquals(1, graph.getArrowTarget(0, CaveGraph.EAST, 5));
+  }
+
+  /**
+   * Test if an arrow flies straight through open caves.
+   */
+  @Test
+  public void testArrowFlight() {
+    // no walls left, every cell is a cave except the four corners
+    CaveGraph graph = new CaveGraph(new RoomMaze(5, 5, 0, 1));
+    int start = graph.getCaveId(2 * 5 + 1);
+    int stop = graph.getArrowTarget(start, CaveGraph.EAST, 2);
+    assertEquals(2 * 5 + 3, graph.getCaveCell(stop));
+    stop = graph.getArrowTarget(start, CaveGraph.EAST, 5);
+    assertEquals(2 * 5 + 4, graph.getCaveCell(stop));
+  }
+
+  /**
+   * Check that every open side of a cell leads to one of the caves the cell
+   * leads to, and that caves agree with their direction slots.
+   */
+  private void assertSameOpenSides(Maze maze) {
+    Cell[][] gameMap = maze.getGameMap();
+    int columns = gameMap[0].length;
+    CaveGraph graph = new CaveGraph(maze);
+    for (Cell[] row : gameMap) {
+      for (Cell cell : row) {
+        int index = cell.getX() * columns + cell.getY();
+        int openSides = graph.getOpenSides(index);
+        assertEquals(cell.getNeighouberCellsSet().size(), Integer.bitCount(openSides));
+        for (int direction = 0; direction < 4; direction++) {
+          int target = graph.getTargetOfCell(index, direction);
+          if (!graph.isOpen(index, direction)) {
+            assertEquals(CaveGraph.NONE, target);
+          } else if (cell.isCave()) {
+            assertEquals(graph.getTarget(graph.getCaveId(index), direction), target);
+          } else if (target != CaveGraph.NONE) {
+            assertTrue(cell.getLeadToCavesSet().contains(
+                gameMap[graph.getCaveCell(target) / columns][graph.getCaveCell(target) % columns]));
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Test if the open sides and the direction targets match the maze.
+   */
+  @Test
+  public void testOpenSides() {
+    assertSameOpenSides(new RoomMaze(15, 12, 30, 6));
+    assertSameOpenSides(new WrappingMaze(10, 10, 20));
+    CaveGraph graph = new CaveGraph(new RoomMaze(1, 6, 0, 0));
+    // the west end of a single row is open to the east only
+    assertEquals(1 << CaveGraph.EAST, graph.getOpenSides(0));
+    assertEquals(1, graph.getTargetOfCell(2, CaveGraph.EAST));
+    assertEquals(0, graph.getTargetOfCell(2, CaveGraph.WEST));
+  }
+}
@@ -0,0 +1,83 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Test;
+
+import model.CaveSampler;
+import model.SplitMix64;
+
+/**
+ * Test the CaveSampler class.
+ */
+public class CaveSamplerTest {
+
+  /**
+   * Test if taking every cave gives every cave once.
+   */
+  @Test
+  public void testTakeAll() {
+    CaveSampler sampler = new CaveSampler(50);
+    Set<Integer> caves = new HashSet<>();
+    for (int cave : sampler.take(50, new SplitMix64(1))) {
+      caves.add(cave);
+    }
+    assertEquals(50, caves.size());
+    assertEquals(0, sampler.getNumOfAvailable());
+  }
+
+  /**
+   * Test if an excluded cave is never drawn until it is included again.
+   */
+  @Test
+  public void testExclude() {
+    CaveSampler sampler = new CaveSampler(3);
+    sampler.exclude(1);
+    sampler.exclude(1);
+    assertEquals(2, sampler.getNumOfAvailable());
+    assertFalse(sampler.isAvailable(1));
+    SplitMix64 rand = new SplitMix64(2);
+    for (int i = 0; i < 100; i++) {
+      assertNotEquals(1, sampler.sample(rand));
+    }
+    sampler.include(1);
+    assertTrue(sampler.isAvailable(1));
+    assertEquals(3, sampler.getNumOfAvailable());
+  }
+
+  /**
+   * Test if the draws are roughly uniform.
+   */
+  @Test
+  public void testUniform() {
+    CaveSampler sampler = new CaveSampler(4);
+    int[] counts = new int[4];
+    SplitMix64 rand = new SplitMix64(3);
+    for (int i = 0; i < 40000; i++) {
+      counts[sampler.sample(rand)]++;
+    }
+    for (int count : counts) {
+      assertTrue(Math.abs(count - 10000) < 500);
+    }
+  }
+
+  /**
+   * Test if taking more caves than available throws an IllegalArgumentException.
+   */
+  @Test
+  public void testTooManySamples() {
+    CaveSampler sampler = new CaveSampler(5);
+    sampler.exclude(0);
+    try {
+      sampler.take(5, new SplitMix64(4));
+      fail();
+    } catch (IllegalArgumentException e) {
+      // Continue, do nothing
+    }
+  }
+}
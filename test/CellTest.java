@@ -5,6 +5,7 @@ import org.junit.Before;
 import org.junit.Test;
 
 import model.Cell;
+import model.RoomMaze;
 
 /**
  * Cell Class Test.
@@ -119,4 +120,35 @@ public class CellTest {
     testCell.setBlood(false);
     assertEquals(false, testCell.isBlood());
   }
+
+  /**
+   * Test if the mask queries read the packed flags.
+   */
+  @Test
+  public void testFlagQueries() {
+    assertEquals(false, testCell.hasAnyHazard());
+    assertEquals(0, testCell.getElementFlag());
+    testCell.setBat(true);
+    testCell.setDraft(true);
+    assertEquals(true, testCell.hasAnyHazard());
+    assertEquals(Cell.DRAFT, testCell.getSensedFlags());
+    assertEquals(Cell.DRAFT, testCell.getElementFlag());
+    testCell.setBlood(true);
+    assertEquals(Cell.SENSED, testCell.getSensedFlags());
+    assertEquals(Cell.BLOOD, testCell.getElementFlag());
+    testCell.setFlags(Cell.ELEMENT, false);
+    assertEquals(0, testCell.getFlags());
+  }
+
+  /**
+   * Test if the cells of a maze share the flag array of the maze.
+   */
+  @Test
+  public void testSharedFlags() {
+    RoomMaze roomMaze = new RoomMaze(3, 4, 0, 1);
+    roomMaze.getGameMap()[1][2].setWumpus(true);
+    assertEquals(Cell.WUMPUS, roomMaze.getCellFlags()[6] & Cell.WUMPUS);
+    roomMaze.revealGameMap();
+    assertEquals(true, roomMaze.getGameMap()[2][3].isVisited());
+  }
 }
@@ -0,0 +1,77 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.junit.Test;
+
+import model.Cell;
+import model.CompactMaze;
+import model.RoomMaze;
+
+/**
+ * Test the CompactMaze class.
+ */
+public class CompactMazeTest {
+
+  /**
+   * Collect the 1-based indexes of a set of cells.
+   */
+  private Set<Integer> indexes(Set<Cell> cells) {
+    Set<Integer> result = new TreeSet<>();
+    for (Cell cell : cells) {
+      result.add(cell.getIndex());
+    }
+    return result;
+  }
+
+  /**
+   * Test if the compact maze has the same topology as a RoomMaze with the same
+   * seed.
+   */
+  @Test
+  public void testSameAsRoomMaze() {
+    RoomMaze roomMaze = new RoomMaze(12, 9, 20, 5);
+    CompactMaze compactMaze = new CompactMaze(12, 9, 20, 5);
+    Cell[][] expected = roomMaze.getGameMap();
+    Cell[][] actual = compactMaze.getGameMap();
+    for (int row = 0; row < 12; row++) {
+      for (int col = 0; col < 9; col++) {
+        assertEquals(expected[row][col].isCave(), actual[row][col].isCave());
+        assertEquals(expected[row][col].getIndex(), actual[row][col].getIndex());
+        assertEquals(indexes(expected[row][col].getNeighouberCellsSet()),
+            indexes(actual[row][col].getNeighouberCellsSet()));
+        assertEquals(indexes(expected[row][col].getLeadToCavesSet()),
+            indexes(actual[row][col].getLeadToCavesSet()));
+      }
+    }
+    assertEquals(20, compactMaze.getRemainingWallList().size());
+  }
+
+  /**
+   * Test if the Cell adapter writes through to the flag array.
+   */
+  @Test
+  public void testCellFlags() {
+    CompactMaze compactMaze = new CompactMaze(4, 4, 0, 1);
+    Cell cell = compactMaze.getGameMap()[1][2];
+    cell.setPit(true);
+    cell.setVisited(true);
+    assertTrue(compactMaze.hasFlag(6, CompactMaze.PIT));
+    assertTrue(compactMaze.hasFlag(6, CompactMaze.VISITED));
+    assertFalse(compactMaze.hasFlag(6, CompactMaze.WUMPUS));
+    compactMaze.setFlag(6, CompactMaze.PIT, false);
+    assertFalse(cell.isPit());
+  }
+
+  /**
+   * Test if a large compact maze stays under 16 bytes per cell.
+   */
+  @Test
+  public void testMemoryFootprint() {
+    CompactMaze compactMaze = new CompactMaze(500, 500, 1000, 2);
+    assertTrue(compactMaze.getMemoryFootprint() < 16L * 500 * 500);
+  }
+}
@@ -0,0 +1,86 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+import controller.Difficulty;
+import controller.GameOutcome;
+import controller.GamePreset;
+import simulation.DifficultyTuner;
+import simulation.RandomBot;
+import simulation.SimulationReport;
+
+/**
+ * Test the DifficultyTuner class.
+ */
+public class DifficultyTunerTest {
+
+  /**
+   * Test if tuning moves the win rate towards the target and keeps the label.
+   */
+  @Test
+  public void testTune() {
+    DifficultyTuner tuner = new DifficultyTuner(() -> new RandomBot(0.5), 0.03, 5);
+    tuner.setMaxSteps(3);
+    GamePreset start = Difficulty.HELL.getPreset();
+    GamePreset tuned = tuner.tune(start, 0.5);
+    SimulationReport before = tuner.getReport(start);
+    SimulationReport after = tuner.getReport(tuned);
+    assertEquals("Hell", tuned.getLabel());
+    assertTrue(after.getRate(GameOutcome.WON) > before.getRate(GameOutcome.WON));
+    assertTrue(tuner.getNumOfGamesPlayed() >= before.getNumOfGames());
+  }
+
+  /**
+   * Test if a start preset within the precision of the target is kept.
+   */
+  @Test
+  public void testTuneAtTarget() {
+    DifficultyTuner tuner = new DifficultyTuner(() -> new RandomBot(0.5), 0.05, 5);
+    GamePreset start = Difficulty.HARD.getPreset();
+    tuner.setMaxSteps(0);
+    double rate = tuner.getReport(tuner.tune(start, 0.5)).getRate(GameOutcome.WON);
+    tuner.setMaxSteps(DifficultyTuner.DEFAULT_MAX_STEPS);
+    assertEquals(start, tuner.tune(start, rate));
+  }
+
+  /**
+   * Test if a crowded preset skips the neighbours with too few cells for its
+   * hazards.
+   */
+  @Test
+  public void testTuneCrowded() {
+    DifficultyTuner tuner = new DifficultyTuner(() -> new RandomBot(0.5), 0.05, 5);
+    tuner.setMaxSteps(2);
+    GamePreset tuned = tuner.tune(new GamePreset("T", 5, 5, 0, 9, 10, 1, "x"), 0.0);
+    assertTrue(tuned.getNumOfPits() + tuned.getNumOfBats() + 2
+        <= tuned.getRows() * tuned.getColumns());
+  }
+
+  /**
+   * Test if invalid settings are rejected.
+   */
+  @Test
+  public void testInvalid() {
+    try {
+      new DifficultyTuner(() -> new RandomBot(0.5), 0, 1);
+      fail("a precision of 0 should be rejected");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+    DifficultyTuner tuner = new DifficultyTuner(() -> new RandomBot(0.5), 0.05, 1);
+    try {
+      tuner.tune(Difficulty.EASY.getPreset(), 1.5);
+      fail("a win rate over 1 should be rejected");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+    try {
+      tuner.tune(new GamePreset("Crowded", 3, 3, 0, 4, 4, 1, "Bye"), 0.5);
+      fail("a preset with too many hazards should be rejected");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+  }
+}
@@ -67,4 +67,21 @@ public class DisjointSetsTest {
     assertTrue(testSet.isConnected(c2, c3));
   }
 
+  /**
+   * Test if index based union and find works on a large chain without
+   * overflowing the stack.
+   */
+  @Test
+  public void testLongChain() {
+    int columns = 2000;
+    testSet = new DisjointSets(2000, columns);
+    int total = 2000 * columns;
+    for (int i = 1; i < total; i++) {
+      assertTrue(testSet.union(i - 1, i));
+    }
+    assertFalse(testSet.union(0, total - 1));
+    assertEquals(1, testSet.getNumOfSets());
+    assertEquals(testSet.find(0), testSet.find(total - 1));
+  }
+
 }
@@ -0,0 +1,98 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import org.junit.Test;
+
+import model.DisjointSets;
+import model.EllerMaze;
+
+/**
+ * Test the EllerMaze class.
+ */
+public class EllerMazeTest {
+
+  /**
+   * Count the remaining walls and the disjoint sets of a streamed maze.
+   */
+  private int[] stream(int rows, int columns, int numOfRemainingWalls, long seed) {
+    DisjointSets sets = new DisjointSets(rows, columns);
+    int[] numOfWalls = new int[1];
+    new EllerMaze(rows, columns, numOfRemainingWalls, seed).generate((row, walls) -> {
+      for (int col = 0; col < columns; col++) {
+        int cell = row * columns + col;
+        if ((walls[col] & EllerMaze.WALL_SOUTH) != 0) {
+          numOfWalls[0]++;
+        } else if (row < rows - 1) {
+          sets.union(cell, cell + columns);
+        }
+        if ((walls[col] & EllerMaze.WALL_EAST) != 0) {
+          numOfWalls[0]++;
+        } else if (col < columns - 1) {
+          sets.union(cell, cell + 1);
+        }
+      }
+    });
+    return new int[] {numOfWalls[0], sets.getNumOfSets()};
+  }
+
+  /**
+   * Test if a perfect maze is connected with the expected walls left.
+   */
+  @Test
+  public void testPerfectMaze() {
+    int[] result = stream(30, 20, 29 * 19, 1);
+    assertEquals(29 * 19, result[0]);
+    assertEquals(1, result[1]);
+  }
+
+  /**
+   * Test if extra walls are broken down to the requested number.
+   */
+  @Test
+  public void testRemainingWalls() {
+    for (int remaining : new int[] {0, 1, 17, 100, 300}) {
+      int[] result = stream(25, 15, remaining, remaining);
+      assertEquals(remaining, result[0]);
+      assertEquals(1, result[1]);
+    }
+  }
+
+  /**
+   * Test if the same seed writes the same maze.
+   */
+  @Test
+  public void testSameSeed() throws IOException {
+    StringWriter first = new StringWriter();
+    StringWriter second = new StringWriter();
+    new EllerMaze(40, 40, 50, 9).writeTo(first);
+    new EllerMaze(40, 40, 50, 9).writeTo(second);
+    assertEquals(first.toString(), second.toString());
+    assertEquals(40 * 41, first.toString().length());
+  }
+
+  /**
+   * Test if the Maze contract builds the same number of walls.
+   */
+  @Test
+  public void testGameMap() {
+    EllerMaze maze = new EllerMaze(6, 7, 10, 3);
+    assertEquals(10, maze.getRemainingWallList().size());
+    assertEquals(7, maze.getGameMap()[5].length);
+  }
+
+  /**
+   * Test if invalid number of walls throws an IllegalArgumentException.
+   */
+  @Test
+  public void testInvalidConstructor() {
+    try {
+      new EllerMaze(10, 10, 82, 0);
+      fail();
+    } catch (IllegalArgumentException e) {
+      // Continue, do nothing
+    }
+  }
+}
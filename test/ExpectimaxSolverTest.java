@@ -0,0 +1,137 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import controller.Difficulty;
+import controller.Game;
+import controller.GameOutcome;
+import controller.GamePreset;
+import model.MazeCache;
+import simulation.ExpectimaxSolver;
+import simulation.RandomBot;
+import simulation.Simulator;
+
+/**
+ * Test the ExpectimaxSolver class.
+ */
+public class ExpectimaxSolverTest {
+
+  private static Game newGame(GamePreset preset, long seed) {
+    Game game = new Game(preset.getRows(), preset.getColumns(), preset.getNumOfRemainingWalls(),
+        preset.getNumOfPits(), preset.getNumOfBats(), 1, preset.getStartingNumArrow(), false,
+        false);
+    game.setMazeCache(new MazeCache(0));
+    game.setSeedRandomGame(seed);
+    game.start();
+    return game;
+  }
+
+  /**
+   * Test if the last shot hits the Wumpus with the probability of one of the
+   * caves it may be in, when there are no other hazards.
+   */
+  @Test
+  public void testLastShot() {
+    GamePreset preset = new GamePreset("Open", 3, 3, 4, 0, 0, 1, "");
+    ExpectimaxSolver solver = new ExpectimaxSolver(1, 0, TimeUnit.SECONDS, 10);
+    for (long seed = 0; seed < 20; seed++) {
+      Game game = newGame(preset, seed);
+      double value = solver.solve(game);
+      int numOfWumpusCaves = game.getBeliefState().getNumOfWumpusCaves();
+      assertEquals(numOfWumpusCaves, solver.getNumOfLayouts());
+      if (value > 0) {
+        assertEquals(1.0 / numOfWumpusCaves, value, 1e-12);
+        assertTrue(solver.getBestDistance() > 0);
+        assertTrue(game.shoot(solver.getBestTarget(), solver.getBestDistance()));
+      }
+    }
+  }
+
+  /**
+   * Test if more turns never lower the win probability, and if the size of
+   * the transposition table never changes it.
+   */
+  @Test
+  public void testHorizons() {
+    GamePreset preset = Difficulty.HELL.getPreset();
+    for (long seed = 0; seed < 3; seed++) {
+      Game game = newGame(preset, seed);
+      double previous = 0;
+      for (int horizon = 1; horizon <= 3; horizon++) {
+        double value = new ExpectimaxSolver(horizon, 1, TimeUnit.MINUTES, 20).solve(game);
+        assertTrue(value >= previous);
+        // nearly every state replaces another one in a table of 4 entries
+        assertEquals(value, new ExpectimaxSolver(horizon, 1, TimeUnit.MINUTES, 2).solve(game),
+            1e-12);
+        previous = value;
+      }
+      assertTrue(previous > 0);
+    }
+  }
+
+  /**
+   * Test if a solve stops at the time budget once the first turn is solved.
+   */
+  @Test
+  public void testBudget() {
+    Game game = newGame(Difficulty.HELL.getPreset(), 4);
+    ExpectimaxSolver solver = new ExpectimaxSolver(ExpectimaxSolver.MAX_HORIZON, 0,
+        TimeUnit.SECONDS, 16);
+    solver.solve(game);
+    assertTrue(solver.getSolvedHorizon() >= 1);
+    assertTrue(solver.getSolvedHorizon() < ExpectimaxSolver.MAX_HORIZON);
+  }
+
+  /**
+   * Test if the solver wins more games than a random bot within two turns.
+   */
+  @Test
+  public void testBeatsRandomBot() {
+    Simulator solver = new Simulator(Difficulty.HELL,
+        () -> new ExpectimaxSolver(2, 1, TimeUnit.MINUTES, 12));
+    solver.setMaxTurns(2);
+    solver.setPool(new ForkJoinPool(1));
+    Simulator random = new Simulator(Difficulty.HELL, () -> new RandomBot(0.5));
+    random.setMaxTurns(2);
+    assertTrue(solver.run(200, 3).getRate(GameOutcome.WON)
+        > random.run(200, 3).getRate(GameOutcome.WON));
+  }
+
+  /**
+   * Test invalid settings and games.
+   */
+  @Test
+  public void testInvalid() {
+    try {
+      new ExpectimaxSolver(0, 1, TimeUnit.SECONDS, 10);
+      fail("no turn");
+    } catch (IllegalArgumentException e) {
+      // Continue, do nothing
+    }
+    try {
+      new ExpectimaxSolver(1, -1, TimeUnit.SECONDS, 10);
+      fail("negative budget");
+    } catch (IllegalArgumentException e) {
+      // Continue, do nothing
+    }
+    try {
+      new ExpectimaxSolver(1, 1, TimeUnit.SECONDS, 0);
+      fail("no table");
+    } catch (IllegalArgumentException e) {
+      // Continue, do nothing
+    }
+    try {
+      // 100 caves
+      new ExpectimaxSolver(1, 1, TimeUnit.SECONDS, 10).solve(newGame(Difficulty.EASY
+          .getPreset(), 1));
+      fail("too many caves");
+    } catch (IllegalArgumentException e) {
+      // Continue, do nothing
+    }
+  }
+}
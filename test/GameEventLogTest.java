@@ -0,0 +1,48 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+import controller.GameEvent;
+import controller.GameEventLog;
+
+/**
+ * Test the GameEventLog class.
+ */
+public class GameEventLogTest {
+
+  /**
+   * Test if the oldest events are dropped when the log is full.
+   */
+  @Test
+  public void testRingBuffer() {
+    GameEventLog events = new GameEventLog(3);
+    for (int i = 0; i < 5; i++) {
+      events.add(GameEvent.MOVED, i, -i);
+    }
+    assertEquals(3, events.size());
+    assertEquals(2, events.getFirstArgument(0));
+    assertEquals(-4, events.getSecondArgument(2));
+    assertTrue(events.contains(GameEvent.MOVED));
+    events.clear();
+    assertEquals(0, events.size());
+    assertFalse(events.contains(GameEvent.MOVED));
+  }
+
+  /**
+   * Test if reading past the events throws an IndexOutOfBoundsException.
+   */
+  @Test
+  public void testInvalidIndex() {
+    GameEventLog events = new GameEventLog(3);
+    events.add(GameEvent.PROMPT_ACTION, 0, 0);
+    try {
+      events.getEvent(1);
+      fail();
+    } catch (IndexOutOfBoundsException e) {
+      // Continue, do nothing
+    }
+  }
+}
@@ -0,0 +1,68 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import controller.Difficulty;
+import controller.Game;
+import controller.GamePreset;
+
+/**
+ * Test the GamePreset class.
+ */
+public class GamePresetTest {
+
+  /**
+   * Test if stored presets load back the same.
+   */
+  @Test
+  public void testStoreLoad() throws IOException {
+    List<GamePreset> presets = Arrays.asList(Difficulty.EASY.getPreset(),
+        new GamePreset("Tuned", 7, 9, 4, 1, 2, 3, "Hunt, then run!"));
+    StringWriter writer = new StringWriter();
+    GamePreset.store(presets, writer);
+    List<GamePreset> loaded = GamePreset.load(new StringReader(writer.toString()));
+    assertEquals(2, loaded.size());
+    for (int i = 0; i < presets.size(); i++) {
+      assertEquals(presets.get(i).getDescription(1), loaded.get(i).getDescription(1));
+    }
+    assertEquals("Hunt, then run!", loaded.get(1).getFarewell());
+  }
+
+  /**
+   * Test if the defaults are the Difficulty presets and apply to a game.
+   */
+  @Test
+  public void testDefaults() {
+    List<GamePreset> presets = GamePreset.getDefaults();
+    assertEquals(Difficulty.values().length, presets.size());
+    assertEquals("Hell", presets.get(3).getLabel());
+    Game game = new Game(10, 10, 5, 3, 3, 15, 5, false);
+    presets.get(3).applyTo(game);
+    assertEquals(5, game.getRows());
+    assertEquals(2, game.getStartingNumArrow());
+  }
+
+  /**
+   * Test if malformed lines are rejected, comments and blank lines skipped.
+   */
+  @Test
+  public void testLoadInvalid() throws IOException {
+    assertEquals(0, GamePreset.load(new StringReader("# comment\n\n")).size());
+    for (String line : new String[] {"Easy,10,10,1,1,1,20", "Easy,10,ten,1,1,1,20,Bye",
+        "Easy,10,10,-1,1,1,20,Bye", " ,10,10,1,1,1,20,Bye", "Crowded,2,2,0,2,1,3,Bye"}) {
+      try {
+        GamePreset.load(new StringReader(line));
+        fail(line + " should be rejected");
+      } catch (IllegalArgumentException e) {
+        // expected
+      }
+    }
+  }
+}
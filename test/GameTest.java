@@ -1,10 +1,31 @@
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
 
 import org.junit.Before;
 import org.junit.Test;
 
 import controller.Game;
+import controller.GameChange;
+import controller.GameEvent;
+import controller.GameEventLog;
+import controller.GameOutcome;
+import controller.GameSnapshot;
+import model.CaveGraph;
+import model.Cell;
+import model.Hunter;
+import model.Maze;
+import simulation.RandomBot;
 
 /**
  * Game Controller Class Test.
@@ -94,4 +115,371 @@ public class GameTest {
     testOutput.append("\nToward cave?");
     assertEquals(testOutput.toString(), testGame.streamOut());
   }
+
+  /**
+   * Test if the same seed replays the same maze and hazards.
+   */
+  @Test
+  public void testSameSeed() {
+    Game other = new Game(10, 10, 3, 2, 2, 5, 3, false);
+    testGame.setSeedRandomGame(42);
+    other.setSeedRandomGame(42);
+    testGame.start();
+    other.start();
+    assertEquals(testGame.streamOut(), other.streamOut());
+    for (int row = 0; row < 10; row++) {
+      for (int col = 0; col < 10; col++) {
+        Cell expected = testGame.getGameMap()[row][col];
+        Cell actual = other.getGameMap()[row][col];
+        assertEquals(expected.isCave(), actual.isCave());
+        assertEquals(expected.isPit(), actual.isPit());
+        assertEquals(expected.isBat(), actual.isBat());
+        assertEquals(expected.isWumpus(), actual.isWumpus());
+      }
+    }
+    assertEquals(testGame.getHunter().getCurrentPos(), other.getHunter().getCurrentPos());
+  }
+
+  /**
+   * Test if the starting number of arrows takes effect on restart.
+   */
+  @Test
+  public void testStartingNumArrow() {
+    testGame.setStartingNumArrow(7);
+    testGame.start();
+    assertEquals(7, testGame.getHunter().getNumberOfArrows());
+  }
+
+  /**
+   * Test if every direction resolves to the current cave or a cave it leads to.
+   */
+  @Test
+  public void testMoveToIndex() {
+    int current = testGame.getHunter().getCurrentPos().x * 10
+        + testGame.getHunter().getCurrentPos().y + 1;
+    for (String direction : new String[] {"NORTH", "EAST", "SOUTH", "WEST"}) {
+      int index = testGame.moveToIndex(direction);
+      assertEquals(index, testGame.shootToIndex(direction));
+      if (index != current) {
+        Cell cell = testGame.getGameMap()[(current - 1) / 10][(current - 1) % 10];
+        Cell target = testGame.getGameMap()[(index - 1) / 10][(index - 1) % 10];
+        assertEquals(true, cell.getLeadToCavesSet().contains(target));
+      }
+    }
+    assertEquals(current, testGame.moveToIndex("UP"));
+  }
+
+  /**
+   * Test if the typed commands play the same turns as the string protocol.
+   */
+  @Test
+  public void testTypedCommands() {
+    Game other = new Game(10, 10, 3, 2, 2, 5, 3, false);
+    testGame.setSeedRandomGame(7);
+    other.setSeedRandomGame(7);
+    testGame.start();
+    other.start();
+    CaveGraph graph = other.getCaveGraph();
+    int[] leadTos = new int[4];
+    for (int turn = 0; turn < 6 && !other.isEnd(); turn++) {
+      int cell = other.getHunter().getCurrentPos().x * 10 + other.getHunter().getCurrentPos().y;
+      graph.getLeadToCavesOfCell(cell, leadTos);
+      String index = Integer.toString(graph.getCaveCell(leadTos[0]) + 1);
+      if (turn % 2 == 0) {
+        testGame.streamIn("M");
+        testGame.streamIn(index);
+        assertTrue(other.moveTo(leadTos[0]));
+      } else {
+        testGame.streamIn("S");
+        testGame.streamIn("2");
+        testGame.streamIn(index);
+        assertTrue(other.shoot(leadTos[0], 2));
+      }
+      assertEquals(testGame.streamOut(), other.streamOut());
+      assertEquals(testGame.getHunter().getCurrentPos(), other.getHunter().getCurrentPos());
+      assertEquals(testGame.getHunter().getArrowPos(), other.getHunter().getArrowPos());
+    }
+    assertFalse(other.shoot(0, 6));
+    assertFalse(other.moveTo(-1));
+  }
+
+  /**
+   * Test if a compound action notifies the observers once with its change.
+   */
+  @Test
+  public void testCompoundAction() {
+    List<Object> changes = new ArrayList<>();
+    testGame.addObserver((observable, change) -> changes.add(change));
+    int cell = testGame.getHunter().getCurrentPos().x * 10 + testGame.getHunter().getCurrentPos().y;
+    // the hunter starts at Cave #5 on the first row, walled to the north
+    assertEquals(4, cell);
+    assertFalse(testGame.getCaveGraph().isOpen(cell, CaveGraph.NORTH));
+    int direction = Integer.numberOfTrailingZeros(testGame.getCaveGraph().getOpenSides(cell));
+    testGame.streamIn("M");
+    assertEquals(GameChange.MOVED, testGame.moveAction(direction));
+    assertEquals(Arrays.asList(GameChange.PROMPTED, GameChange.MOVED), changes);
+    changes.clear();
+    testGame.start();
+    assertEquals(GameChange.REJECTED, testGame.shootAction(CaveGraph.NORTH, 1));
+    assertEquals(3, testGame.getHunter().getNumberOfArrows());
+    assertEquals(GameChange.SHOT, testGame.shootAction(direction, 1));
+    assertEquals(2, testGame.getHunter().getNumberOfArrows());
+    assertEquals(Arrays.asList(GameChange.STARTED, GameChange.REJECTED, GameChange.SHOT),
+        changes);
+  }
+
+  /**
+   * Test if the outcome is decided for the hunter who acted.
+   */
+  @Test
+  public void testOutcome() {
+    assertEquals(GameOutcome.IN_PROGRESS, testGame.getOutcome());
+    assertFalse(testGame.isEnd());
+    Game noArrows = new Game(10, 10, 3, 2, 2, 5, 0, false);
+    assertEquals(GameOutcome.OUT_OF_ARROWS, noArrows.getOutcome());
+    assertTrue(noArrows.isOutOfArrows());
+
+    Game twoPlayers = new Game(10, 10, 3, 0, 0, 5, 1, true);
+    Hunter hunterOne = twoPlayers.getHunterOne();
+    int cell = hunterOne.getCurrentPos().x * 10 + hunterOne.getCurrentPos().y;
+    int direction = Integer.numberOfTrailingZeros(twoPlayers.getCaveGraph().getOpenSides(cell));
+    assertEquals(GameChange.SHOT, twoPlayers.shootAction(direction, 1));
+    assertTrue(twoPlayers.isEnd());
+    assertEquals(hunterOne, twoPlayers.getOutcomeHunter());
+    assertEquals(twoPlayers.getHunterTwo(), twoPlayers.getHunter());
+  }
+
+  /**
+   * Test if the events of a turn match its transcript.
+   */
+  @Test
+  public void testEvents() {
+    testGame.streamIn("S");
+    assertEquals(1, testGame.getEvents().size());
+    assertEquals(GameEvent.PROMPT_NUM_CAVES, testGame.getEvents().getEvent(0));
+    testGame.streamIn("9");
+    assertEquals(GameEvent.INVALID_NUM_CAVES, testGame.getEvents().getEvent(0));
+    assertEquals("Not valid num of caves pass\nNo. of caves (1-5)?", testGame.streamOut());
+    int cell = testGame.getHunter().getCurrentPos().x * 10 + testGame.getHunter().getCurrentPos().y;
+    int direction = Integer.numberOfTrailingZeros(testGame.getCaveGraph().getOpenSides(cell));
+    testGame.moveAction(direction);
+    GameEventLog events = testGame.getEvents();
+    assertEquals(GameEvent.MOVED, events.getEvent(0));
+    int moved = events.getFirstArgument(0);
+    assertTrue(events.contains(GameEvent.ENTERED));
+    assertEquals(GameEvent.PROMPT_ACTION, events.getEvent(events.size() - 1));
+    if (!events.contains(GameEvent.SNATCHED)) {
+      assertTrue(testGame.streamOut().contains("You are in Cave " + (moved + 1) + "\n"));
+    }
+  }
+
+  /**
+   * Get the positions, arrows, visited cells and outcome of a game as text.
+   */
+  private String describeState(Game game) {
+    StringBuilder state = new StringBuilder();
+    for (Hunter hunter : new Hunter[] {game.getHunterOne(), game.getHunterTwo()}) {
+      if (hunter == null) {
+        continue;
+      }
+      state.append(hunter.getCurrentPos()).append(hunter.getArrowPos())
+          .append(hunter.getNumberOfArrows());
+    }
+    state.append(game.getHunter() == game.getHunterTwo()).append(game.getOutcome());
+    for (Cell[] row : game.getGameMap()) {
+      for (Cell cell : row) {
+        state.append(cell.isVisited() ? 'V' : '.');
+      }
+    }
+    return state.toString();
+  }
+
+  /**
+   * Play random turns until the game ends or the number of turns is reached.
+   *
+   * @return the cells the superbats dropped the hunters in
+   */
+  private List<Integer> playRandomTurns(Game game, int numOfTurns, long seed) {
+    RandomBot bot = new RandomBot(0.3);
+    SplittableRandom random = new SplittableRandom(seed);
+    List<Integer> drops = new ArrayList<>();
+    for (int turn = 0; turn < numOfTurns && !game.isEnd(); turn++) {
+      bot.playTurn(game, random);
+      GameEventLog events = game.getEvents();
+      for (int i = 0; i < events.size(); i++) {
+        if (events.getEvent(i) == GameEvent.SNATCHED) {
+          drops.add(events.getFirstArgument(i));
+        }
+      }
+    }
+    return drops;
+  }
+
+  /**
+   * Test if snapshots restore the branches of a search in any order, superbat
+   * draws included.
+   */
+  @Test
+  public void testSnapshot() {
+    Game game = new Game(10, 10, 5, 2, 8, 15, 10, true, false);
+    for (long seed = 0; seed < 30; seed++) {
+      game.setSeedRandomGame(seed);
+      game.start();
+      GameSnapshot root = game.snapshot();
+      String rootState = describeState(game);
+      playRandomTurns(game, 15, seed);
+      GameSnapshot branch = game.snapshot();
+      String branchState = describeState(game);
+      playRandomTurns(game, 15, seed + 1);
+      String leafState = describeState(game);
+      GameSnapshot leaf = game.snapshot();
+      game.restore(root);
+      assertEquals(rootState, describeState(game));
+      playRandomTurns(game, 15, seed + 100);
+      game.restore(branch);
+      assertEquals(branchState, describeState(game));
+      // the same turns from the same snapshot play the same game
+      playRandomTurns(game, 15, seed + 1);
+      assertEquals(leafState, describeState(game));
+      game.restore(leaf);
+      assertEquals(leafState, describeState(game));
+      assertEquals(leaf.getOutcome(), game.getOutcome());
+    }
+  }
+
+  /**
+   * Test if a game restored to its start replays the turns of a fresh game
+   * with the same seed, superbat drops included.
+   */
+  @Test
+  public void testSnapshotReplay() {
+    Game fresh = new Game(6, 6, 5, 0, 8, 15, 10, false, false);
+    Game restored = new Game(6, 6, 5, 0, 8, 15, 10, false, false);
+    Set<Integer> dropCells = new HashSet<>();
+    for (long seed = 0; seed < 2000; seed++) {
+      fresh.setSeedRandomGame(seed);
+      fresh.start();
+      List<Integer> drops = playRandomTurns(fresh, 30, seed + 1);
+      restored.setSeedRandomGame(seed);
+      restored.start();
+      GameSnapshot start = restored.snapshot();
+      playRandomTurns(restored, 30, seed + 100);
+      restored.restore(start);
+      assertEquals(drops, playRandomTurns(restored, 30, seed + 1));
+      assertEquals(describeState(fresh), describeState(restored));
+      dropCells.addAll(drops);
+    }
+    assertTrue(dropCells.size() > 10);
+  }
+
+  /**
+   * Test if undo takes back the turns one by one, and only when enabled.
+   */
+  @Test
+  public void testUndo() {
+    Game game = new Game(10, 10, 5, 2, 3, 15, 10, false, false);
+    assertFalse(game.undo());
+    game.setUndoDepth(2);
+    String start = describeState(game);
+    playRandomTurns(game, 1, 3);
+    String first = describeState(game);
+    playRandomTurns(game, 1, 4);
+    playRandomTurns(game, 1, 5);
+    assertTrue(game.undo());
+    assertTrue(game.undo());
+    assertEquals(first, describeState(game));
+    assertFalse(game.undo());
+    assertEquals(GameEvent.PROMPT_ACTION,
+        game.getEvents().getEvent(game.getEvents().size() - 1));
+    game.setUndoDepth(5);
+    playRandomTurns(game, 1, 6);
+    game.start();
+    assertFalse(game.undo());
+    assertEquals(start.length(), describeState(game).length());
+  }
+
+  /**
+   * Test if the state hash is kept up to date by moves, shots, superbats,
+   * snapshots and undo, and only depends on the state.
+   */
+  @Test
+  public void testStateHash() {
+    Game game = new Game(10, 10, 5, 2, 8, 15, 10, true, false);
+    Game other = new Game(10, 10, 5, 2, 8, 15, 10, true, false);
+    game.setUndoDepth(3);
+    for (long seed = 0; seed < 30; seed++) {
+      game.setSeedRandomGame(seed);
+      game.start();
+      other.setSeedRandomGame(seed);
+      other.start();
+      assertEquals(game.computeStateHash(), game.getStateHash());
+      assertEquals(other.getStateHash(), game.getStateHash());
+      GameSnapshot root = game.snapshot();
+      for (int turn = 0; turn < 20 && !game.isEnd(); turn++) {
+        long before = game.getStateHash();
+        playRandomTurns(game, 1, seed * 100 + turn);
+        assertEquals(game.computeStateHash(), game.getStateHash());
+        // every turn changes the hunter to play or what a hunter did
+        assertFalse(before == game.getStateHash());
+      }
+      playRandomTurns(other, 20, seed + 1000);
+      assertEquals(describeState(game).equals(describeState(other)),
+          game.getStateHash() == other.getStateHash());
+      GameSnapshot leaf = game.snapshot();
+      assertEquals(leaf.getStateHash(), game.getStateHash());
+      game.undo();
+      assertEquals(game.computeStateHash(), game.getStateHash());
+      game.restore(root);
+      assertEquals(root.getStateHash(), game.getStateHash());
+      assertEquals(game.computeStateHash(), game.getStateHash());
+      game.restore(leaf);
+      assertEquals(leaf.getStateHash(), game.getStateHash());
+    }
+  }
+
+  /**
+   * Test if a start with too few caves for the hazards keeps the last game.
+   */
+  @Test
+  public void testTooFewCaves() {
+    Game game = new Game(10, 10, 5, 2, 8, 15, 10, true, false);
+    playRandomTurns(game, 3, 1);
+    Maze maze = game.getMaze();
+    String state = describeState(game);
+    long stateHash = game.getStateHash();
+    game.setNumOfPits(90);
+    try {
+      game.start();
+      fail("90 pits should not fit in the caves");
+    } catch (IllegalArgumentException e) {
+      // Continue, do nothing
+    }
+    assertSame(maze, game.getMaze());
+    assertEquals(state, describeState(game));
+    assertEquals(stateHash, game.computeStateHash());
+  }
+
+  /**
+   * Test if restoring a snapshot after the map was revealed hides the revealed
+   * cells only.
+   */
+  @Test
+  public void testRevealRestore() {
+    Game game = new Game(10, 10, 5, 2, 8, 15, 10, true, false);
+    for (long seed = 0; seed < 10; seed++) {
+      game.setSeedRandomGame(seed);
+      game.start();
+      playRandomTurns(game, 5, seed);
+      GameSnapshot middle = game.snapshot();
+      String middleState = describeState(game);
+      playRandomTurns(game, 200, seed + 1);
+      game.revealGameMap();
+      game.revealGameMap();
+      for (byte flags : game.getCellFlags()) {
+        assertTrue((flags & Cell.VISITED) != 0);
+      }
+      game.restore(middle);
+      assertEquals(middleState, describeState(game));
+    }
+  }
 }
@@ -69,4 +69,18 @@ public class HunterTest {
     } 
   }
 
+  /**
+   * Test if the in place setters move the hunter and its arrow separately.
+   */
+  @Test
+  public void testSetPosInPlace() {
+    Point current = testHunter.getCurrentPos();
+    testHunter.setCurrentPos(3, 4);
+    assertEquals(new Point(3, 4), testHunter.getCurrentPos());
+    assertEquals(current, testHunter.getCurrentPos());
+    assertEquals(new Point(10, 20), testHunter.getArrowPos());
+    testHunter.setArrowPos(5, 6);
+    assertEquals(new Point(5, 6), testHunter.getArrowPos());
+    assertEquals(new Point(10, 20), testPoint);
+  }
 }
@@ -0,0 +1,57 @@
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.SplittableRandom;
+
+import org.junit.Test;
+
+import model.DisjointSets;
+import model.KruskalGenerator;
+
+/**
+ * Test the KruskalGenerator class.
+ */
+public class KruskalGeneratorTest {
+
+  /**
+   * Test if exactly the requested number of walls remains.
+   */
+  @Test
+  public void testRemainingWalls() {
+    for (int remaining = 0; remaining <= 9 * 9; remaining += 9) {
+      KruskalGenerator generator = new KruskalGenerator(10, 10, remaining,
+          new SplittableRandom(7));
+      generator.generate();
+      assertEquals(remaining, generator.getNumOfRemainingWalls());
+      assertEquals(10 * 9 * 2 - remaining, generator.getNumOfBrokenWalls());
+    }
+  }
+
+  /**
+   * Test if the broken walls connect every cell of the grid.
+   */
+  @Test
+  public void testConnected() {
+    KruskalGenerator generator = new KruskalGenerator(20, 30, 29 * 19,
+        new SplittableRandom(3));
+    generator.generate();
+    DisjointSets sets = new DisjointSets(20, 30);
+    int[] edges = generator.getEdges();
+    for (int i = 0; i < generator.getNumOfBrokenWalls(); i++) {
+      sets.union(KruskalGenerator.getCell(edges[i]), generator.getOtherCell(edges[i]));
+    }
+    assertEquals(1, sets.getNumOfSets());
+  }
+
+  /**
+   * Test if the same seed generates the same maze.
+   */
+  @Test
+  public void testSameSeed() {
+    KruskalGenerator first = new KruskalGenerator(15, 15, 20, new SplittableRandom(42));
+    KruskalGenerator second = new KruskalGenerator(15, 15, 20, new SplittableRandom(42));
+    first.generate();
+    second.generate();
+    assertArrayEquals(first.getEdges(), second.getEdges());
+  }
+}
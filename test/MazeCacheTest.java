@@ -0,0 +1,110 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.Test;
+
+import model.MazeCache;
+import model.MazePrefetcher;
+import model.MazeTopology;
+import model.RoomMaze;
+
+/**
+ * Test the MazeCache class.
+ */
+public class MazeCacheTest {
+
+  /**
+   * Test if the same parameters return the same topology.
+   */
+  @Test
+  public void testHit() {
+    MazeCache cache = new MazeCache(MazeCache.DEFAULT_MEMORY_BUDGET);
+    MazeTopology first = cache.get(10, 10, 5, 1, MazeTopology.Type.ROOM);
+    assertSame(first, cache.get(10, 10, 5, 1, MazeTopology.Type.ROOM));
+    assertNotSame(first, cache.get(10, 10, 5, 2, MazeTopology.Type.ROOM));
+    assertNotSame(first, cache.get(10, 10, 5, 1, MazeTopology.Type.WRAPPING));
+    assertEquals(1, cache.getNumOfHits());
+    assertEquals(3, cache.getNumOfMisses());
+  }
+
+  /**
+   * Test if the least recently used topology is evicted over the budget.
+   */
+  @Test
+  public void testEviction() {
+    long footprint = MazeTopology.generate(64, 64, 0, 0, MazeTopology.Type.ROOM)
+        .getMemoryFootprint();
+    MazeCache cache = new MazeCache(2 * footprint);
+    cache.get(64, 64, 0, 1, MazeTopology.Type.ROOM);
+    cache.get(64, 64, 0, 2, MazeTopology.Type.ROOM);
+    cache.get(64, 64, 0, 1, MazeTopology.Type.ROOM);
+    cache.get(64, 64, 0, 3, MazeTopology.Type.ROOM);
+    assertEquals(2, cache.size());
+    assertTrue(cache.contains(64, 64, 0, 1, MazeTopology.Type.ROOM));
+    assertFalse(cache.contains(64, 64, 0, 2, MazeTopology.Type.ROOM));
+    assertTrue(cache.getMemoryUsage() <= cache.getMemoryBudget());
+  }
+
+  /**
+   * Test if a maze built from a cached topology matches a generated maze.
+   */
+  @Test
+  public void testSameMaze() {
+    MazeCache cache = new MazeCache(MazeCache.DEFAULT_MEMORY_BUDGET);
+    RoomMaze expected = new RoomMaze(12, 9, 20, 5);
+    RoomMaze actual = new RoomMaze(cache.get(12, 9, 20, 5, MazeTopology.Type.ROOM));
+    for (int row = 0; row < 12; row++) {
+      for (int col = 0; col < 9; col++) {
+        assertEquals(expected.getGameMap()[row][col].isCave(),
+            actual.getGameMap()[row][col].isCave());
+        assertEquals(expected.getGameMap()[row][col].getNeighouberCellsSet().size(),
+            actual.getGameMap()[row][col].getNeighouberCellsSet().size());
+      }
+    }
+    assertEquals(20, actual.getRemainingWallList().size());
+  }
+
+  /**
+   * Test if a prefetched topology is served from the cache.
+   */
+  @Test
+  public void testPrefetch() throws Exception {
+    MazeCache cache = new MazeCache(MazeCache.DEFAULT_MEMORY_BUDGET);
+    MazePrefetcher prefetcher = new MazePrefetcher(cache);
+    MazeTopology topology = prefetcher.prefetch(30, 30, 10, 4, MazeTopology.Type.ROOM).get();
+    assertSame(topology, cache.get(30, 30, 10, 4, MazeTopology.Type.ROOM));
+    assertEquals(1, cache.getNumOfHits());
+    prefetcher.shutdown();
+  }
+
+  /**
+   * Test if a lookup waits for the topology being generated instead of
+   * generating it again.
+   */
+  @Test
+  public void testPendingBuild() throws Exception {
+    MazeCache cache = new MazeCache(MazeCache.DEFAULT_MEMORY_BUDGET);
+    List<Runnable> queued = new ArrayList<>();
+    CompletableFuture<MazeTopology> future = cache.getAsync(30, 30, 10, 4,
+        MazeTopology.Type.ROOM, queued::add);
+    assertSame(future, cache.getAsync(30, 30, 10, 4, MazeTopology.Type.ROOM, queued::add));
+    assertEquals(1, queued.size());
+    assertFalse(future.isDone());
+    MazeTopology[] result = new MazeTopology[1];
+    Thread lookup = new Thread(() -> result[0] = cache.get(30, 30, 10, 4,
+        MazeTopology.Type.ROOM));
+    lookup.start();
+    queued.get(0).run();
+    lookup.join();
+    assertSame(future.get(), result[0]);
+    assertEquals(1, cache.getNumOfMisses());
+    assertEquals(1, cache.size());
+  }
+}
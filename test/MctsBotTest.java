@@ -0,0 +1,122 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import controller.Difficulty;
+import controller.Game;
+import controller.GameOutcome;
+import model.CaveGraph;
+import simulation.MctsBot;
+import simulation.RandomBot;
+import simulation.SimulationReport;
+import simulation.Simulator;
+
+/**
+ * Test the MctsBot class.
+ */
+public class MctsBotTest {
+
+  private static MctsBot newBot(int numOfThreads) {
+    MctsBot bot = new MctsBot(0, TimeUnit.MILLISECONDS, numOfThreads);
+    bot.setMaxPlayoutsPerMove(100);
+    return bot;
+  }
+
+  /**
+   * Test if the bot wins more games than a random bot on the same mazes.
+   */
+  @Test
+  public void testBeatsRandomBot() {
+    SimulationReport random = new Simulator(Difficulty.HARD, () -> new RandomBot(0.5))
+        .run(200, 11);
+    SimulationReport mcts = new Simulator(Difficulty.HARD, () -> newBot(1)).run(200, 11);
+    assertEquals(200, mcts.getNumOfGames());
+    assertTrue(mcts.getRate(GameOutcome.WON) > random.getRate(GameOutcome.WON) + 0.15);
+  }
+
+  /**
+   * Test if a single threaded search with a playout limit replays the same
+   * games.
+   */
+  @Test
+  public void testDeterminism() {
+    Simulator simulator = new Simulator(Difficulty.HELL, () -> newBot(1));
+    SimulationReport first = simulator.run(100, 5);
+    SimulationReport second = simulator.run(100, 5);
+    for (GameOutcome outcome : GameOutcome.values()) {
+      assertEquals(first.getCount(outcome), second.getCount(outcome));
+    }
+    assertEquals(first.getTotalTurns(), second.getTotalTurns());
+  }
+
+  /**
+   * Test if several threads share the playouts of a move.
+   */
+  @Test
+  public void testThreads() {
+    MctsBot bot = newBot(3);
+    Simulator simulator = new Simulator(Difficulty.HELL, () -> bot);
+    // one bot plays one game at a time
+    simulator.setPool(new ForkJoinPool(1));
+    SimulationReport report = simulator.run(0, 20, 9);
+    assertEquals(20, report.getNumOfGames());
+    assertTrue(bot.getNumOfMoves() > 0);
+    // each thread stops once the limit is reached, at most one playout past it
+    assertTrue(bot.getNumOfPlayouts() >= 100 * bot.getNumOfMoves());
+    assertTrue(bot.getNumOfPlayouts() <= 103 * bot.getNumOfMoves());
+    assertTrue(bot.getPlayoutsPerSecond() > 0);
+    bot.shutdown();
+  }
+
+  /**
+   * Test if a search leaves the game as it is, and its action plays the turn.
+   */
+  @Test
+  public void testSearch() {
+    Game game = new Game(10, 10, 3, 2, 2, 5, 3, false);
+    game.setSeedRandomGame(17);
+    game.start();
+    long stateHash = game.getStateHash();
+    MctsBot bot = newBot(2);
+    MctsBot.Action action = bot.search(game, new SplittableRandom(3));
+    assertEquals(stateHash, game.getStateHash());
+    assertEquals(1, bot.getNumOfMoves());
+    assertNotEquals(CaveGraph.NONE, action.getTargetCave());
+    assertTrue(action.getDistance() == 0 || action.getDistance() == 1);
+    action.applyTo(game);
+    assertNotEquals(stateHash, game.getStateHash());
+    bot.shutdown();
+  }
+
+  /**
+   * Test invalid settings.
+   */
+  @Test
+  public void testInvalid() {
+    try {
+      new MctsBot(-1, TimeUnit.MILLISECONDS, 1);
+      fail("negative budget");
+    } catch (IllegalArgumentException e) {
+      // Continue, do nothing
+    }
+    try {
+      new MctsBot(1, TimeUnit.MILLISECONDS, 0);
+      fail("no thread");
+    } catch (IllegalArgumentException e) {
+      // Continue, do nothing
+    }
+    try {
+      newBot(1).setMaxPlayoutsPerMove(-1);
+      fail("negative playouts");
+    } catch (IllegalArgumentException e) {
+      // Continue, do nothing
+    }
+  }
+}
@@ -1,10 +1,12 @@
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import org.junit.BeforeClass;
 import org.junit.Test;
 
+import model.Cell;
 import model.RoomMaze;
 
 /**
@@ -76,4 +78,33 @@ public class RoomMazeTest {
     assertEquals(expectedBrokenWalls, testMaze.getBreakedWallSet().size());
   }
 
+  /**
+   * Test if a tunnel longer than the call stack allows leads to both its ends.
+   */
+  @Test
+  public void testLongTunnel() {
+    Cell[][] gameMap = new RoomMaze(1, 20000, 0, 0).getGameMap();
+    Cell first = gameMap[0][0];
+    Cell last = gameMap[0][19999];
+    assertTrue(first.getLeadToCavesSet().contains(last));
+    assertTrue(last.getLeadToCavesSet().contains(first));
+    assertEquals(2, gameMap[0][10000].getLeadToCavesSet().size());
+  }
+
+  /**
+   * Test if every cave leads back to the caves it leads to.
+   */
+  @Test
+  public void testLeadToCavesSymmetric() {
+    for (Cell[] row : new RoomMaze(30, 30, 200, 4).getGameMap()) {
+      for (Cell cell : row) {
+        for (Cell cave : cell.getLeadToCavesSet()) {
+          assertTrue(cave.isCave());
+          if (cell.isCave()) {
+            assertTrue(cave.getLeadToCavesSet().contains(cell));
+          }
+        }
+      }
+    }
+  }
 }
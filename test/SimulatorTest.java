@@ -0,0 +1,81 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+import controller.Difficulty;
+import controller.GameOutcome;
+import simulation.RandomBot;
+import simulation.SimulationReport;
+import simulation.Simulator;
+
+/**
+ * Test the Simulator class.
+ */
+public class SimulatorTest {
+
+  /**
+   * Test if every game is counted once.
+   */
+  @Test
+  public void testCounts() {
+    Simulator simulator = new Simulator(Difficulty.HARD, () -> new RandomBot(0.5));
+    SimulationReport report = simulator.run(2000, 7);
+    assertEquals(2000, report.getNumOfGames());
+    long total = 0;
+    for (GameOutcome outcome : GameOutcome.values()) {
+      total += report.getCount(outcome);
+    }
+    assertEquals(2000, total);
+    assertEquals(0, report.getCount(GameOutcome.IN_PROGRESS));
+  }
+
+  /**
+   * Test if a run only depends on its seed, not on the number of threads.
+   */
+  @Test
+  public void testDeterminism() {
+    Simulator simulator = new Simulator(Difficulty.MEDIUM, () -> new RandomBot(0.3));
+    SimulationReport parallel = simulator.run(3000, 42);
+    simulator.setPool(new ForkJoinPool(1));
+    SimulationReport sequential = simulator.run(3000, 42);
+    for (GameOutcome outcome : GameOutcome.values()) {
+      assertEquals(parallel.getCount(outcome), sequential.getCount(outcome));
+    }
+    assertEquals(parallel.getTotalTurns(), sequential.getTotalTurns());
+  }
+
+  /**
+   * Test if games are cut off at the turn limit.
+   */
+  @Test
+  public void testMaxTurns() {
+    Simulator simulator = new Simulator(Difficulty.EASY, () -> new RandomBot(0));
+    simulator.setMaxTurns(1);
+    SimulationReport report = simulator.run(500, 3);
+    assertEquals(1, report.getMaxTurns());
+    assertEquals(500, report.getCount(GameOutcome.IN_PROGRESS)
+        + report.getCount(GameOutcome.EATEN) + report.getCount(GameOutcome.FALLEN));
+  }
+
+  /**
+   * Test if invalid settings are rejected.
+   */
+  @Test
+  public void testInvalid() {
+    try {
+      new RandomBot(1.5);
+      fail("a probability over 1 should be rejected");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+    try {
+      new Simulator(5, 5, 100, 2, 2, 1, 2, () -> new RandomBot(0.5));
+      fail("too many remaining walls should be rejected");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+  }
+}
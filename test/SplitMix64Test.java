@@ -0,0 +1,72 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+import model.SplitMix64;
+
+/**
+ * Test the SplitMix64 class.
+ */
+public class SplitMix64Test {
+
+  /**
+   * Test if a seed always gives the same values and splits, and a split
+   * generator does not repeat its parent.
+   */
+  @Test
+  public void testSplit() {
+    for (long seed = -3; seed < 3; seed++) {
+      SplitMix64 first = new SplitMix64(seed);
+      SplitMix64 second = new SplitMix64(seed);
+      assertEquals(first.nextLong(), second.nextLong());
+      SplitMix64 firstSplit = first.split();
+      SplitMix64 secondSplit = second.split();
+      for (int bound = 1; bound < 200; bound++) {
+        assertEquals(first.nextInt(bound), second.nextInt(bound));
+        assertEquals(firstSplit.nextInt(bound), secondSplit.nextInt(bound));
+      }
+      assertNotEquals(first.nextLong(), firstSplit.nextLong());
+    }
+  }
+
+  /**
+   * Test if values below a bound are drawn about evenly, also for a bound
+   * which does not divide 2^32.
+   */
+  @Test
+  public void testUniform() {
+    SplitMix64 random = new SplitMix64(7);
+    int[] counts = new int[6];
+    for (int i = 0; i < 60000; i++) {
+      counts[random.nextInt(6)]++;
+    }
+    for (int count : counts) {
+      assertTrue(Math.abs(count - 10000) < 500);
+    }
+    assertTrue(random.nextInt(Integer.MAX_VALUE) >= 0);
+  }
+
+  /**
+   * Test if a restored state replays the same values.
+   */
+  @Test
+  public void testState() {
+    SplitMix64 random = new SplitMix64(42);
+    random.nextLong();
+    long state = random.getState();
+    long first = random.nextLong();
+    int second = random.nextInt(7);
+    random.setState(state);
+    assertEquals(first, random.nextLong());
+    assertEquals(second, random.nextInt(7));
+    try {
+      random.nextInt(0);
+      fail("a bound of 0 should be rejected");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+  }
+}
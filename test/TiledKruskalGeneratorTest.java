@@ -0,0 +1,54 @@
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+import model.DisjointSets;
+import model.KruskalGenerator;
+import model.TiledKruskalGenerator;
+
+/**
+ * Test the TiledKruskalGenerator class.
+ */
+public class TiledKruskalGeneratorTest {
+
+  /**
+   * Test if the tiles are stitched into one maze with the requested walls left.
+   */
+  @Test
+  public void testConnected() {
+    for (int remaining : new int[] {0, 50, 24 * 16}) {
+      TiledKruskalGenerator generator = new TiledKruskalGenerator(25, 17, remaining,
+          new SplittableRandom(remaining), 4, ForkJoinPool.commonPool());
+      generator.generate();
+      DisjointSets sets = new DisjointSets(25, 17);
+      int[] edges = generator.getEdges();
+      for (int i = 0; i < generator.getNumOfBrokenWalls(); i++) {
+        sets.union(KruskalGenerator.getCell(edges[i]), generator.getOtherCell(edges[i]));
+      }
+      assertEquals(1, sets.getNumOfSets());
+      assertEquals(remaining, generator.getNumOfRemainingWalls());
+    }
+  }
+
+  /**
+   * Test if the same seed generates the same maze whatever the number of threads.
+   */
+  @Test
+  public void testSameSeed() {
+    ForkJoinPool single = new ForkJoinPool(1);
+    ForkJoinPool parallel = new ForkJoinPool(4);
+    TiledKruskalGenerator first = new TiledKruskalGenerator(40, 30, 60,
+        new SplittableRandom(11), 8, single);
+    TiledKruskalGenerator second = new TiledKruskalGenerator(40, 30, 60,
+        new SplittableRandom(11), 8, parallel);
+    first.generate();
+    second.generate();
+    assertArrayEquals(first.getEdges(), second.getEdges());
+    single.shutdown();
+    parallel.shutdown();
+  }
+}